@@ -0,0 +1,52 @@
+package com.minari.ecommerce.benchmark;
+
+import com.minari.ecommerce.entity.CartItem;
+import com.minari.ecommerce.entity.ShoppingCart;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart totals: the stored total read on every page vs recomputing from items
+ * (what temporary checkout carts built with setItems still do)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartTotalsBenchmark {
+
+    @Param({ "1", "20", "200" })
+    private int lines;
+
+    private ShoppingCart cart;
+    private List<CartItem> items;
+
+    @Setup
+    public void setUp() {
+        cart = new SyntheticCatalog(42).cart(lines);
+        items = cart.getItems();
+    }
+
+    @Benchmark
+    public Double storedTotal() {
+        return cart.getTotalAmount();
+    }
+
+    @Benchmark
+    public Double recomputeFromItems() {
+        ShoppingCart temp = new ShoppingCart();
+        temp.setItems(items);
+        return temp.getTotalAmount();
+    }
+
+    @Benchmark
+    public Double adjustTotals() {
+        cart.adjustTotals(0, 10_000.0);
+        cart.adjustTotals(0, -10_000.0);
+        return cart.getTotalAmount();
+    }
+}
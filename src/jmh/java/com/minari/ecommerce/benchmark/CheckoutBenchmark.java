@@ -0,0 +1,134 @@
+package com.minari.ecommerce.benchmark;
+
+import com.minari.ecommerce.MinariApplication;
+import com.minari.ecommerce.dto.OrderDTO;
+import com.minari.ecommerce.entity.Address;
+import com.minari.ecommerce.entity.Order;
+import com.minari.ecommerce.entity.PaymentMethod;
+import com.minari.ecommerce.entity.Product;
+import com.minari.ecommerce.entity.ProductCategory;
+import com.minari.ecommerce.repository.ProductCategoryRepository;
+import com.minari.ecommerce.repository.ProductRepository;
+import com.minari.ecommerce.service.OrderService;
+import com.minari.ecommerce.service.ShoppingCartService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end checkout against an in-memory H2 database with the full Spring context:
+ * createOrderFromCart (stock deduction, order + items, payment, rollups, email outbox)
+ * and building order DTOs for the admin order list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckoutBenchmark {
+
+    // Created by DataSeeder on startup
+    static final String CUSTOMER_EMAIL = "customer@minari.com";
+
+    // 50 lines: order items are inserted in one JDBC batch (pooled sequence ids)
+    @Param({ "1", "20", "50" })
+    private int lines;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private ShoppingCartService cartService;
+    private final List<Long> productIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // Passed as command-line arguments, which (unlike builder defaults) override application.properties
+        context = new SpringApplicationBuilder(MinariApplication.class)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:minari-bench;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--server.port=0",
+                        "--logging.level.root=WARN",
+                        "--logging.file.name=",
+                        "--app.mail.simulate=true",
+                        // CloudinaryConfig needs values; uploads are never exercised here
+                        "--CLOUDINARY_CLOUD_NAME=benchmark",
+                        "--CLOUDINARY_API_KEY=benchmark",
+                        "--CLOUDINARY_API_SECRET=benchmark");
+        orderService = context.getBean(OrderService.class);
+        cartService = context.getBean(ShoppingCartService.class);
+
+        ProductCategory category = new ProductCategory();
+        category.setName("Benchmark");
+        category.setSlug("benchmark");
+        category = context.getBean(ProductCategoryRepository.class).save(category);
+
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        for (int i = 1; i <= 50; i++) {
+            Product product = new Product();
+            product.setName("Benchmark product " + i);
+            product.setSku("BENCH-" + i);
+            product.setPrice(100_000.0 + i * 1_000);
+            product.setStockQuantity(10_000_000);
+            product.setCategory(category);
+            productIds.add(productRepository.save(product).getId());
+        }
+
+        // Some history for the DTO benchmark
+        for (int i = 0; i < 20; i++) {
+            fillCart();
+            orderService.createOrderFromCart(CUSTOMER_EMAIL, address(), PaymentMethod.COD);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    void fillCart() {
+        for (int i = 0; i < lines; i++) {
+            cartService.addToCart(CUSTOMER_EMAIL, productIds.get(i % productIds.size()), 1);
+        }
+    }
+
+    /**
+     * A freshly filled cart before every checkout invocation
+     */
+    @State(Scope.Thread)
+    public static class FilledCart {
+        @Setup(Level.Invocation)
+        public void fill(CheckoutBenchmark benchmark) {
+            benchmark.fillCart();
+        }
+    }
+
+    @Benchmark
+    public Order createOrderFromCart(FilledCart cart) {
+        return orderService.createOrderFromCart(CUSTOMER_EMAIL, address(), PaymentMethod.COD);
+    }
+
+    @Benchmark
+    public List<OrderDTO> recentOrderDtos() {
+        return orderService.getRecentOrders(20);
+    }
+
+    private static Address address() {
+        Address address = new Address();
+        address.setRecipientName("Benchmark Customer");
+        address.setPhoneNumber("+628000000000");
+        address.setStreetAddress("Jl. Benchmark 1");
+        address.setCity("Bandung");
+        address.setProvince("Jawa Barat");
+        address.setZipcode("40000");
+        return address;
+    }
+}
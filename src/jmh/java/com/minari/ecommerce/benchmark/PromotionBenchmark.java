@@ -0,0 +1,45 @@
+package com.minari.ecommerce.benchmark;
+
+import com.minari.ecommerce.dto.DiscountCalculation;
+import com.minari.ecommerce.entity.ShoppingCart;
+import com.minari.ecommerce.service.PromotionService;
+import com.minari.ecommerce.service.PromotionUsageService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PromotionService.calculateBestDiscount on synthetic carts and promotion sets
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromotionBenchmark {
+
+    @Param({ "1", "20", "200" })
+    private int lines;
+
+    @Param({ "0", "50", "500" })
+    private int promotions;
+
+    private PromotionService promotionService;
+    private ShoppingCart cart;
+
+    @Setup
+    public void setUp() {
+        SyntheticCatalog catalog = new SyntheticCatalog(42);
+        cart = catalog.cart(lines);
+        // A guest (no customer id) only checks the in-memory used-up set, so usage accounting needs no database
+        promotionService = new PromotionService(SyntheticCatalog.promotionRepository(catalog.promotions(promotions)),
+                event -> { }, new PromotionUsageService(null, null, null, 10));
+        promotionService.rebuildRules();
+    }
+
+    @Benchmark
+    public DiscountCalculation calculateBestDiscount() {
+        return promotionService.calculateBestDiscount(cart, null);
+    }
+}
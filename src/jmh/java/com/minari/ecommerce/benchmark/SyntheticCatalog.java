@@ -0,0 +1,111 @@
+package com.minari.ecommerce.benchmark;
+
+import com.minari.ecommerce.entity.CartItem;
+import com.minari.ecommerce.entity.Product;
+import com.minari.ecommerce.entity.ProductCategory;
+import com.minari.ecommerce.entity.Promotion;
+import com.minari.ecommerce.entity.ShoppingCart;
+import com.minari.ecommerce.repository.PromotionRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic in-memory products, carts and promotions for the pure-Java benchmarks
+ */
+final class SyntheticCatalog {
+
+    static final int CATEGORIES = 20;
+    static final int PRODUCTS = 500;
+
+    private final Random random;
+    private final List<ProductCategory> categories = new ArrayList<>();
+    private final List<Product> products = new ArrayList<>();
+
+    SyntheticCatalog(long seed) {
+        random = new Random(seed);
+        for (long id = 1; id <= CATEGORIES; id++) {
+            ProductCategory category = new ProductCategory();
+            category.setId(id);
+            category.setName("Category " + id);
+            categories.add(category);
+        }
+        for (long id = 1; id <= PRODUCTS; id++) {
+            Product product = new Product();
+            product.setId(id);
+            product.setName("Product " + id);
+            product.setSku("SKU-" + id);
+            product.setPrice(50_000.0 + random.nextInt(45) * 10_000);
+            product.setStockQuantity(1_000);
+            product.setCategory(categories.get(random.nextInt(CATEGORIES)));
+            products.add(product);
+        }
+    }
+
+    /**
+     * A cart with the given number of distinct lines, quantities 1-3
+     */
+    ShoppingCart cart(int lines) {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setId(1L);
+        List<CartItem> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            CartItem item = new CartItem(cart, products.get(i % PRODUCTS), 1 + random.nextInt(3));
+            item.setId((long) i + 1);
+            items.add(item);
+        }
+        cart.setItems(items);
+        return cart;
+    }
+
+    /**
+     * Active promotions: a mix of store-wide and category-limited, percentage and fixed amount
+     */
+    List<Promotion> promotions(int count) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Promotion> promotions = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            Promotion promo = new Promotion();
+            promo.setId(id);
+            promo.setName("Promo " + id);
+            promo.setPromoCode("BENCH" + id);
+            if (random.nextBoolean()) {
+                promo.setDiscountType(Promotion.DiscountType.PERCENTAGE);
+                promo.setDiscountValue(5.0 + random.nextInt(46));
+            } else {
+                promo.setDiscountType(Promotion.DiscountType.FIXED_AMOUNT);
+                promo.setDiscountValue(10_000.0 + random.nextInt(10) * 10_000);
+            }
+            promo.setMinPurchaseAmount((double) random.nextInt(6) * 100_000);
+            promo.setUsageLimit(random.nextInt(4) == 0 ? 1_000 : null);
+            promo.setUsedCount(0);
+            if (random.nextInt(5) < 3) {
+                promo.setApplicableCategories("[" + (1 + random.nextInt(CATEGORIES)) + "," + (1 + random.nextInt(CATEGORIES)) + "]");
+            }
+            promo.setStartDate(now.minusDays(1));
+            promo.setEndDate(now.plusDays(30));
+            promo.setIsActive(true);
+            promotions.add(promo);
+        }
+        return promotions;
+    }
+
+    /**
+     * Repository stub that serves a fixed list of active promotions, without a database or Mockito overhead
+     */
+    static PromotionRepository promotionRepository(List<Promotion> active) {
+        return (PromotionRepository) Proxy.newProxyInstance(PromotionRepository.class.getClassLoader(),
+                new Class<?>[] { PromotionRepository.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByIsActive" -> Boolean.TRUE.equals(args[0]) ? active : List.of();
+                    case "findAll" -> active;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "PromotionRepository(stub)";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
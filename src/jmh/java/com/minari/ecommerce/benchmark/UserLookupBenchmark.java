@@ -0,0 +1,109 @@
+package com.minari.ecommerce.benchmark;
+
+import com.minari.ecommerce.MinariApplication;
+import com.minari.ecommerce.config.CustomUserDetailsService;
+import com.minari.ecommerce.entity.Customer;
+import com.minari.ecommerce.entity.RegisteredCustomer;
+import com.minari.ecommerce.entity.User;
+import com.minari.ecommerce.repository.CustomerRepository;
+import com.minari.ecommerce.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User lookups that go to the database on every call (the login path and the
+ * repositories behind UserSnapshotCache), against an in-memory H2 database with the
+ * full Spring context. Compare runs before and after a change to the user mapping:
+ * with SINGLE_TABLE each lookup reads one table instead of joining the subtype tables.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserLookupBenchmark {
+
+    private static final int CUSTOMERS = 2_000;
+
+    private ConfigurableApplicationContext context;
+    private CustomUserDetailsService userDetailsService;
+    private UserRepository userRepository;
+    private CustomerRepository customerRepository;
+    private final List<String> emails = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // Passed as command-line arguments, which (unlike builder defaults) override application.properties
+        context = new SpringApplicationBuilder(MinariApplication.class)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:minari-bench-users;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--server.port=0",
+                        "--logging.level.root=WARN",
+                        "--logging.file.name=",
+                        "--app.mail.simulate=true",
+                        // CloudinaryConfig needs values; uploads are never exercised here
+                        "--CLOUDINARY_CLOUD_NAME=benchmark",
+                        "--CLOUDINARY_API_KEY=benchmark",
+                        "--CLOUDINARY_API_SECRET=benchmark");
+        userDetailsService = context.getBean(CustomUserDetailsService.class);
+        userRepository = context.getBean(UserRepository.class);
+        customerRepository = context.getBean(CustomerRepository.class);
+
+        List<User> customers = new ArrayList<>(CUSTOMERS);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            RegisteredCustomer customer = new RegisteredCustomer();
+            customer.setEmail("bench" + i + "@minari.com");
+            customer.setUsername("bench" + i);
+            customer.setPassword("{noop}bench");
+            customer.setFullName("Benchmark Customer " + i);
+            customer.setIsActive(true);
+            customers.add(customer);
+            emails.add(customer.getEmail());
+        }
+        userRepository.saveAll(customers);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    private String randomEmail() {
+        return emails.get(ThreadLocalRandom.current().nextInt(emails.size()));
+    }
+
+    /**
+     * What a login form submission costs (findByEmailOrUsername)
+     */
+    @Benchmark
+    public UserDetails login() {
+        return userDetailsService.loadUserByUsername(randomEmail());
+    }
+
+    /**
+     * Polymorphic lookup by email, as on a UserSnapshotCache miss
+     */
+    @Benchmark
+    public Optional<User> findUserByEmail() {
+        return userRepository.findByEmail(randomEmail());
+    }
+
+    @Benchmark
+    public Optional<Customer> findCustomerByEmail() {
+        return customerRepository.findByEmail(randomEmail());
+    }
+}
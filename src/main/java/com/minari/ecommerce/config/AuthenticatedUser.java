@@ -0,0 +1,39 @@
+package com.minari.ecommerce.config;
+
+import com.minari.ecommerce.entity.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal of a logged-in user. getUsername() is still the email, so principal.getName()
+ * keeps working everywhere; the user id, entity type and role ride along so handlers can
+ * identify the current user without a database lookup.
+ */
+public class AuthenticatedUser extends User {
+
+    private final Long userId;
+    private final String userType;
+    private final UserRole role;
+
+    public AuthenticatedUser(Long userId, String userType, UserRole role, String email, String password,
+            boolean enabled, Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, enabled, true, true, true, authorities);
+        this.userId = userId;
+        this.userType = userType;
+        this.role = role;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUserType() {
+        return userType;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+}
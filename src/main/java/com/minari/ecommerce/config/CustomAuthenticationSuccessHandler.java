@@ -1,5 +1,9 @@
 package com.minari.ecommerce.config;
 
+import com.minari.ecommerce.service.GuestCartService;
+import com.minari.ecommerce.service.ShoppingCartService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
@@ -9,9 +13,20 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Map;
 
 @Component
 public class CustomAuthenticationSuccessHandler implements AuthenticationSuccessHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomAuthenticationSuccessHandler.class);
+
+    private final ShoppingCartService cartService;
+    private final GuestCartService guestCartService;
+
+    public CustomAuthenticationSuccessHandler(ShoppingCartService cartService, GuestCartService guestCartService) {
+        this.cartService = cartService;
+        this.guestCartService = guestCartService;
+    }
     
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
@@ -25,8 +40,24 @@ public class CustomAuthenticationSuccessHandler implements AuthenticationSuccess
         if (isAdmin) {
             response.sendRedirect("/admin/dashboard");
         } else {
+            mergeGuestCart(request, response, authentication.getName());
             response.sendRedirect("/");
         }
     }
-}
 
+    /**
+     * Move the guest cart cookie into the customer's cart; a failed merge never blocks the login
+     */
+    private void mergeGuestCart(HttpServletRequest request, HttpServletResponse response, String email) {
+        Map<Long, Integer> guestCart = guestCartService.read(request);
+        if (guestCart.isEmpty()) {
+            return;
+        }
+        try {
+            cartService.mergeGuestCart(email, guestCart);
+            guestCartService.clear(request, response);
+        } catch (Exception e) {
+            log.warn("Could not merge guest cart for {}: {}", email, e.getMessage());
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.minari.ecommerce.entity.User;
 import com.minari.ecommerce.entity.Admin;
 import com.minari.ecommerce.entity.Customer;
 import com.minari.ecommerce.repository.UserRepository;
+import com.minari.ecommerce.service.UserSnapshotCache;
+import org.hibernate.Hibernate;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,9 +20,11 @@ import java.util.Collection;
 public class CustomUserDetailsService implements UserDetailsService {
     
     private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
     
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserSnapshotCache userSnapshotCache) {
         this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
     }
     
     @Override
@@ -33,13 +37,16 @@ public class CustomUserDetailsService implements UserDetailsService {
         System.out.println("   User class type: " + user.getClass().getSimpleName());
         System.out.println("   User role: " + user.getRole());
         
-        return new org.springframework.security.core.userdetails.User(
+        // The user was loaded anyway; the requests after login resolve it from the cache
+        userSnapshotCache.put(user);
+
+        return new AuthenticatedUser(
+                user.getId(),
+                Hibernate.getClass(user).getSimpleName(),
+                user.getRole(),
                 user.getEmail(),
                 user.getPassword(),
                 user.getIsActive(),
-                true,
-                true,
-                true,
                 getAuthorities(user)
         );
     }
@@ -0,0 +1,91 @@
+package com.minari.ecommerce.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the tables of entities added after the initial schema, so databases running with
+ * ddl-auto=validate (prod) get them too; with update/create Hibernate would otherwise create
+ * them itself.
+ *
+ * Runs before the EntityManagerFactory is built (see SchemaMigration). Each table is created
+ * with its indexes when it does not exist yet; existing tables are left alone. The DDL is
+ * written to run on both MySQL and H2 and must match the entity mapping.
+ */
+@Component
+public class EntityTableMigration extends SchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityTableMigration.class);
+
+    // table -> CREATE TABLE statement followed by its CREATE INDEX statements
+    private static final Map<String, List<String>> TABLES = new LinkedHashMap<>();
+
+    static {
+        TABLES.put("stock_reservations", List.of(
+                "CREATE TABLE stock_reservations (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                        "holder_key VARCHAR(255) NOT NULL, product_id BIGINT NOT NULL, quantity INT NOT NULL, " +
+                        "expires_at DATETIME(6) NOT NULL, created_at DATETIME(6))",
+                "CREATE INDEX idx_stock_reservation_holder ON stock_reservations (holder_key)",
+                "CREATE INDEX idx_stock_reservation_expires ON stock_reservations (expires_at)"));
+        TABLES.put("sales_rollups", List.of(
+                "CREATE TABLE sales_rollups (id BIGINT AUTO_INCREMENT PRIMARY KEY, bucket_date DATE NOT NULL, " +
+                        "bucket_hour INT NOT NULL, order_count BIGINT NOT NULL, revenue DOUBLE PRECISION NOT NULL, " +
+                        "discount_total DOUBLE PRECISION NOT NULL, " +
+                        "CONSTRAINT uk_sales_rollups_bucket UNIQUE (bucket_date, bucket_hour))"));
+        TABLES.put("product_sales_rollups", List.of(
+                "CREATE TABLE product_sales_rollups (id BIGINT AUTO_INCREMENT PRIMARY KEY, product_id BIGINT NOT NULL, " +
+                        "bucket_date DATE NOT NULL, quantity BIGINT NOT NULL, revenue DOUBLE PRECISION NOT NULL, " +
+                        "CONSTRAINT uk_product_sales_rollups_bucket UNIQUE (product_id, bucket_date))",
+                "CREATE INDEX idx_product_sales_rollups_date ON product_sales_rollups (bucket_date)"));
+        TABLES.put("customer_sales_rollups", List.of(
+                "CREATE TABLE customer_sales_rollups (id BIGINT AUTO_INCREMENT PRIMARY KEY, customer_id BIGINT NOT NULL, " +
+                        "bucket_date DATE NOT NULL, order_count BIGINT NOT NULL, revenue DOUBLE PRECISION NOT NULL, " +
+                        "CONSTRAINT uk_customer_sales_rollups_bucket UNIQUE (customer_id, bucket_date))",
+                "CREATE INDEX idx_customer_sales_rollups_date ON customer_sales_rollups (bucket_date)"));
+        TABLES.put("email_outbox", List.of(
+                "CREATE TABLE email_outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, recipient VARCHAR(255) NOT NULL, " +
+                        "sender VARCHAR(255) NOT NULL, subject VARCHAR(255) NOT NULL, body TEXT NOT NULL, " +
+                        "status VARCHAR(20) NOT NULL, attempts INT NOT NULL, next_attempt_at DATETIME(6) NOT NULL, " +
+                        "claim_token VARCHAR(36), claimed_at DATETIME(6), last_error VARCHAR(1000), " +
+                        "created_at DATETIME(6), sent_at DATETIME(6))",
+                "CREATE INDEX idx_email_outbox_due ON email_outbox (status, next_attempt_at)",
+                "CREATE INDEX idx_email_outbox_claim ON email_outbox (claim_token)"));
+        TABLES.put("promotion_redemptions", List.of(
+                "CREATE TABLE promotion_redemptions (id BIGINT AUTO_INCREMENT PRIMARY KEY, promotion_id BIGINT NOT NULL, " +
+                        "customer_id BIGINT, order_id BIGINT, redeemed_at DATETIME(6) NOT NULL)",
+                "CREATE INDEX idx_promotion_redemption_customer ON promotion_redemptions (promotion_id, customer_id)",
+                "CREATE INDEX idx_promotion_redemption_order ON promotion_redemptions (order_id)"));
+        TABLES.put("customer_search_terms", List.of(
+                "CREATE TABLE customer_search_terms (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, " +
+                        "term VARCHAR(100) NOT NULL, field VARCHAR(10) NOT NULL)",
+                "CREATE INDEX idx_customer_search_terms_term ON customer_search_terms (term, user_id)",
+                "CREATE INDEX idx_customer_search_terms_user ON customer_search_terms (user_id)"));
+        TABLES.put("idempotency_keys", List.of(
+                "CREATE TABLE idempotency_keys (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                        "request_key VARCHAR(100) NOT NULL, user_id BIGINT, status VARCHAR(12) NOT NULL, " +
+                        "result VARCHAR(255), created_at DATETIME(6) NOT NULL, expires_at DATETIME(6) NOT NULL, " +
+                        "CONSTRAINT uk_idempotency_keys_request_key UNIQUE (request_key))",
+                "CREATE INDEX idx_idempotency_keys_expires ON idempotency_keys (expires_at)"));
+    }
+
+    public EntityTableMigration(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        TABLES.forEach((table, statements) -> {
+            if (tableName(table) != null) {
+                return;
+            }
+            statements.forEach(jdbcTemplate::execute);
+            log.info("Created table {}", table);
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.minari.ecommerce.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Creates the pooled id sequences of the checkout entities on databases whose tables were
+ * created with IDENTITY ids, starting each one past the highest id already in its table.
+ *
+ * Hibernate's pooled optimizer hands out (value - allocationSize, value] for each sequence
+ * value it reads, so the first value must be MAX(id) + ALLOCATION_SIZE. MySQL has no
+ * sequences; there Hibernate emulates each one with a one-row table (next_val), which is
+ * created and seeded the same way.
+ *
+ * Runs before the EntityManagerFactory is built (see SchemaMigration). A table that does
+ * not exist yet (new database) or already has its sequence is left alone.
+ */
+@Component
+public class IdSequenceMigration extends SchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(IdSequenceMigration.class);
+
+    // Must match allocationSize of the @SequenceGenerator mappings
+    static final int ALLOCATION_SIZE = 50;
+
+    // table -> sequence
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+
+    static {
+        SEQUENCES.put("orders", "orders_seq");
+        SEQUENCES.put("order_items", "order_items_seq");
+        SEQUENCES.put("order_logs", "order_logs_seq");
+        SEQUENCES.put("payments", "payments_seq");
+        SEQUENCES.put("shipments", "shipments_seq");
+        SEQUENCES.put("shipment_logs", "shipment_logs_seq");
+        SEQUENCES.put("cart_items", "cart_items_seq");
+        SEQUENCES.put("addresses", "addresses_seq");
+    }
+
+    public IdSequenceMigration(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        boolean mysql = isMySql();
+
+        SEQUENCES.forEach((table, sequence) -> {
+            if (tableName(table) == null || sequenceExists(sequence, mysql)) {
+                return;
+            }
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            long start = maxId == null || maxId == 0 ? 1 : maxId + ALLOCATION_SIZE;
+            if (mysql) {
+                jdbcTemplate.execute("CREATE TABLE " + sequence + " (next_val BIGINT)");
+                jdbcTemplate.update("INSERT INTO " + sequence + " (next_val) VALUES (?)", start);
+            } else {
+                jdbcTemplate.execute("CREATE SEQUENCE " + sequence + " START WITH " + start
+                        + " INCREMENT BY " + ALLOCATION_SIZE);
+            }
+            log.info("Created id sequence {} for {} starting at {}", sequence, table, start);
+        });
+    }
+
+    private boolean sequenceExists(String sequence, boolean mysql) {
+        if (mysql) {
+            return tableName(sequence) != null;
+        }
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.sequences WHERE LOWER(sequence_name) = ?",
+                Integer.class, sequence);
+        return count != null && count > 0;
+    }
+}
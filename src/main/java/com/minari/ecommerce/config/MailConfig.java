@@ -1,5 +1,6 @@
 package com.minari.ecommerce.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -10,18 +11,42 @@ import java.util.Properties;
 @Configuration
 public class MailConfig {
 
+    @Value("${spring.mail.host:localhost}")
+    private String host;
+
+    @Value("${spring.mail.port:25}")
+    private int port;
+
+    @Value("${spring.mail.username:user}")
+    private String username;
+
+    @Value("${spring.mail.password:pass}")
+    private String password;
+
+    @Value("${spring.mail.properties.mail.smtp.auth:false}")
+    private String smtpAuth;
+
+    @Value("${spring.mail.properties.mail.smtp.starttls.enable:false}")
+    private String startTls;
+
+    @Value("${spring.mail.properties.mail.smtp.timeout:5000}")
+    private String timeout;
+
     @Bean
     public JavaMailSender javaMailSender() {
         JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
-        mailSender.setHost("localhost");
-        mailSender.setPort(25);
-        mailSender.setUsername("user");
-        mailSender.setPassword("pass");
+        mailSender.setHost(host);
+        mailSender.setPort(port);
+        mailSender.setUsername(username);
+        mailSender.setPassword(password);
 
         Properties props = mailSender.getJavaMailProperties();
         props.put("mail.transport.protocol", "smtp");
-        props.put("mail.smtp.auth", "false");
-        props.put("mail.smtp.starttls.enable", "false");
+        props.put("mail.smtp.auth", smtpAuth);
+        props.put("mail.smtp.starttls.enable", startTls);
+        props.put("mail.smtp.connectiontimeout", timeout);
+        props.put("mail.smtp.timeout", timeout);
+        props.put("mail.smtp.writetimeout", timeout);
         props.put("mail.debug", "false");
 
         return mailSender;
@@ -0,0 +1,142 @@
+package com.minari.ecommerce.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates the *_archive tables OrderArchiveService moves finished orders into, their lookup
+ * indexes and order_archive_totals.
+ *
+ * Each archive table is a column-for-column copy of its source (no foreign keys, lookup
+ * indexes only). Runs before the EntityManagerFactory is built (see SchemaMigration), so on
+ * a new database, whose order tables Hibernate has not created yet, the archive tables are
+ * only created on the next start. Existing archive tables are never altered.
+ */
+@Component
+public class OrderArchiveMigration extends SchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveMigration.class);
+
+    public static final String SUFFIX = "_archive";
+    public static final String TOTALS_TABLE = "order_archive_totals";
+
+    // Source tables in copy order (parents first)
+    public static final List<String> TABLES = List.of(
+            "orders", "order_items", "order_logs", "payments", "shipments", "shipment_logs");
+
+    // Lookup indexes of the archive tables: name -> (table, columns)
+    private static final Map<String, String[]> INDEXES = new LinkedHashMap<>();
+
+    static {
+        INDEXES.put("idx_orders_archive_number", new String[] { "orders_archive", "order_number" });
+        INDEXES.put("idx_orders_archive_user_date", new String[] { "orders_archive", "user_id, order_date" });
+        INDEXES.put("idx_order_items_archive_order", new String[] { "order_items_archive", "order_id" });
+        INDEXES.put("idx_order_logs_archive_order", new String[] { "order_logs_archive", "order_id" });
+        INDEXES.put("idx_payments_archive_order", new String[] { "payments_archive", "order_id" });
+        INDEXES.put("idx_shipments_archive_order", new String[] { "shipments_archive", "order_id" });
+        INDEXES.put("idx_shipment_logs_archive_shipment", new String[] { "shipment_logs_archive", "shipment_id" });
+    }
+
+    public OrderArchiveMigration(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            boolean mysql = isMySql();
+            for (String table : TABLES) {
+                if (tableName(table) == null) {
+                    log.info("Order archive: table {} does not exist yet, archive tables are created on the next start",
+                            table);
+                    return;
+                }
+            }
+            for (String table : TABLES) {
+                String archive = table + SUFFIX;
+                if (tableName(archive) != null) {
+                    continue;
+                }
+                jdbcTemplate.execute("CREATE TABLE " + archive + " AS SELECT * FROM " + table + " WHERE 1 = 0");
+                if (!mysql) {
+                    // H2 does not carry NOT NULL over to the copy of a generated id column
+                    jdbcTemplate.execute("ALTER TABLE " + archive + " ALTER COLUMN id SET NOT NULL");
+                }
+                jdbcTemplate.execute("ALTER TABLE " + archive + " ADD PRIMARY KEY (id)");
+                log.info("Order archive: created {}", archive);
+            }
+            INDEXES.forEach((name, index) -> {
+                if (!indexExists(tableName(index[0]), name)) {
+                    jdbcTemplate.execute("CREATE INDEX " + name + " ON " + index[0] + " (" + index[1] + ")");
+                }
+            });
+            if (tableName(TOTALS_TABLE) == null) {
+                jdbcTemplate.execute("CREATE TABLE " + TOTALS_TABLE + " (status VARCHAR(20) PRIMARY KEY, " +
+                        "order_count BIGINT NOT NULL, total_amount DOUBLE PRECISION NOT NULL)");
+            }
+        } catch (Exception e) {
+            // Archiving is optional; OrderArchiveService stays disabled when the tables are missing
+            log.error("Order archive: could not create the archive tables", e);
+        }
+    }
+
+    /**
+     * Column list to copy for each source table, or null when an archive table is missing or
+     * lacks a column of its source (e.g. one Hibernate added later). Call once the schema is
+     * final, i.e. after the EntityManagerFactory is built.
+     */
+    public Map<String, String> copyColumns() {
+        if (tableName(TOTALS_TABLE) == null) {
+            log.warn("Order archive: table {} does not exist, archiving disabled", TOTALS_TABLE);
+            return null;
+        }
+        Map<String, String> copyColumns = new HashMap<>();
+        for (String table : TABLES) {
+            String source = tableName(table);
+            String archive = tableName(table + SUFFIX);
+            if (source == null || archive == null) {
+                log.warn("Order archive: table {} does not exist, archiving disabled",
+                        source == null ? table : table + SUFFIX);
+                return null;
+            }
+            Set<String> sourceColumns = columnNames(source);
+            Set<String> archiveColumns = columnNames(archive);
+            if (!archiveColumns.containsAll(sourceColumns)) {
+                List<String> missing = new ArrayList<>(sourceColumns);
+                missing.removeAll(archiveColumns);
+                log.error("Order archive: {} lacks columns {} of {}, archiving disabled until they are added",
+                        table + SUFFIX, missing, table);
+                return null;
+            }
+            copyColumns.put(table, String.join(", ", sourceColumns));
+        }
+        return copyColumns;
+    }
+
+    /**
+     * Whether the table, given as returned by tableName(), has an index of that name
+     */
+    private boolean indexExists(String table, String index) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            try (ResultSet rs = con.getMetaData().getIndexInfo(con.getCatalog(), null, table, false, true)) {
+                while (rs.next()) {
+                    if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
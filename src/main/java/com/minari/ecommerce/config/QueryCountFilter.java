@@ -0,0 +1,99 @@
+package com.minari.ecommerce.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how many SQL statements each endpoint executes (see QueryCountInspector).
+ * Stats are kept per "METHOD /mapped/{pattern}" and served by AdminMetricsController;
+ * a request above app.query-count.warn-threshold is logged as a warning.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    @Value("${app.query-count.warn-threshold:30}")
+    private long warnThreshold;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.startsWith("/css/") || path.startsWith("/js/") || path.startsWith("/images/")
+                || path.startsWith("/uploads/") || path.startsWith("/h2-console");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCountInspector.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long queries = QueryCountInspector.count();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String endpoint = request.getMethod() + " " + (pattern != null ? pattern : "(unmapped)");
+            stats.computeIfAbsent(endpoint, k -> new EndpointStats()).record(queries);
+
+            if (queries > warnThreshold) {
+                log.warn("{} {} executed {} SQL statements", request.getMethod(), request.getRequestURI(), queries);
+            } else {
+                log.debug("{} {} executed {} SQL statements", request.getMethod(), request.getRequestURI(), queries);
+            }
+        }
+    }
+
+    /**
+     * Per-endpoint stats: requests, last, max and average statement count
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        stats.forEach((endpoint, s) -> snapshot.put(endpoint, s.toMap()));
+        return snapshot;
+    }
+
+    public void resetStats() {
+        stats.clear();
+    }
+
+    private static class EndpointStats {
+        private long requests;
+        private long totalQueries;
+        private long maxQueries;
+        private long lastQueries;
+
+        synchronized void record(long queries) {
+            requests++;
+            totalQueries += queries;
+            maxQueries = Math.max(maxQueries, queries);
+            lastQueries = queries;
+        }
+
+        synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new TreeMap<>();
+            map.put("requests", requests);
+            map.put("lastQueries", lastQueries);
+            map.put("maxQueries", maxQueries);
+            map.put("avgQueries", requests > 0 ? (double) totalQueries / requests : 0.0);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.minari.ecommerce.config;
+
+import com.minari.ecommerce.repository.OrderRepository;
+import com.minari.ecommerce.service.SalesRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills the sales rollups on startup when they are empty but orders exist.
+ * Start with --app.reports.rebuild-rollups=true to force a full rebuild.
+ */
+@Component
+public class SalesRollupInitializer implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupInitializer.class);
+
+    private final SalesRollupService salesRollupService;
+    private final OrderRepository orderRepository;
+
+    @Value("${app.reports.rebuild-rollups:false}")
+    private boolean forceRebuild;
+
+    public SalesRollupInitializer(SalesRollupService salesRollupService, OrderRepository orderRepository) {
+        this.salesRollupService = salesRollupService;
+        this.orderRepository = orderRepository;
+    }
+
+    @Override
+    public void run(String... args) {
+        try {
+            if (forceRebuild || (salesRollupService.isEmpty() && orderRepository.count() > 0)) {
+                log.info("Sales rollups: {}", salesRollupService.rebuild());
+            }
+        } catch (Exception e) {
+            log.error("Could not rebuild sales rollups", e);
+        }
+    }
+}
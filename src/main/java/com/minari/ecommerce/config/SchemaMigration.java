@@ -0,0 +1,76 @@
+package com.minari.ecommerce.config;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Base of the JDBC schema migrations (UserTableMigration, IdSequenceMigration,
+ * OrderArchiveMigration, EntityTableMigration).
+ *
+ * Subclasses do their work in afterPropertiesSet(). Every SchemaMigration bean is created
+ * before the EntityManagerFactory, so Hibernate (update or validate) already sees the
+ * migrated schema.
+ */
+public abstract class SchemaMigration implements InitializingBean {
+
+    /**
+     * Makes the EntityManagerFactory wait for all migrations
+     */
+    @Component
+    static class RunBeforeJpa extends EntityManagerFactoryDependsOnPostProcessor {
+        RunBeforeJpa() {
+            super(SchemaMigration.class);
+        }
+    }
+
+    protected final JdbcTemplate jdbcTemplate;
+
+    protected SchemaMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    protected boolean isMySql() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                con.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")));
+    }
+
+    /**
+     * The table name as the database stores it (H2 upper-cases, PostgreSQL lower-cases), or null
+     */
+    protected String tableName(String table) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            for (String candidate : new String[] { table, table.toUpperCase(), table.toLowerCase() }) {
+                try (ResultSet rs = meta.getTables(con.getCatalog(), null, candidate, new String[] { "TABLE" })) {
+                    if (rs.next()) {
+                        return rs.getString("TABLE_NAME");
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Lower-cased column names of a table, given as returned by tableName()
+     */
+    protected Set<String> columnNames(String table) {
+        return jdbcTemplate.execute((ConnectionCallback<Set<String>>) con -> {
+            Set<String> columns = new LinkedHashSet<>();
+            try (ResultSet rs = con.getMetaData().getColumns(con.getCatalog(), null, table, null)) {
+                while (rs.next()) {
+                    columns.add(rs.getString("COLUMN_NAME").toLowerCase());
+                }
+            }
+            return columns;
+        });
+    }
+}
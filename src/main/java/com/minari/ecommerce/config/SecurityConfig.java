@@ -43,6 +43,10 @@ public class SecurityConfig {
                 http
                                 .authenticationProvider(authenticationProvider())
                                 .authorizeHttpRequests(authz -> authz
+                                                // Before the /api/** permitAll below; the first matching rule wins
+                                                .requestMatchers("/api/admin/**", "/api/reports/**",
+                                                                "/api/orders/search")
+                                                .hasRole("ADMIN")
                                                 .requestMatchers("/", "/home", "/css/**", "/js/**", "/images/**",
                                                                 "/uploads/**",
                                                                 "/register", "/login", "/products", "/products/**",
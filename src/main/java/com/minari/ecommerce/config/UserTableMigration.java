@@ -0,0 +1,191 @@
+package com.minari.ecommerce.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves users from the old JOINED tables (users + customers + registered_customers / admins)
+ * into the single users table used by the SINGLE_TABLE mapping.
+ *
+ * Runs before the EntityManagerFactory is built (see SchemaMigration). Steps, each safe to
+ * repeat if a run is interrupted:
+ * 1. add the subclass columns to users where missing
+ * 2. copy the subclass columns and set the user_type discriminator
+ * 3. drop foreign keys to and from the old tables
+ * 4. point the columns that referenced customers / registered_customers at users
+ * 5. rename the old tables to *_legacy, which also marks the migration as done
+ * A database without a customers table (new, or already migrated) is left alone.
+ */
+@Component
+public class UserTableMigration extends SchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(UserTableMigration.class);
+
+    private static final List<String> LEGACY_TABLES = List.of("registered_customers", "admins", "customers");
+
+    // Subclass columns now on users
+    private static final Map<String, String> USER_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        USER_COLUMNS.put("user_type", "VARCHAR(20)");
+        USER_COLUMNS.put("loyalty_points", "INTEGER DEFAULT 0");
+        USER_COLUMNS.put("newsletter_subscribed", "BOOLEAN DEFAULT FALSE");
+        USER_COLUMNS.put("member_since", "TIMESTAMP");
+        USER_COLUMNS.put("birth_date", "DATE");
+        USER_COLUMNS.put("is_logged_in", "BOOLEAN DEFAULT FALSE");
+        USER_COLUMNS.put("wishlist_count", "INTEGER DEFAULT 0");
+        USER_COLUMNS.put("total_orders", "INTEGER DEFAULT 0");
+        USER_COLUMNS.put("total_spent", "DOUBLE PRECISION DEFAULT 0");
+        USER_COLUMNS.put("admin_level", "VARCHAR(20) DEFAULT 'REGULAR'");
+        USER_COLUMNS.put("department", "VARCHAR(255)");
+        USER_COLUMNS.put("permissions", "TEXT");
+    }
+
+    // Columns that referenced customers or registered_customers; their ids are user ids
+    private static final Map<String, String> USER_REFERENCES = new LinkedHashMap<>();
+
+    static {
+        USER_REFERENCES.put("orders", "customer_id");
+        USER_REFERENCES.put("shopping_carts", "customer_id");
+        USER_REFERENCES.put("addresses", "customer_id");
+        USER_REFERENCES.put("product_reviews", "customer_id");
+        USER_REFERENCES.put("wishlist_items", "customer_id");
+    }
+
+    private static final String COPY_CUSTOMERS_SQL = "UPDATE users SET " +
+            "loyalty_points = (SELECT c.loyalty_points FROM customers c WHERE c.id = users.id), " +
+            "newsletter_subscribed = (SELECT c.newsletter_subscribed FROM customers c WHERE c.id = users.id), " +
+            "member_since = (SELECT c.member_since FROM customers c WHERE c.id = users.id) " +
+            "WHERE id IN (SELECT id FROM customers)";
+
+    private static final String COPY_REGISTERED_SQL = "UPDATE users SET user_type = 'CUSTOMER', " +
+            "birth_date = (SELECT r.birth_date FROM registered_customers r WHERE r.user_id = users.id), " +
+            "is_logged_in = (SELECT r.is_logged_in FROM registered_customers r WHERE r.user_id = users.id), " +
+            "wishlist_count = (SELECT r.wishlist_count FROM registered_customers r WHERE r.user_id = users.id), " +
+            "total_orders = (SELECT r.total_orders FROM registered_customers r WHERE r.user_id = users.id), " +
+            "total_spent = (SELECT r.total_spent FROM registered_customers r WHERE r.user_id = users.id) " +
+            "WHERE id IN (SELECT user_id FROM registered_customers)";
+
+    private static final String COPY_ADMINS_SQL = "UPDATE users SET user_type = 'ADMIN', " +
+            "admin_level = (SELECT a.admin_level FROM admins a WHERE a.user_id = users.id), " +
+            "department = (SELECT a.department FROM admins a WHERE a.user_id = users.id), " +
+            "permissions = (SELECT a.permissions FROM admins a WHERE a.user_id = users.id) " +
+            "WHERE id IN (SELECT user_id FROM admins)";
+
+    public UserTableMigration(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (tableName("users") == null || tableName("customers") == null) {
+            return;
+        }
+        log.info("Migrating users from JOINED tables to the single users table");
+
+        Set<String> existing = columnNames(tableName("users"));
+        USER_COLUMNS.forEach((column, definition) -> {
+            if (!existing.contains(column)) {
+                jdbcTemplate.execute("ALTER TABLE users ADD COLUMN " + column + " " + definition);
+            }
+        });
+
+        int customers = jdbcTemplate.update(COPY_CUSTOMERS_SQL);
+        int registered = tableName("registered_customers") != null ? jdbcTemplate.update(COPY_REGISTERED_SQL) : 0;
+        int admins = tableName("admins") != null ? jdbcTemplate.update(COPY_ADMINS_SQL) : 0;
+        log.info("Copied {} customers ({} registered) and {} admins into users", customers, registered, admins);
+
+        Integer untyped = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE user_type IS NULL", Integer.class);
+        if (untyped != null && untyped > 0) {
+            log.warn("{} users have no subtype row and no user_type; they cannot be loaded until fixed", untyped);
+        }
+
+        for (String table : LEGACY_TABLES) {
+            String actual = tableName(table);
+            if (actual != null) {
+                dropForeignKeys(actual);
+            }
+        }
+        USER_REFERENCES.forEach(this::referenceUsers);
+        for (String table : LEGACY_TABLES) {
+            if (tableName(table) != null) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " RENAME TO " + table + "_legacy");
+            }
+        }
+        log.info("User table migration done; old tables kept as *_legacy");
+    }
+
+    /**
+     * Drop every foreign key pointing at or out of the table
+     */
+    private void dropForeignKeys(String table) {
+        boolean mysql = isMySql();
+        // {table, constraint}
+        Set<List<String>> keys = jdbcTemplate.execute((ConnectionCallback<Set<List<String>>>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            Set<List<String>> found = new LinkedHashSet<>();
+            try (ResultSet rs = meta.getExportedKeys(con.getCatalog(), null, table)) {
+                collectKeys(rs, found);
+            }
+            try (ResultSet rs = meta.getImportedKeys(con.getCatalog(), null, table)) {
+                collectKeys(rs, found);
+            }
+            return found;
+        });
+        for (List<String> key : keys) {
+            jdbcTemplate.execute("ALTER TABLE " + key.get(0) + (mysql ? " DROP FOREIGN KEY " : " DROP CONSTRAINT ")
+                    + key.get(1));
+        }
+    }
+
+    /**
+     * Add a foreign key from table.column to users(id) unless the column already has one
+     */
+    private void referenceUsers(String table, String column) {
+        String actual = tableName(table);
+        if (actual == null || !columnNames(actual).contains(column)) {
+            return;
+        }
+        Boolean hasKey = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            try (ResultSet rs = con.getMetaData().getImportedKeys(con.getCatalog(), null, actual)) {
+                while (rs.next()) {
+                    if (column.equalsIgnoreCase(rs.getString("FKCOLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        if (Boolean.TRUE.equals(hasKey)) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT fk_" + table + "_" + column + "_users " +
+                    "FOREIGN KEY (" + column + ") REFERENCES users (id)");
+        } catch (Exception e) {
+            // Rows pointing at missing users; keep migrating and let the admin clean them up
+            log.error("Could not add foreign key {}.{} -> users(id)", table, column, e);
+        }
+    }
+
+    private static void collectKeys(ResultSet rs, Set<List<String>> found) throws SQLException {
+        while (rs.next()) {
+            String name = rs.getString("FK_NAME");
+            if (name != null) {
+                found.add(List.of(rs.getString("FKTABLE_NAME"), name));
+            }
+        }
+    }
+}
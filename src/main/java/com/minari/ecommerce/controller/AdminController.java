@@ -90,7 +90,6 @@ public class AdminController {
 
     @GetMapping("/promotions")
     public String promotionManagement(@RequestParam(required = false) String keyword, Model model) {
-        promotionService.updateExpiredPromotions();
         if (keyword != null && !keyword.trim().isEmpty()) {
             model.addAttribute("promotions", promotionRepository.findByPromoCodeContainingIgnoreCase(keyword));
             model.addAttribute("keyword", keyword);
@@ -155,7 +154,7 @@ public class AdminController {
                 promo.setExcludedProducts(productIds.toString());
             }
 
-            promotionRepository.save(promo);
+            promotionService.savePromotion(promo);
             redirectAttributes.addFlashAttribute("success", "Promotion created successfully!");
         } catch (IllegalArgumentException e) {
             redirectAttributes.addFlashAttribute("error", "Invalid discount type: " + discountType);
@@ -235,7 +234,7 @@ public class AdminController {
                     promo.setExcludedProducts(null);
                 }
 
-                promotionRepository.save(promo);
+                promotionService.savePromotion(promo);
                 redirectAttributes.addFlashAttribute("success", "Promotion updated successfully!");
             } else {
                 redirectAttributes.addFlashAttribute("error", "Promotion not found.");
@@ -249,7 +248,7 @@ public class AdminController {
     @PostMapping("/promotions/delete/{id}")
     public String deletePromotion(@PathVariable Long id, RedirectAttributes redirectAttributes) {
         try {
-            promotionRepository.deleteById(id);
+            promotionService.deletePromotion(id);
             redirectAttributes.addFlashAttribute("success", "Promotion deleted successfully!");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Error deleting promotion: " + e.getMessage());
@@ -513,15 +512,22 @@ public class AdminController {
     }
 
     @GetMapping("/orders")
-    public String orderManagement(@RequestParam(required = false) String keyword, Model model) {
-        List<OrderDTO> orders;
+    public String orderManagement(@RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            Model model) {
+        org.springframework.data.domain.PageRequest pageable =
+                org.springframework.data.domain.PageRequest.of(Math.max(page, 0), 20);
+        org.springframework.data.domain.Page<OrderDTO> orderPage;
         if (keyword != null && !keyword.trim().isEmpty()) {
-            orders = orderService.searchOrders(keyword);
+            orderPage = orderService.searchOrders(keyword, pageable);
             model.addAttribute("keyword", keyword);
         } else {
-            orders = orderService.getAllOrders("", "");
+            orderPage = orderService.getAllOrders(status, null, null, null, pageable);
+            model.addAttribute("status", status);
         }
-        model.addAttribute("orders", orders);
+        model.addAttribute("orderPage", orderPage);
+        model.addAttribute("orders", orderPage.getContent());
         return "admin/orders";
     }
 
@@ -539,9 +545,10 @@ public class AdminController {
     public String updateOrderStatus(@PathVariable Long id,
             @RequestParam String status,
             @RequestParam(required = false) String trackingNumber,
+            java.security.Principal principal,
             RedirectAttributes redirectAttributes) {
         try {
-            orderService.updateOrderDetails(id, status, trackingNumber);
+            orderService.updateOrderDetails(id, status, trackingNumber, principal != null ? principal.getName() : null);
             redirectAttributes.addFlashAttribute("success", "Order status updated successfully!");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Error updating order status: " + e.getMessage());
@@ -0,0 +1,75 @@
+package com.minari.ecommerce.controller;
+
+import com.minari.ecommerce.config.QueryCountFilter;
+import com.minari.ecommerce.service.CatalogCache;
+import com.minari.ecommerce.service.EmailOutboxDispatcher;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Runtime metrics for admins
+ *
+ * Base URL: /api/admin/metrics
+ */
+@RestController
+@RequestMapping("/api/admin/metrics")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminMetricsController {
+
+    private final QueryCountFilter queryCountFilter;
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
+    private final CatalogCache catalogCache;
+
+    public AdminMetricsController(QueryCountFilter queryCountFilter, EmailOutboxDispatcher emailOutboxDispatcher,
+            CatalogCache catalogCache) {
+        this.queryCountFilter = queryCountFilter;
+        this.emailOutboxDispatcher = emailOutboxDispatcher;
+        this.catalogCache = catalogCache;
+    }
+
+    /**
+     * GET /api/admin/metrics/queries
+     * SQL statements executed per endpoint
+     */
+    @GetMapping("/queries")
+    public ResponseEntity<Map<String, Object>> getQueryStats() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", queryCountFilter.getStats()));
+    }
+
+    /**
+     * DELETE /api/admin/metrics/queries
+     * Clear the query stats, e.g. before measuring one page
+     */
+    @DeleteMapping("/queries")
+    public ResponseEntity<Map<String, Object>> resetQueryStats() {
+        queryCountFilter.resetStats();
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+
+    /**
+     * GET /api/admin/metrics/email
+     * Email outbox queue depth, dead letters and throughput
+     */
+    @GetMapping("/email")
+    public ResponseEntity<Map<String, Object>> getEmailMetrics() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", emailOutboxDispatcher.getMetrics()));
+    }
+
+    /**
+     * GET /api/admin/metrics/catalog-cache
+     * Catalog cache size, hits, misses, evictions and invalidations
+     */
+    @GetMapping("/catalog-cache")
+    public ResponseEntity<Map<String, Object>> getCatalogCacheStats() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", catalogCache.getStats()));
+    }
+}
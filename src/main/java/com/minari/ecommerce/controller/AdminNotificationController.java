@@ -1,54 +1,32 @@
 package com.minari.ecommerce.controller;
 
-import com.minari.ecommerce.entity.Order;
-import com.minari.ecommerce.repository.OrderRepository;
+import com.minari.ecommerce.service.PendingOrderFeedService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin/notifications")
 public class AdminNotificationController {
 
-    private final OrderRepository orderRepository;
+    private final PendingOrderFeedService pendingOrderFeedService;
 
-    public AdminNotificationController(OrderRepository orderRepository) {
-        this.orderRepository = orderRepository;
+    public AdminNotificationController(PendingOrderFeedService pendingOrderFeedService) {
+        this.pendingOrderFeedService = pendingOrderFeedService;
     }
 
     /**
-     * Get pending order notifications (orders that are in PENDING status)
+     * Get pending order notifications (most recent PENDING orders, newest first)
      */
     @GetMapping("/orders")
     public ResponseEntity<Map<String, Object>> getPendingOrders() {
-        // Get all pending orders
-        List<Order> pendingOrders = orderRepository.findAll().stream()
-                .filter(order -> order.getStatus() == com.minari.ecommerce.entity.OrderStatus.PENDING)
-                .sorted((a, b) -> b.getOrderDate().compareTo(a.getOrderDate())) // Most recent first
-                .limit(10) // Limit to 10 most recent
-                .collect(Collectors.toList());
-
-        // Convert to notification format
-        List<Map<String, Object>> notifications = pendingOrders.stream()
-                .map(order -> {
-                    Map<String, Object> notification = new HashMap<>();
-                    notification.put("id", order.getId());
-                    notification.put("orderNumber", order.getOrderNumber());
-                    notification.put("customerName", order.getCustomer() != null ? 
-                        order.getCustomer().getFullName() : 
-                        (order.getUser() != null ? order.getUser().getFullName() : "Guest"));
-                    notification.put("totalAmount", order.getTotalAmount());
-                    notification.put("orderDate", order.getOrderDate().toString());
-                    notification.put("status", order.getStatus().toString());
-                    return notification;
-                })
-                .collect(Collectors.toList());
-
         Map<String, Object> response = new HashMap<>();
-        response.put("count", notifications.size());
-        response.put("notifications", notifications);
+        response.put("count", pendingOrderFeedService.getPendingCount());
+        response.put("cursor", pendingOrderFeedService.getCursor());
+        response.put("notifications", pendingOrderFeedService.getRecentPending());
 
         return ResponseEntity.ok(response);
     }
@@ -58,13 +36,26 @@ public class AdminNotificationController {
      */
     @GetMapping("/count")
     public ResponseEntity<Map<String, Object>> getNotificationCount() {
-        long count = orderRepository.findAll().stream()
-                .filter(order -> order.getStatus() == com.minari.ecommerce.entity.OrderStatus.PENDING)
-                .count();
-
         Map<String, Object> response = new HashMap<>();
-        response.put("count", count);
+        response.put("count", pendingOrderFeedService.getPendingCount());
+        response.put("cursor", pendingOrderFeedService.getCursor());
 
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Get pending-order events after a cursor (for polling clients)
+     */
+    @GetMapping("/since")
+    public ResponseEntity<Map<String, Object>> getEventsSince(@RequestParam(defaultValue = "0") long cursor) {
+        return ResponseEntity.ok(pendingOrderFeedService.getEventsSince(cursor));
+    }
+
+    /**
+     * Server-sent events: a "pending" event with count and recent orders on every change
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return pendingOrderFeedService.subscribe();
+    }
 }
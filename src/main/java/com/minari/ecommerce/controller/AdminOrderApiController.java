@@ -0,0 +1,56 @@
+package com.minari.ecommerce.controller;
+
+import com.minari.ecommerce.dto.BulkOrderStatusRequest;
+import com.minari.ecommerce.service.OrderArchiveService;
+import com.minari.ecommerce.service.OrderStatusTransitionService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Order tools for admins
+ *
+ * Base URL: /api/admin/orders
+ */
+@RestController
+@RequestMapping("/api/admin/orders")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminOrderApiController {
+
+    private final OrderStatusTransitionService orderStatusTransitionService;
+    private final OrderArchiveService orderArchiveService;
+
+    public AdminOrderApiController(OrderStatusTransitionService orderStatusTransitionService,
+            OrderArchiveService orderArchiveService) {
+        this.orderStatusTransitionService = orderStatusTransitionService;
+        this.orderArchiveService = orderArchiveService;
+    }
+
+    /**
+     * POST /api/admin/orders/bulk-status
+     * Move many orders (by id and/or order number) to one status; returns what was changed and what was skipped
+     */
+    @PostMapping("/bulk-status")
+    public ResponseEntity<Map<String, Object>> bulkStatus(@Valid @RequestBody BulkOrderStatusRequest request,
+            Principal principal) {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", orderStatusTransitionService.transition(request, principal != null ? principal.getName() : null)));
+    }
+
+    /**
+     * POST /api/admin/orders/archive
+     * Archive due orders now instead of waiting for the nightly run; call again while "complete" is false
+     */
+    @PostMapping("/archive")
+    public ResponseEntity<Map<String, Object>> archive() {
+        Map<String, Object> result = orderArchiveService.archive();
+        return ResponseEntity.ok(Map.of(
+                "success", !result.containsKey("error"),
+                "data", result));
+    }
+}
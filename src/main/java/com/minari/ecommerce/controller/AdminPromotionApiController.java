@@ -0,0 +1,38 @@
+package com.minari.ecommerce.controller;
+
+import com.minari.ecommerce.dto.PromotionSimulationRequest;
+import com.minari.ecommerce.service.PromotionSimulationService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Promotion tools for admins
+ *
+ * Base URL: /api/admin/promotions
+ */
+@RestController
+@RequestMapping("/api/admin/promotions")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminPromotionApiController {
+
+    private final PromotionSimulationService promotionSimulationService;
+
+    public AdminPromotionApiController(PromotionSimulationService promotionSimulationService) {
+        this.promotionSimulationService = promotionSimulationService;
+    }
+
+    /**
+     * POST /api/admin/promotions/simulate
+     * What a draft promotion would have cost over the last `days` (default 90) of orders
+     */
+    @PostMapping("/simulate")
+    public ResponseEntity<Map<String, Object>> simulate(@Valid @RequestBody PromotionSimulationRequest request) {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", promotionSimulationService.simulate(request)));
+    }
+}
@@ -1,11 +1,12 @@
 package com.minari.ecommerce.controller;
 
-import com.minari.ecommerce.dto.CartSessionItem;
 import com.minari.ecommerce.entity.Address;
 import com.minari.ecommerce.entity.RegisteredCustomer;
 import com.minari.ecommerce.repository.UserRepository;
+import com.minari.ecommerce.service.GuestCartService;
 import com.minari.ecommerce.service.ShoppingCartService;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
@@ -13,7 +14,7 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
-import java.util.List;
+import java.util.Map;
 
 @Controller
 public class AuthController {
@@ -21,14 +22,16 @@ public class AuthController {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final ShoppingCartService cartService;
-    private static final String GUEST_CART_SESSION_KEY = "guestCart";
+    private final GuestCartService guestCartService;
 
     public AuthController(UserRepository userRepository,
             PasswordEncoder passwordEncoder,
-            ShoppingCartService cartService) {
+            ShoppingCartService cartService,
+            GuestCartService guestCartService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.cartService = cartService;
+        this.guestCartService = guestCartService;
     }
 
     @GetMapping("/login")
@@ -56,7 +59,8 @@ public class AuthController {
     public String register(@Valid @ModelAttribute("customer") RegisteredCustomer customer,
             BindingResult bindingResult,
             @RequestParam String confirmPassword,
-            HttpSession session,
+            HttpServletRequest request,
+            HttpServletResponse response,
             RedirectAttributes redirectAttributes) {
 
         // Validation
@@ -101,13 +105,11 @@ public class AuthController {
             userRepository.save(customer);
 
             // Merge guest cart items to user cart
-            List<CartSessionItem> guestCart = (List<CartSessionItem>) session.getAttribute(GUEST_CART_SESSION_KEY);
-            if (guestCart != null && !guestCart.isEmpty()) {
-                for (CartSessionItem item : guestCart) {
-                    cartService.addToCart(customer.getEmail(), item.getProductId(), item.getQuantity());
-                }
-                // Clear guest cart from session
-                session.removeAttribute(GUEST_CART_SESSION_KEY);
+            Map<Long, Integer> guestCart = guestCartService.read(request);
+            if (!guestCart.isEmpty()) {
+                cartService.mergeGuestCart(customer.getEmail(), guestCart);
+                // Clear guest cart cookie
+                guestCartService.clear(request, response);
             }
 
             redirectAttributes.addFlashAttribute("success", "Registration successful! Please login.");
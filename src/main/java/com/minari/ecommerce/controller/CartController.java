@@ -2,32 +2,31 @@ package com.minari.ecommerce.controller;
 
 import com.minari.ecommerce.dto.CartSessionItem;
 import com.minari.ecommerce.entity.Product;
+import com.minari.ecommerce.service.GuestCartService;
 import com.minari.ecommerce.service.ShoppingCartService;
-import com.minari.ecommerce.service.ProductService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 @Controller
 @RequestMapping("/cart")
 public class CartController {
 
     private final ShoppingCartService cartService;
-    private final ProductService productService;
-    private static final String GUEST_CART_SESSION_KEY = "guestCart";
+    private final GuestCartService guestCartService;
 
-    public CartController(ShoppingCartService cartService, ProductService productService) {
+    public CartController(ShoppingCartService cartService, GuestCartService guestCartService) {
         this.cartService = cartService;
-        this.productService = productService;
+        this.guestCartService = guestCartService;
     }
 
     @GetMapping
-    public String viewCart(Model model, Principal principal, HttpSession session) {
+    public String viewCart(Model model, Principal principal, HttpServletRequest request) {
         List<CartSessionItem> displayItems = new ArrayList<>();
 
         if (principal != null) {
@@ -48,11 +47,8 @@ public class CartController {
             }
             model.addAttribute("isGuest", false);
         } else {
-            // Guest user - use session cart
-            List<CartSessionItem> guestCart = (List<CartSessionItem>) session.getAttribute(GUEST_CART_SESSION_KEY);
-            if (guestCart != null) {
-                displayItems.addAll(guestCart);
-            }
+            // Guest user - cart cookie, priced from the catalog cache
+            displayItems.addAll(guestCartService.toItems(guestCartService.read(request)));
             model.addAttribute("isGuest", true);
         }
 
@@ -64,44 +60,17 @@ public class CartController {
     public String addToCart(@RequestParam Long productId,
             @RequestParam(defaultValue = "1") int quantity,
             Principal principal,
-            HttpSession session) {
+            HttpServletRequest request,
+            HttpServletResponse response) {
         if (principal != null) {
             // Authenticated user - use database cart
             cartService.addToCart(principal.getName(), productId, quantity);
         } else {
-            // Guest user - use session cart
-            Optional<Product> product = productService.getProductById(productId);
-            if (product.isPresent()) {
-                Product p = product.get();
-                CartSessionItem item = new CartSessionItem(
-                        p.getId(),
-                        p.getName(),
-                        p.getPrice(),
-                        "One Size", // Simplified - no variant selection
-                        "Default", // Simplified - no color selection
-                        quantity,
-                        p.getImageUrl());
-
-                // Add to session cart
-                List<CartSessionItem> guestCart = (List<CartSessionItem>) session.getAttribute(GUEST_CART_SESSION_KEY);
-                if (guestCart == null) {
-                    guestCart = new ArrayList<>();
-                    session.setAttribute(GUEST_CART_SESSION_KEY, guestCart);
-                }
-
-                // Check if item already in cart
-                boolean found = false;
-                for (CartSessionItem cartItem : guestCart) {
-                    if (cartItem.getProductId().equals(productId)) {
-                        cartItem.setQuantity(cartItem.getQuantity() + quantity);
-                        found = true;
-                        break;
-                    }
-                }
-
-                if (!found) {
-                    guestCart.add(item);
-                }
+            // Guest user - use cart cookie
+            try {
+                guestCartService.add(request, response, productId, quantity);
+            } catch (RuntimeException e) {
+                // Unknown product or full cart: show the cart as it is
             }
         }
         return "redirect:/cart";
@@ -113,7 +82,8 @@ public class CartController {
             @RequestParam Long productId,
             @RequestParam(defaultValue = "1") int quantity,
             Principal principal,
-            HttpSession session) {
+            HttpServletRequest request,
+            HttpServletResponse servletResponse) {
         
         java.util.Map<String, Object> response = new java.util.HashMap<>();
         int cartCount = 0;
@@ -122,42 +92,10 @@ public class CartController {
             if (principal != null) {
                 // Authenticated user
                 cartService.addToCart(principal.getName(), productId, quantity);
-                com.minari.ecommerce.entity.ShoppingCart userCart = cartService.getCartForUser(principal.getName());
-                cartCount = userCart != null && userCart.getItems() != null ? userCart.getItems().size() : 0;
+                cartCount = cartService.getCartItemCount(principal.getName());
             } else {
                 // Guest user
-                Optional<Product> product = productService.getProductById(productId);
-                if (product.isPresent()) {
-                    Product p = product.get();
-                    CartSessionItem item = new CartSessionItem(
-                            p.getId(),
-                            p.getName(),
-                            p.getPrice(),
-                            "One Size", 
-                            "Default", 
-                            quantity,
-                            p.getImageUrl());
-
-                    List<CartSessionItem> guestCart = (List<CartSessionItem>) session.getAttribute(GUEST_CART_SESSION_KEY);
-                    if (guestCart == null) {
-                        guestCart = new ArrayList<>();
-                        session.setAttribute(GUEST_CART_SESSION_KEY, guestCart);
-                    }
-
-                    boolean found = false;
-                    for (CartSessionItem cartItem : guestCart) {
-                        if (cartItem.getProductId().equals(productId)) {
-                            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-                            found = true;
-                            break;
-                        }
-                    }
-
-                    if (!found) {
-                        guestCart.add(item);
-                    }
-                    cartCount = guestCart.size();
-                }
+                cartCount = guestCartService.add(request, servletResponse, productId, quantity).size();
             }
             
             response.put("success", true);
@@ -175,16 +113,14 @@ public class CartController {
     @PostMapping("/remove")
     public String removeFromCart(@RequestParam Long productId,
             Principal principal,
-            HttpSession session) {
+            HttpServletRequest request,
+            HttpServletResponse response) {
         if (principal != null) {
             // Authenticated user
             cartService.removeFromCart(principal.getName(), productId);
         } else {
-            // Guest user - remove from session cart
-            List<CartSessionItem> guestCart = (List<CartSessionItem>) session.getAttribute(GUEST_CART_SESSION_KEY);
-            if (guestCart != null) {
-                guestCart.removeIf(item -> item.getProductId().equals(productId));
-            }
+            // Guest user - remove from cart cookie
+            guestCartService.remove(request, response, productId);
         }
         return "redirect:/cart";
     }
@@ -195,7 +131,8 @@ public class CartController {
             @RequestParam Long productId,
             @RequestParam int quantity,
             Principal principal,
-            HttpSession session) {
+            HttpServletRequest request,
+            HttpServletResponse servletResponse) {
 
         java.util.Map<String, Object> response = new java.util.HashMap<>();
 
@@ -205,17 +142,7 @@ public class CartController {
                 cartService.updateCartItemQuantity(principal.getName(), productId, quantity);
             } else {
                 // Guest user
-                List<CartSessionItem> guestCart = (List<CartSessionItem>) session.getAttribute(GUEST_CART_SESSION_KEY);
-                if (guestCart != null) {
-                    if (quantity <= 0) {
-                        guestCart.removeIf(item -> item.getProductId().equals(productId));
-                    } else {
-                        guestCart.stream()
-                                .filter(item -> item.getProductId().equals(productId))
-                                .findFirst()
-                                .ifPresent(item -> item.setQuantity(quantity));
-                    }
-                }
+                guestCartService.update(request, servletResponse, productId, quantity);
             }
 
             response.put("success", true);
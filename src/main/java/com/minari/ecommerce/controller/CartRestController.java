@@ -1,53 +1,48 @@
 package com.minari.ecommerce.controller;
 
-import com.minari.ecommerce.dto.CartSessionItem;
-import com.minari.ecommerce.entity.Product;
-import com.minari.ecommerce.service.ProductService;
+import com.minari.ecommerce.service.GuestCartService;
 import com.minari.ecommerce.service.ShoppingCartService;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api")
 public class CartRestController {
 
     private final ShoppingCartService cartService;
-    private final ProductService productService;
-    private static final String GUEST_CART_SESSION_KEY = "guestCart";
+    private final GuestCartService guestCartService;
 
-    public CartRestController(ShoppingCartService cartService, ProductService productService) {
+    public CartRestController(ShoppingCartService cartService, GuestCartService guestCartService) {
         this.cartService = cartService;
-        this.productService = productService;
+        this.guestCartService = guestCartService;
     }
 
     // Unified endpoint for Add to Cart (Guest & User)
     @PostMapping({"/cart", "/guest/cart"})
-    public ResponseEntity<?> addToCart(@RequestBody Map<String, Object> payload, Principal principal, HttpSession session) {
+    public ResponseEntity<?> addToCart(@RequestBody Map<String, Object> payload, Principal principal,
+            HttpServletRequest request, HttpServletResponse servletResponse) {
         System.out.println("DEBUG: Entering addToCart. Payload: " + payload);
         try {
             Long productId = Long.valueOf(payload.get("product_id").toString());
             int quantity = Integer.parseInt(payload.get("quantity").toString());
 
+            int count;
             if (principal != null) {
                 System.out.println("DEBUG: Adding to User Cart. User: " + principal.getName());
                 cartService.addToCart(principal.getName(), productId, quantity);
+                count = cartService.getCartItemCount(principal.getName());
             } else {
-                System.out.println("DEBUG: Adding to Guest Session Cart. Session ID: " + session.getId());
-                addToSessionCart(session, productId, quantity);
+                count = guestCartService.add(request, servletResponse, productId, quantity).size();
             }
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            // In a real app, calculate actual count. For now return 0 or mock to avoid error
-            int count = getCartCount(principal, session);
             System.out.println("DEBUG: Cart count updated to: " + count);
             response.put("cart_count", count); 
             return ResponseEntity.ok(response);
@@ -60,14 +55,15 @@ public class CartRestController {
 
     // Update Quantity
     @PatchMapping({"/cart/{productId}", "/guest/cart/{productId}"})
-    public ResponseEntity<?> updateQuantity(@PathVariable Long productId, @RequestBody Map<String, Object> payload, Principal principal, HttpSession session) {
+    public ResponseEntity<?> updateQuantity(@PathVariable Long productId, @RequestBody Map<String, Object> payload, Principal principal,
+            HttpServletRequest request, HttpServletResponse response) {
         try {
             int quantity = Integer.parseInt(payload.get("quantity").toString());
             
             if (principal != null) {
                 cartService.updateCartItemQuantity(principal.getName(), productId, quantity);
             } else {
-                updateSessionCart(session, productId, quantity);
+                guestCartService.update(request, response, productId, quantity);
             }
 
             return ResponseEntity.ok(Map.of("success", true));
@@ -78,12 +74,13 @@ public class CartRestController {
 
     // Remove Item
     @DeleteMapping({"/cart/{productId}", "/guest/cart/{productId}"})
-    public ResponseEntity<?> removeItem(@PathVariable Long productId, Principal principal, HttpSession session) {
+    public ResponseEntity<?> removeItem(@PathVariable Long productId, Principal principal,
+            HttpServletRequest request, HttpServletResponse response) {
         try {
             if (principal != null) {
                 cartService.removeFromCart(principal.getName(), productId);
             } else {
-                removeFromSessionCart(session, productId);
+                guestCartService.remove(request, response, productId);
             }
             return ResponseEntity.ok(Map.of("success", true));
         } catch (Exception e) {
@@ -91,64 +88,11 @@ public class CartRestController {
         }
     }
 
-    // --- Helpers for Guest Session ---
-
-    private void addToSessionCart(HttpSession session, Long productId, int quantity) {
-        List<CartSessionItem> guestCart = getSessionCart(session);
-        Product p = productService.getProductById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
-        Optional<CartSessionItem> existing = guestCart.stream()
-                .filter(item -> item.getProductId().equals(productId))
-                .findFirst();
-
-        if (existing.isPresent()) {
-            existing.get().setQuantity(existing.get().getQuantity() + quantity);
-        } else {
-            guestCart.add(new CartSessionItem(
-                    p.getId(), p.getName(), p.getPrice(), "One Size", "Default", quantity, p.getImageUrl()
-            ));
-        }
-    }
-
-    private void updateSessionCart(HttpSession session, Long productId, int quantity) {
-        List<CartSessionItem> guestCart = getSessionCart(session);
-        if (quantity <= 0) {
-            removeFromSessionCart(session, productId);
-        } else {
-            guestCart.stream()
-                    .filter(item -> item.getProductId().equals(productId))
-                    .findFirst()
-                    .ifPresent(item -> item.setQuantity(quantity));
-        }
-    }
-
-    private void removeFromSessionCart(HttpSession session, Long productId) {
-        List<CartSessionItem> guestCart = getSessionCart(session);
-        guestCart.removeIf(item -> item.getProductId().equals(productId));
-    }
-
-    private List<CartSessionItem> getSessionCart(HttpSession session) {
-        List<CartSessionItem> cart = (List<CartSessionItem>) session.getAttribute(GUEST_CART_SESSION_KEY);
-        if (cart == null) {
-            cart = new ArrayList<>();
-            session.setAttribute(GUEST_CART_SESSION_KEY, cart);
-        }
-        return cart;
-    }
-    
     @GetMapping("/cart/count")
-    public ResponseEntity<?> cartCountApi(Principal principal, HttpSession session) {
-        return ResponseEntity.ok(Map.of("count", getCartCount(principal, session)));
-    }
-
-    private int getCartCount(Principal principal, HttpSession session) {
-        if (principal != null) {
-             com.minari.ecommerce.entity.ShoppingCart userCart = cartService.getCartForUser(principal.getName());
-             return (userCart != null && userCart.getItems() != null) ? userCart.getItems().size() : 0;
-        } else {
-             List<CartSessionItem> cart = (List<CartSessionItem>) session.getAttribute(GUEST_CART_SESSION_KEY);
-             return cart != null ? cart.size() : 0;
-        }
+    public ResponseEntity<?> cartCountApi(Principal principal, HttpServletRequest request) {
+        int count = principal != null
+                ? cartService.getCartItemCount(principal.getName())
+                : guestCartService.read(request).size();
+        return ResponseEntity.ok(Map.of("count", count));
     }
 }
@@ -61,7 +61,6 @@ public class HomeController {
         model.addAttribute("navCategories", navCategoryMaps);
         
         // Add active promotions with enriched category information
-        promotionService.updateExpiredPromotions();
         List<com.minari.ecommerce.entity.Promotion> promotions = promotionService.getActivePromotions();
         
         // Enrich promotions with category names
@@ -89,9 +88,7 @@ public class HomeController {
                                 for (String idStr : categoryIds) {
                                     try {
                                         Long categoryId = Long.parseLong(idStr.trim().replace("\"", ""));
-                                        productService.getAllCategories().stream()
-                                                .filter(cat -> cat.getId().equals(categoryId))
-                                                .findFirst()
+                                        productService.getCategoryById(categoryId)
                                                 .ifPresent(cat -> categoryNames.add(cat.getName()));
                                     } catch (NumberFormatException e) {
                                         // Skip invalid IDs
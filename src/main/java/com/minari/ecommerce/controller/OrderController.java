@@ -2,8 +2,11 @@ package com.minari.ecommerce.controller;
 
 import com.minari.ecommerce.dto.OrderDTO;
 import com.minari.ecommerce.service.OrderService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -37,36 +40,46 @@ public class OrderController {
 
     private final OrderService orderService;
 
+    @Value("${app.pagination.max-page-size:100}")
+    private int maxPageSize;
+
     public OrderController(OrderService orderService) {
         this.orderService = orderService;
     }
 
     /**
      * GET /api/orders
-     * Retrieve all orders with pagination
+     * Retrieve orders with pagination, newest first.
+     * Optional filters: status, paymentStatus, startDate/endDate (yyyy-MM-dd, inclusive)
      */
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllOrders(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String paymentStatus) {
+            @RequestParam(required = false) String paymentStatus,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
         try {
             log.info("Fetching orders - page: {}, size: {}, status: {}, paymentStatus: {}",
                     page, size, status, paymentStatus);
 
-            // This will be implemented with proper pagination
-            List<OrderDTO> orders = orderService.getAllOrders(status, paymentStatus);
+            Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), maxPageSize));
+            Page<OrderDTO> orders = orderService.getAllOrders(status, paymentStatus, startDate, endDate, pageable);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("data", orders);
-            response.put("total", orders.size());
-            response.put("page", page);
-            response.put("size", size);
+            response.put("data", orders.getContent());
+            response.put("total", orders.getTotalElements());
+            response.put("totalPages", orders.getTotalPages());
+            response.put("page", orders.getNumber());
+            response.put("size", orders.getSize());
 
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("success", false, "error", e.getMessage()));
         } catch (Exception e) {
             log.error("Error fetching orders", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -105,22 +118,28 @@ public class OrderController {
 
     /**
      * GET /api/orders/customer/{customerId}
-     * Retrieve all orders for a specific customer
+     * Retrieve a customer's orders with pagination, newest first
      */
     @GetMapping("/customer/{customerId}")
     public ResponseEntity<Map<String, Object>> getCustomerOrders(
-            @PathVariable String customerId) {
+            @PathVariable String customerId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
 
         try {
-            log.info("Fetching orders for customer: {}", customerId);
+            log.info("Fetching orders for customer: {}, page: {}, size: {}", customerId, page, size);
 
-            List<OrderDTO> orders = orderService.getOrdersByCustomerId(customerId);
+            Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), maxPageSize));
+            Page<OrderDTO> orders = orderService.getOrdersByCustomerId(customerId, pageable);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("customerId", customerId);
-            response.put("data", orders);
-            response.put("total", orders.size());
+            response.put("data", orders.getContent());
+            response.put("total", orders.getTotalElements());
+            response.put("totalPages", orders.getTotalPages());
+            response.put("page", orders.getNumber());
+            response.put("size", orders.getSize());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -350,22 +369,30 @@ public class OrderController {
 
     /**
      * GET /api/orders/search
-     * Search orders by keyword
+     * Search orders by order number, tracking number, customer name, email or phone
      */
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchOrders(
-            @RequestParam String query) {
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
 
         try {
             log.info("Searching orders with query: {}", query);
 
-            List<OrderDTO> results = orderService.searchOrders(query);
+            Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), maxPageSize));
+            Page<OrderDTO> results = orderService.searchOrders(query, pageable);
 
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "query", query,
-                    "data", results,
-                    "count", results.size()));
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("query", query);
+            response.put("data", results.getContent());
+            response.put("count", results.getNumberOfElements());
+            response.put("total", results.getTotalElements());
+            response.put("totalPages", results.getTotalPages());
+            response.put("page", results.getNumber());
+            response.put("size", results.getSize());
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("Error searching orders", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
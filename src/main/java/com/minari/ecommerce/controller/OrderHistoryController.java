@@ -1,40 +1,52 @@
 package com.minari.ecommerce.controller;
 
+import com.minari.ecommerce.dto.OrderProjection;
 import com.minari.ecommerce.entity.Order;
-import com.minari.ecommerce.entity.User;
-import com.minari.ecommerce.repository.UserRepository;
 import com.minari.ecommerce.service.OrderService;
+import com.minari.ecommerce.service.UserSnapshotCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-
-import java.util.List;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @Controller
 public class OrderHistoryController {
 
     private final OrderService orderService;
-    private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
+
+    @Value("${app.orders.history-page-size:10}")
+    private int pageSize;
 
-    public OrderHistoryController(OrderService orderService, UserRepository userRepository) {
+    public OrderHistoryController(OrderService orderService, UserSnapshotCache userSnapshotCache) {
         this.orderService = orderService;
-        this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
     }
 
     @GetMapping("/order-history")
-    public String viewOrderHistory(Authentication authentication, Model model) {
+    public String viewOrderHistory(@RequestParam(defaultValue = "0") int page,
+            Authentication authentication, Model model) {
         if (authentication == null || !authentication.isAuthenticated() || authentication.getPrincipal().equals("anonymousUser")) {
             return "redirect:/login";
         }
 
-        String email = authentication.getName();
-        List<Order> orders = orderService.getUserOrders(email);
-        
-        model.addAttribute("orders", orders);
-        
+        Long userId = userSnapshotCache.currentUserId(authentication).orElse(null);
+        if (userId == null) {
+            return "redirect:/login";
+        }
+        Page<OrderProjection.Summary> orders = orderService.getOrderHistory(userId,
+                PageRequest.of(Math.max(page, 0), pageSize));
+
+        model.addAttribute("orders", orders.getContent());
+        model.addAttribute("currentPage", orders.getNumber());
+        model.addAttribute("totalPages", orders.getTotalPages());
+        model.addAttribute("totalOrders", orders.getTotalElements());
+
         return "orders/history";
     }
 
@@ -44,10 +56,11 @@ public class OrderHistoryController {
             return "redirect:/login";
         }
 
-        String email = authentication.getName();
+        Long userId = userSnapshotCache.currentUserId(authentication).orElse(null);
         Order order = orderService.getOrderEntityById(id);
 
-        if (order == null || !order.getUser().getEmail().equals(email)) {
+        // Compare ids: the user proxy is not loaded
+        if (order == null || order.getUser() == null || !order.getUser().getId().equals(userId)) {
             return "redirect:/order-history?error=access_denied";
         }
 
@@ -1,16 +1,19 @@
 package com.minari.ecommerce.controller;
 
 import com.minari.ecommerce.dto.DiscountCalculation;
-import com.minari.ecommerce.entity.User;
-import com.minari.ecommerce.entity.Customer;
+import com.minari.ecommerce.dto.UserSnapshot;
+import com.minari.ecommerce.service.InventoryReservationService;
 import com.minari.ecommerce.service.PromotionService;
 import com.minari.ecommerce.service.ShoppingCartService;
-import com.minari.ecommerce.repository.UserRepository;
+import com.minari.ecommerce.service.UserSnapshotCache;
+import com.minari.ecommerce.repository.AddressRepository;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.security.Principal;
 import java.util.List;
@@ -23,13 +26,54 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class PaymentController {
 
     private final ShoppingCartService cartService;
-    private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
+    private final AddressRepository addressRepository;
     private final PromotionService promotionService;
+    private final InventoryReservationService inventoryReservationService;
 
-    public PaymentController(ShoppingCartService cartService, UserRepository userRepository, PromotionService promotionService) {
+    public PaymentController(ShoppingCartService cartService, UserSnapshotCache userSnapshotCache,
+                             AddressRepository addressRepository, PromotionService promotionService,
+                             InventoryReservationService inventoryReservationService) {
         this.cartService = cartService;
-        this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
+        this.addressRepository = addressRepository;
         this.promotionService = promotionService;
+        this.inventoryReservationService = inventoryReservationService;
+    }
+
+    /**
+     * Start checkout from the cart: hold stock for the selected items, then show the summary page.
+     * Holds are released by the sweeper if the order is never placed. The GET page itself does not
+     * touch stock, so reloading it or changing the address or payment method takes no new hold.
+     */
+    @PostMapping
+    public String startCheckout(@RequestParam(name = "items", required = false) String itemsParam,
+                                RedirectAttributes redirectAttributes,
+                                Principal principal) {
+
+        if (principal == null) {
+            return "redirect:/login";
+        }
+
+        String email = principal.getName();
+        var cart = cartService.getCartForUser(email);
+
+        if (cart.getItems().isEmpty()) {
+            return "redirect:/products";
+        }
+
+        var itemsToProcess = selectedItems(cart.getItems(), selectedProductIds(itemsParam));
+        try {
+            inventoryReservationService.reserve(email, inventoryReservationService.quantitiesOf(itemsToProcess));
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("stockError", e.getMessage());
+        }
+
+        String redirectUrl = "redirect:/payment";
+        if (itemsParam != null && !itemsParam.isEmpty()) {
+            redirectUrl += "?items=" + itemsParam;
+        }
+        return redirectUrl;
     }
 
     @GetMapping
@@ -44,7 +88,7 @@ public class PaymentController {
         }
 
         String email = principal.getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
+        UserSnapshot user = userSnapshotCache.get(email).orElseThrow();
         var cart = cartService.getCartForUser(email);
         
         if (cart.getItems().isEmpty()) {
@@ -52,35 +96,23 @@ public class PaymentController {
         }
 
         // Filter items logic
-        List<com.minari.ecommerce.entity.CartItem> itemsToProcess = cart.getItems();
+        List<Long> selectedIds = selectedProductIds(itemsParam);
+        List<com.minari.ecommerce.entity.CartItem> itemsToProcess = selectedItems(cart.getItems(), selectedIds);
         String selectedItemsJson = ""; // Default empty string or null
 
-        if (itemsParam != null && !itemsParam.isEmpty()) {
+        if (selectedIds != null) {
             try {
-                // Parse comma-separated IDs from URL
-                List<Long> selectedIds = Arrays.stream(itemsParam.split(","))
-                    .map(String::trim)
-                    .map(Long::parseLong)
-                    .collect(Collectors.toList());
-                
-                // Filter items
-                itemsToProcess = cart.getItems().stream()
-                    .filter(item -> selectedIds.contains(item.getProduct().getId()))
-                    .collect(Collectors.toList());
-                
                 // Generate JSON for hidden input
                 ObjectMapper mapper = new ObjectMapper();
                 selectedItemsJson = mapper.writeValueAsString(selectedIds);
-                
             } catch (Exception e) {
-                // Return to full cart in case of error
-                System.err.println("Error filtering cart items: " + e.getMessage());
+                System.err.println("Error serializing selected items: " + e.getMessage());
             }
         }
 
         // Add selected address logic
-        if (user instanceof Customer) {
-            List<com.minari.ecommerce.entity.Address> addresses = ((Customer) user).getSavedAddresses();
+        if (user.isCustomer()) {
+            List<com.minari.ecommerce.entity.Address> addresses = addressRepository.findByCustomerId(user.getId());
             model.addAttribute("addresses", addresses);
             
             if (addressId != null) {
@@ -108,7 +140,7 @@ public class PaymentController {
         }
 
         // Calculate discount
-        DiscountCalculation discountCalc = promotionService.calculateBestDiscount(calculationCart);
+        DiscountCalculation discountCalc = promotionService.calculateBestDiscount(calculationCart, user.getId());
         double subtotal = calculationCart.getTotalAmount();
         double discountAmount = discountCalc.getDiscountAmount();
         double shippingFee = 15000.0;
@@ -122,6 +154,7 @@ public class PaymentController {
         model.addAttribute("total", finalTotal);
         model.addAttribute("selectedItemsJson", selectedItemsJson);
         model.addAttribute("items", itemsParam);
+        model.addAttribute("checkoutToken", java.util.UUID.randomUUID().toString());
         
         return "checkout/summary"; 
     }
@@ -137,13 +170,39 @@ public class PaymentController {
             return "redirect:/login";
         }
 
-        String email = principal.getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
-        
         model.addAttribute("orderNumber", orderNumber != null ? orderNumber : "Processing...");
         model.addAttribute("addressId", addressId);
         model.addAttribute("selectedPaymentMethod", paymentMethod);
         
         return "payment/view"; 
     }
+
+    /**
+     * Parse the comma-separated product IDs from the URL; null means the whole cart
+     */
+    private List<Long> selectedProductIds(String itemsParam) {
+        if (itemsParam == null || itemsParam.isEmpty()) {
+            return null;
+        }
+        try {
+            return Arrays.stream(itemsParam.split(","))
+                .map(String::trim)
+                .map(Long::parseLong)
+                .collect(Collectors.toList());
+        } catch (NumberFormatException e) {
+            // Return to full cart in case of error
+            System.err.println("Error filtering cart items: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private List<com.minari.ecommerce.entity.CartItem> selectedItems(List<com.minari.ecommerce.entity.CartItem> items,
+                                                                    List<Long> selectedIds) {
+        if (selectedIds == null) {
+            return items;
+        }
+        return items.stream()
+            .filter(item -> selectedIds.contains(item.getProduct().getId()))
+            .collect(Collectors.toList());
+    }
 }
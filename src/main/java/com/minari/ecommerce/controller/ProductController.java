@@ -22,15 +22,22 @@ public class ProductController {
         this.reviewRepository = reviewRepository;
     }
 
+    @org.springframework.beans.factory.annotation.Value("${app.search.page-size:24}")
+    private int searchPageSize;
+
     @GetMapping
     public String listProducts(@RequestParam(required = false) String search,
             @RequestParam(required = false) Long category,
+            @RequestParam(defaultValue = "0") int page,
             Model model) {
         List<Product> products;
 
         if (search != null && !search.isEmpty()) {
-            products = productService.searchProducts(search);
+            com.minari.ecommerce.dto.ProductSearchResult result = productService.search(search, category, null,
+                    org.springframework.data.domain.PageRequest.of(Math.max(page, 0), searchPageSize));
+            products = result.getProducts().getContent();
             model.addAttribute("searchQuery", search);
+            model.addAttribute("searchResult", result);
         } else if (category != null) {
             products = productService.getProductsByCategory(category);
             productService.getCategoryById(category)
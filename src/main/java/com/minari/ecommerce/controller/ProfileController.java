@@ -1,8 +1,12 @@
 package com.minari.ecommerce.controller;
 
+import com.minari.ecommerce.dto.UserSnapshot;
 import com.minari.ecommerce.entity.RegisteredCustomer;
 import com.minari.ecommerce.entity.User;
 import com.minari.ecommerce.repository.UserRepository;
+import com.minari.ecommerce.service.UserChangedEvent;
+import com.minari.ecommerce.service.UserSnapshotCache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -16,10 +20,15 @@ import java.util.List;
 public class ProfileController {
     private final UserRepository userRepository;
     private final com.minari.ecommerce.repository.AddressRepository addressRepository;
+    private final UserSnapshotCache userSnapshotCache;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProfileController(UserRepository userRepository, com.minari.ecommerce.repository.AddressRepository addressRepository) {
+    public ProfileController(UserRepository userRepository, com.minari.ecommerce.repository.AddressRepository addressRepository,
+            UserSnapshotCache userSnapshotCache, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.addressRepository = addressRepository;
+        this.userSnapshotCache = userSnapshotCache;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
@@ -54,17 +63,18 @@ public class ProfileController {
         existingUser.setFullName(customer.getFullName());
         existingUser.setPhone(customer.getPhone());
         userRepository.save(existingUser);
+        eventPublisher.publishEvent(new UserChangedEvent(existingUser.getId()));
         return "redirect:/profile";
     }
 
     @GetMapping("/address")
     public String address(Authentication authentication, Model model) {
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
+        UserSnapshot user = userSnapshotCache.get(email).orElseThrow();
         
         List<com.minari.ecommerce.entity.Address> addressList = new java.util.ArrayList<>();
-        if (user instanceof com.minari.ecommerce.entity.Customer) {
-            addressList = addressRepository.findByCustomer((com.minari.ecommerce.entity.Customer) user);
+        if (user.isCustomer()) {
+            addressList = addressRepository.findByCustomerId(user.getId());
         }
         
         model.addAttribute("addresses", addressList);
@@ -74,10 +84,10 @@ public class ProfileController {
     @PostMapping("/address")
     public String addAddress(com.minari.ecommerce.entity.Address address, Authentication authentication) {
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
+        UserSnapshot user = userSnapshotCache.get(email).orElseThrow();
 
-        if (user instanceof com.minari.ecommerce.entity.Customer) {
-            com.minari.ecommerce.entity.Customer customer = (com.minari.ecommerce.entity.Customer) user;
+        if (user.isCustomer()) {
+            com.minari.ecommerce.entity.Customer customer = userSnapshotCache.reference(user);
             address.setCustomer(customer);
             // Ensure required fields
             if (address.getCountry() == null || address.getCountry().isBlank()) address.setCountry("Indonesia");
@@ -1,11 +1,13 @@
 package com.minari.ecommerce.controller;
 
 import com.minari.ecommerce.service.OrderService;
+import com.minari.ecommerce.service.SalesRollupService;
 
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -35,9 +37,11 @@ public class ReportViewController {
     private static final Logger log = LoggerFactory.getLogger(ReportViewController.class);
 
     private final OrderService orderService;
+    private final SalesRollupService salesRollupService;
 
-    public ReportViewController(OrderService orderService) {
+    public ReportViewController(OrderService orderService, SalesRollupService salesRollupService) {
         this.orderService = orderService;
+        this.salesRollupService = salesRollupService;
     }
 
     /**
@@ -348,4 +352,25 @@ public class ReportViewController {
                     "error", e.getMessage());
         }
     }
+
+    /**
+     * POST /api/reports/rollups/rebuild
+     * Recompute the sales rollups from all orders (backfill / repair)
+     */
+    @PostMapping("/rollups/rebuild")
+    @ResponseBody
+    public Map<String, Object> rebuildRollups() {
+        log.info("Rebuilding sales rollups");
+
+        try {
+            Map<String, Object> data = salesRollupService.rebuild();
+            data.put("success", true);
+            return data;
+        } catch (Exception e) {
+            log.error("Error rebuilding sales rollups", e);
+            return Map.of(
+                    "success", false,
+                    "error", e.getMessage());
+        }
+    }
 }
@@ -1,14 +1,16 @@
 package com.minari.ecommerce.controller;
 
+import com.minari.ecommerce.dto.UserSnapshot;
 import com.minari.ecommerce.entity.Customer;
 import com.minari.ecommerce.entity.Order;
 import com.minari.ecommerce.entity.Product;
 import com.minari.ecommerce.entity.ProductReview;
-import com.minari.ecommerce.entity.User;
 import com.minari.ecommerce.repository.OrderRepository;
 import com.minari.ecommerce.repository.ProductRepository;
 import com.minari.ecommerce.repository.ProductReviewRepository;
-import com.minari.ecommerce.repository.UserRepository;
+import com.minari.ecommerce.service.CatalogChangedEvent;
+import com.minari.ecommerce.service.UserSnapshotCache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -27,17 +29,20 @@ public class ReviewController {
 
     private final ProductReviewRepository reviewRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
     private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ReviewController(ProductReviewRepository reviewRepository,
                             ProductRepository productRepository,
-                            UserRepository userRepository,
-                            OrderRepository orderRepository) {
+                            UserSnapshotCache userSnapshotCache,
+                            OrderRepository orderRepository,
+                            ApplicationEventPublisher eventPublisher) {
         this.reviewRepository = reviewRepository;
         this.productRepository = productRepository;
-        this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
         this.orderRepository = orderRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping("/reviews/rate/{orderNumber}")
@@ -50,13 +55,13 @@ public class ReviewController {
         }
 
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email).orElse(null);
+        UserSnapshot user = userSnapshotCache.get(email).orElse(null);
 
-        if (!(user instanceof Customer)) {
+        if (user == null || !user.isCustomer()) {
             return "redirect:/orders/history";
         }
         
-        Customer customer = (Customer) user;
+        Customer customer = userSnapshotCache.reference(user);
         
         Order order = orderRepository.findByOrderNumber(orderNumber).orElse(null);
         if (order == null) {
@@ -92,9 +97,9 @@ public class ReviewController {
         }
 
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email).orElse(null);
+        UserSnapshot user = userSnapshotCache.get(email).orElse(null);
 
-        if (!(user instanceof Customer)) {
+        if (user == null || !user.isCustomer()) {
             redirectAttributes.addFlashAttribute("error", "Only customers can write reviews.");
             return "redirect:/orders/history";
         }
@@ -105,7 +110,7 @@ public class ReviewController {
             return "redirect:/orders/history";
         }
 
-        Customer customer = (Customer) user;
+        Customer customer = userSnapshotCache.reference(user);
         
         // Save Review
         ProductReview review = new ProductReview();
@@ -121,6 +126,7 @@ public class ReviewController {
         // Update product stats
         product.addReview(review);
         productRepository.save(product);
+        eventPublisher.publishEvent(CatalogChangedEvent.products(product.getId()));
 
         redirectAttributes.addFlashAttribute("success", "Review submitted!");
         
@@ -1,7 +1,10 @@
 package com.minari.ecommerce.controller;
 
+import com.minari.ecommerce.dto.ProductSearchResult;
 import com.minari.ecommerce.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,15 +16,26 @@ public class SearchController {
     @Autowired
     private ProductService productService;
 
+    @Value("${app.search.page-size:24}")
+    private int pageSize;
+
     @GetMapping("/search")
-    public String search(@RequestParam(name = "q", required = false) String query, Model model) {
+    public String search(@RequestParam(name = "q", required = false) String query,
+            @RequestParam(required = false) Long category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(defaultValue = "0") int page,
+            Model model) {
         if (query == null || query.trim().isEmpty()) {
             return "search/start";
         }
 
+        ProductSearchResult result = productService.search(query, category, brand,
+                PageRequest.of(Math.max(page, 0), pageSize));
         model.addAttribute("query", query);
-        // Assuming ProductService has a search method
-        model.addAttribute("products", productService.searchProducts(query));
+        model.addAttribute("selectedCategoryId", category);
+        model.addAttribute("selectedBrand", brand);
+        model.addAttribute("searchResult", result);
+        model.addAttribute("products", result.getProducts().getContent());
         return "search/view";
     }
 }
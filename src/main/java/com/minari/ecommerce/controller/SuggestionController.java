@@ -1,9 +1,9 @@
 package com.minari.ecommerce.controller;
 
+import com.minari.ecommerce.dto.UserSnapshot;
 import com.minari.ecommerce.entity.Suggestion;
-import com.minari.ecommerce.entity.User;
-import com.minari.ecommerce.repository.UserRepository;
 import com.minari.ecommerce.service.SuggestionService;
+import com.minari.ecommerce.service.UserSnapshotCache;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -17,11 +17,11 @@ import java.util.List;
 public class SuggestionController {
 
     private final SuggestionService suggestionService;
-    private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
 
-    public SuggestionController(SuggestionService suggestionService, UserRepository userRepository) {
+    public SuggestionController(SuggestionService suggestionService, UserSnapshotCache userSnapshotCache) {
         this.suggestionService = suggestionService;
-        this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
     }
 
     /**
@@ -37,10 +37,7 @@ public class SuggestionController {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             if (auth != null && auth.isAuthenticated() && !auth.getName().equals("anonymousUser")) {
                 customerEmail = auth.getName();
-                userRepository.findByEmail(customerEmail).ifPresent(user -> {
-                    // Use the full name from user
-                });
-                User user = userRepository.findByEmail(customerEmail).orElse(null);
+                UserSnapshot user = userSnapshotCache.get(customerEmail).orElse(null);
                 if (user != null) {
                     customerName = user.getFullName();
                 }
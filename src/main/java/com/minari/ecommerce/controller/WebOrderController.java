@@ -1,12 +1,13 @@
 package com.minari.ecommerce.controller;
 
+import com.minari.ecommerce.dto.UserSnapshot;
 import com.minari.ecommerce.entity.Address;
 import com.minari.ecommerce.entity.PaymentMethod;
-import com.minari.ecommerce.entity.User;
+import com.minari.ecommerce.service.IdempotencyService;
 import com.minari.ecommerce.service.OrderService;
 import com.minari.ecommerce.service.ShoppingCartService;
 import com.minari.ecommerce.service.UserService;
-import com.minari.ecommerce.repository.UserRepository;
+import com.minari.ecommerce.service.UserSnapshotCache;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -24,15 +25,18 @@ public class WebOrderController {
 
     private final OrderService orderService;
     private final ShoppingCartService cartService;
-    private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
     private final com.minari.ecommerce.repository.AddressRepository addressRepository;
+    private final IdempotencyService idempotencyService;
 
     public WebOrderController(OrderService orderService, ShoppingCartService cartService,
-            UserRepository userRepository, com.minari.ecommerce.repository.AddressRepository addressRepository) {
+            UserSnapshotCache userSnapshotCache, com.minari.ecommerce.repository.AddressRepository addressRepository,
+            IdempotencyService idempotencyService) {
         this.orderService = orderService;
         this.cartService = cartService;
-        this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
         this.addressRepository = addressRepository;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping
@@ -52,11 +56,11 @@ public class WebOrderController {
         model.addAttribute("paymentMethod", paymentMethod);
         
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email).orElse(null);
+        UserSnapshot user = userSnapshotCache.get(email).orElse(null);
         
         List<Address> addresses = List.of();
-        if (user instanceof com.minari.ecommerce.entity.Customer) {
-            addresses = addressRepository.findByCustomer((com.minari.ecommerce.entity.Customer) user);
+        if (user != null && user.isCustomer()) {
+            addresses = addressRepository.findByCustomerId(user.getId());
         }
         
         model.addAttribute("addresses", addresses);
@@ -85,7 +89,7 @@ public class WebOrderController {
         if (authentication == null) return "redirect:/login";
         
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email).orElseThrow();
+        UserSnapshot user = userSnapshotCache.get(email).orElseThrow();
         
         Address address = new Address();
         address.setRecipientName(recipientName);
@@ -100,8 +104,8 @@ public class WebOrderController {
         address.setState(city); 
         address.setProvince(city); 
         
-        if (user instanceof com.minari.ecommerce.entity.Customer) {
-            address.setCustomer((com.minari.ecommerce.entity.Customer) user);
+        if (user.isCustomer()) {
+            address.setCustomer(userSnapshotCache.reference(user));
         }
         
         Address savedAddress = addressRepository.save(address);
@@ -135,7 +139,8 @@ public class WebOrderController {
     public String placeOrder(Authentication authentication,
             @RequestParam(value = "addressId", required = false) Long addressId,
             @RequestParam(value = "payment_method", required = false) String paymentMethodStr,
-            @RequestParam(value = "selectedItems", required = false) String selectedItemsJson) {
+            @RequestParam(value = "selectedItems", required = false) String selectedItemsJson,
+            @RequestParam(value = "checkoutToken", required = false) String checkoutToken) {
         
         if (authentication == null) return "redirect:/login";
         
@@ -178,11 +183,22 @@ public class WebOrderController {
 
         try {
             System.out.println("Creating order for user: " + email);
-            com.minari.ecommerce.entity.Order savedOrder = orderService.createOrderFromCart(email, address, method, selectedProductIds);
-            System.out.println("Order created successfully: " + savedOrder.getOrderNumber());
-            System.out.println("Cart should be cleared now");
-            return "redirect:/checkout/order-confirm?orderNumber=" + savedOrder.getOrderNumber() + 
+            PaymentMethod chosenMethod = method;
+            java.util.List<Long> productIds = selectedProductIds;
+            String orderNumber;
+            if (IdempotencyService.isValidKey(checkoutToken)) {
+                // A double submit or browser retry with the same token gets the order placed the first time
+                Long userId = userSnapshotCache.currentUserId(authentication).orElse(null);
+                orderNumber = idempotencyService.execute("checkout", checkoutToken, userId,
+                        () -> orderService.createOrderFromCart(email, address, chosenMethod, productIds).getOrderNumber());
+            } else {
+                orderNumber = orderService.createOrderFromCart(email, address, chosenMethod, productIds).getOrderNumber();
+            }
+            return "redirect:/checkout/order-confirm?orderNumber=" + orderNumber + 
                "&paymentMethod=" + paymentMethodStr;
+        } catch (IdempotencyService.RequestInProgressException e) {
+            // The same checkout is still running in another request
+            return "redirect:/payment?error=checkout_in_progress&addressId=" + addressId + "&paymentMethod=" + paymentMethodStr;
         } catch (Exception e) {
             System.err.println("Error creating order: " + e.getMessage()); // Keep sysout just in case
             e.printStackTrace();
@@ -1,9 +1,10 @@
 package com.minari.ecommerce.controller;
 
+import com.minari.ecommerce.dto.UserSnapshot;
 import com.minari.ecommerce.entity.RegisteredCustomer;
-import com.minari.ecommerce.entity.User;
 import com.minari.ecommerce.entity.WishlistItem;
 import com.minari.ecommerce.service.UserService;
+import com.minari.ecommerce.service.UserSnapshotCache;
 import com.minari.ecommerce.service.WishlistService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -20,11 +21,11 @@ import java.util.stream.Collectors;
 public class WishlistRestController {
 
     private final WishlistService wishlistService;
-    private final com.minari.ecommerce.repository.UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
 
-    public WishlistRestController(WishlistService wishlistService, com.minari.ecommerce.repository.UserRepository userRepository) {
+    public WishlistRestController(WishlistService wishlistService, UserSnapshotCache userSnapshotCache) {
         this.wishlistService = wishlistService;
-        this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
     }
 
     private RegisteredCustomer getCurrentCustomer() {
@@ -33,11 +34,10 @@ public class WishlistRestController {
             return null;
         }
 
-        String email = auth.getName();
-        User user = userRepository.findByEmail(email).orElse(null);
+        UserSnapshot user = userSnapshotCache.resolve(auth).orElse(null);
         
-        if (user instanceof RegisteredCustomer) {
-            return (RegisteredCustomer) user;
+        if (user != null && user.isRegisteredCustomer()) {
+            return userSnapshotCache.reference(user);
         }
         return null;
     }
@@ -0,0 +1,67 @@
+package com.minari.ecommerce.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Status change for many orders at once (POST /api/admin/orders/bulk-status).
+ * Orders may be given by id, by order number, or both.
+ */
+public class BulkOrderStatusRequest {
+
+    private List<Long> orderIds;
+
+    private List<String> orderNumbers;
+
+    @NotBlank(message = "Status is required")
+    private String status;
+
+    // Order number -> tracking number; orders moving to SHIPPED/DELIVERED without one get a generated number
+    private Map<String, String> trackingNumbers;
+
+    @Size(max = 255)
+    private String notes;
+
+    // Getters and Setters
+    public List<Long> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<Long> orderIds) {
+        this.orderIds = orderIds;
+    }
+
+    public List<String> getOrderNumbers() {
+        return orderNumbers;
+    }
+
+    public void setOrderNumbers(List<String> orderNumbers) {
+        this.orderNumbers = orderNumbers;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Map<String, String> getTrackingNumbers() {
+        return trackingNumbers;
+    }
+
+    public void setTrackingNumbers(Map<String, String> trackingNumbers) {
+        this.trackingNumbers = trackingNumbers;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+}
@@ -3,8 +3,8 @@ package com.minari.ecommerce.dto;
 import java.io.Serializable;
 
 /**
- * DTO untuk menyimpan item cart guest di session
- * Serializable sehingga bisa disimpan di HttpSession
+ * DTO untuk menampilkan item cart (guest maupun user)
+ * Cart guest sendiri disimpan di cookie bertanda tangan, lihat GuestCartService
  */
 public class CartSessionItem implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -0,0 +1,117 @@
+package com.minari.ecommerce.dto;
+
+import com.minari.ecommerce.entity.OrderStatus;
+import com.minari.ecommerce.entity.PaymentMethod;
+import com.minari.ecommerce.entity.PaymentStatus;
+import com.minari.ecommerce.entity.ShipmentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model for order listings.
+ * Rows are selected column by column (no entities are loaded), so the eager
+ * one-to-one associations of Customer/User never trigger extra queries.
+ */
+public final class OrderProjection {
+
+    private OrderProjection() {
+    }
+
+    /**
+     * One row per order: the order plus its customer, address, payment and shipment columns
+     */
+    public interface Header {
+        Long getId();
+
+        String getOrderNumber();
+
+        OrderStatus getStatus();
+
+        Long getCustomerId();
+
+        String getCustomerName();
+
+        String getUserName();
+
+        Double getTotalAmount();
+
+        Double getSubtotalAmount();
+
+        Double getTaxAmount();
+
+        Double getShippingCost();
+
+        Double getDiscountAmount();
+
+        String getStreetAddress();
+
+        String getCity();
+
+        String getState();
+
+        String getZipcode();
+
+        String getCountry();
+
+        PaymentStatus getPaymentStatus();
+
+        PaymentMethod getPaymentMethod();
+
+        LocalDateTime getOrderDate();
+
+        LocalDateTime getUpdatedAt();
+
+        ShipmentStatus getShipmentStatus();
+
+        String getTrackingNumber();
+    }
+
+    /**
+     * One row per order for the customer's order history: no address, payment or shipment,
+     * and only the first line's name and image
+     */
+    public interface Summary {
+        Long getId();
+
+        String getOrderNumber();
+
+        LocalDateTime getOrderDate();
+
+        OrderStatus getStatus();
+
+        Double getTotalAmount();
+
+        Long getLineCount();
+
+        Long getItemCount();
+
+        String getFirstItemName();
+
+        String getThumbnailUrl();
+    }
+
+    /**
+     * One row per order line
+     */
+    public interface Item {
+        Long getId();
+
+        Long getOrderId();
+
+        Long getProductId();
+
+        String getProductName();
+
+        String getProductSku();
+
+        Integer getQuantity();
+
+        Double getUnitPrice();
+
+        Double getTotalPrice();
+
+        String getVariantInfo();
+
+        String getImageUrl();
+    }
+}
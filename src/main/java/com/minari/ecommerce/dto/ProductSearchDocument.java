@@ -0,0 +1,24 @@
+package com.minari.ecommerce.dto;
+
+/**
+ * Product fields read by the search index (Spring Data projection)
+ */
+public interface ProductSearchDocument {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    String getBrand();
+
+    String getTags();
+
+    Long getCategoryId();
+
+    String getCategoryName();
+
+    Double getPrice();
+
+    Double getAverageRating();
+}
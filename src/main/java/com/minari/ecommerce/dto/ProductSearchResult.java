@@ -0,0 +1,65 @@
+package com.minari.ecommerce.dto;
+
+import com.minari.ecommerce.entity.Product;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of ranked search results plus facet counts over all matches
+ */
+public class ProductSearchResult {
+
+    /**
+     * A facet value: value is what goes back into the filter (e.g. category id), label is shown
+     */
+    public static class Facet {
+        private final String value;
+        private final String label;
+        private final long count;
+
+        public Facet(String value, String label, long count) {
+            this.value = value;
+            this.label = label;
+            this.count = count;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    private final Page<Product> products;
+    private final Map<String, List<Facet>> facets;
+    private final long tookMicros;
+
+    public ProductSearchResult(Page<Product> products, Map<String, List<Facet>> facets, long tookMicros) {
+        this.products = products;
+        this.facets = facets;
+        this.tookMicros = tookMicros;
+    }
+
+    public Page<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Keys: "category", "brand", "price"
+     */
+    public Map<String, List<Facet>> getFacets() {
+        return facets;
+    }
+
+    public long getTookMicros() {
+        return tookMicros;
+    }
+}
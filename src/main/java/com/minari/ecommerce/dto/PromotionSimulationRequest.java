@@ -0,0 +1,105 @@
+package com.minari.ecommerce.dto;
+
+import jakarta.validation.constraints.*;
+import java.util.List;
+
+/**
+ * Draft promotion to replay against past orders (POST /api/admin/promotions/simulate).
+ * Fields mirror the admin promotion form; dates are not needed since every order in
+ * the replay window is treated as falling inside the promotion period.
+ */
+public class PromotionSimulationRequest {
+
+    @Size(max = 255)
+    private String name;
+
+    @NotBlank(message = "Discount type is required")
+    @Pattern(regexp = "PERCENTAGE|FIXED_AMOUNT", message = "Discount type must be PERCENTAGE or FIXED_AMOUNT")
+    private String discountType;
+
+    @NotNull(message = "Discount value is required")
+    @DecimalMin(value = "0.01", message = "Discount must be greater than 0")
+    private Double discountValue;
+
+    @PositiveOrZero
+    private Double minPurchaseAmount;
+
+    @Positive
+    private Integer usageLimit;
+
+    @Positive
+    private Integer customerUsageLimit;
+
+    // Empty = all categories
+    private List<Long> categoryIds;
+
+    // Replay window, counted back from now
+    @Min(1)
+    @Max(365)
+    private Integer days = 90;
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDiscountType() {
+        return discountType;
+    }
+
+    public void setDiscountType(String discountType) {
+        this.discountType = discountType;
+    }
+
+    public Double getDiscountValue() {
+        return discountValue;
+    }
+
+    public void setDiscountValue(Double discountValue) {
+        this.discountValue = discountValue;
+    }
+
+    public Double getMinPurchaseAmount() {
+        return minPurchaseAmount;
+    }
+
+    public void setMinPurchaseAmount(Double minPurchaseAmount) {
+        this.minPurchaseAmount = minPurchaseAmount;
+    }
+
+    public Integer getUsageLimit() {
+        return usageLimit;
+    }
+
+    public void setUsageLimit(Integer usageLimit) {
+        this.usageLimit = usageLimit;
+    }
+
+    public Integer getCustomerUsageLimit() {
+        return customerUsageLimit;
+    }
+
+    public void setCustomerUsageLimit(Integer customerUsageLimit) {
+        this.customerUsageLimit = customerUsageLimit;
+    }
+
+    public List<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public void setCategoryIds(List<Long> categoryIds) {
+        this.categoryIds = categoryIds;
+    }
+
+    public Integer getDays() {
+        return days;
+    }
+
+    public void setDays(Integer days) {
+        this.days = days;
+    }
+}
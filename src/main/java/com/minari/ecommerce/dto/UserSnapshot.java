@@ -0,0 +1,87 @@
+package com.minari.ecommerce.dto;
+
+import com.minari.ecommerce.entity.Admin;
+import com.minari.ecommerce.entity.Customer;
+import com.minari.ecommerce.entity.RegisteredCustomer;
+import com.minari.ecommerce.entity.User;
+import com.minari.ecommerce.entity.UserRole;
+
+/**
+ * Immutable copy of the user fields request handling needs, kept by UserSnapshotCache.
+ * entityType is the concrete entity class, so a reference obtained from it still
+ * answers instanceof Customer / RegisteredCustomer correctly.
+ */
+public final class UserSnapshot {
+
+    private final Long id;
+    private final String email;
+    private final String username;
+    private final String fullName;
+    private final String phone;
+    private final UserRole role;
+    private final Class<? extends User> entityType;
+    private final boolean active;
+
+    public UserSnapshot(Long id, String email, String username, String fullName, String phone, UserRole role,
+            Class<? extends User> entityType, boolean active) {
+        this.id = id;
+        this.email = email;
+        this.username = username;
+        this.fullName = fullName;
+        this.phone = phone;
+        this.role = role;
+        this.entityType = entityType;
+        this.active = active;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    public Class<? extends User> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * Simple name of the entity class, e.g. "RegisteredCustomer"
+     */
+    public String getUserType() {
+        return entityType.getSimpleName();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean isAdmin() {
+        return Admin.class.isAssignableFrom(entityType);
+    }
+
+    public boolean isCustomer() {
+        return Customer.class.isAssignableFrom(entityType);
+    }
+
+    public boolean isRegisteredCustomer() {
+        return RegisteredCustomer.class.isAssignableFrom(entityType);
+    }
+}
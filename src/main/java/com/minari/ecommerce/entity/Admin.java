@@ -3,12 +3,11 @@ package com.minari.ecommerce.entity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "admins")
-@PrimaryKeyJoinColumn(name = "user_id")
+@DiscriminatorValue("ADMIN")
 public class Admin extends User {
     
     @Enumerated(EnumType.STRING)
-    @Column(name = "admin_level", nullable = false, columnDefinition = "VARCHAR(20) DEFAULT 'REGULAR'")
+    @Column(name = "admin_level", columnDefinition = "VARCHAR(20) DEFAULT 'REGULAR'")
     private AdminLevel adminLevel = AdminLevel.REGULAR;
     
     @Column(name = "department")
@@ -6,14 +6,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "customers")
-@Inheritance(strategy = InheritanceType.JOINED)
 public abstract class Customer extends User {
     
-    @Column(name = "loyalty_points", nullable = false, columnDefinition = "INT DEFAULT 0")
+    @Column(name = "loyalty_points", columnDefinition = "INT DEFAULT 0")
     private Integer loyaltyPoints = 0;
     
-    @Column(name = "newsletter_subscribed", nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
+    @Column(name = "newsletter_subscribed", columnDefinition = "BOOLEAN DEFAULT FALSE")
     private Boolean newsletterSubscribed = false;
     
     @Column(name = "member_since")
@@ -0,0 +1,73 @@
+package com.minari.ecommerce.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Daily sales totals per customer (user ID of the order)
+ */
+@Entity
+@Table(name = "customer_sales_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_customer_sales_rollups_bucket", columnNames = { "customer_id", "bucket_date" })
+}, indexes = {
+        @Index(name = "idx_customer_sales_rollups_date", columnList = "bucket_date")
+})
+public class CustomerSalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "revenue", nullable = false)
+    private Double revenue;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public LocalDate getBucketDate() {
+        return bucketDate;
+    }
+
+    public void setBucketDate(LocalDate bucketDate) {
+        this.bucketDate = bucketDate;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public Double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(Double revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,63 @@
+package com.minari.ecommerce.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * One normalized search term of a user (name token, email or phone digits) for admin order
+ * search. Written by OrderSearchService with JDBC; term prefixes are looked up through
+ * idx_customer_search_terms_term.
+ */
+@Entity
+@Table(name = "customer_search_terms", indexes = {
+        @Index(name = "idx_customer_search_terms_term", columnList = "term, user_id"),
+        @Index(name = "idx_customer_search_terms_user", columnList = "user_id")
+})
+public class CustomerSearchTerm {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 100)
+    private String term;
+
+    // NAME, EMAIL or PHONE
+    @Column(nullable = false, length = 10)
+    private String field;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public void setTerm(String term) {
+        this.term = term;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+}
@@ -0,0 +1,5 @@
+package com.minari.ecommerce.entity;
+
+public enum EmailOutboxStatus {
+    PENDING, SENDING, SENT, DEAD
+}
@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "order_logs")
 public class OrderLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_logs_seq")
+    @SequenceGenerator(name = "order_logs_seq", sequenceName = "order_logs_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
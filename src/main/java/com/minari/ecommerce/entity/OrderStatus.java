@@ -1,6 +1,31 @@
 package com.minari.ecommerce.entity;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
-    PENDING, PAID, PROCESSING, SHIPPED, DELIVERED, 
-    CANCELLED, REFUNDED, RETURNED, EXCHANGED, ON_HOLD
-}
\ No newline at end of file
+    PENDING, PAID, PROCESSING, SHIPPED, DELIVERED,
+    CANCELLED, REFUNDED, RETURNED, EXCHANGED, ON_HOLD;
+
+    // Allowed moves for bulk transitions; REFUNDED and EXCHANGED are final
+    private static final Map<OrderStatus, Set<OrderStatus>> NEXT = new EnumMap<>(OrderStatus.class);
+
+    static {
+        NEXT.put(PENDING, EnumSet.of(PAID, PROCESSING, CANCELLED, ON_HOLD));
+        NEXT.put(PAID, EnumSet.of(PROCESSING, SHIPPED, CANCELLED, REFUNDED, ON_HOLD));
+        NEXT.put(PROCESSING, EnumSet.of(SHIPPED, CANCELLED, ON_HOLD));
+        NEXT.put(SHIPPED, EnumSet.of(DELIVERED, RETURNED));
+        NEXT.put(DELIVERED, EnumSet.of(RETURNED, REFUNDED, EXCHANGED));
+        NEXT.put(CANCELLED, EnumSet.of(REFUNDED));
+        NEXT.put(REFUNDED, EnumSet.noneOf(OrderStatus.class));
+        NEXT.put(RETURNED, EnumSet.of(REFUNDED, EXCHANGED));
+        NEXT.put(EXCHANGED, EnumSet.noneOf(OrderStatus.class));
+        NEXT.put(ON_HOLD, EnumSet.of(PENDING, PAID, PROCESSING, CANCELLED));
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return NEXT.get(this).contains(next);
+    }
+}
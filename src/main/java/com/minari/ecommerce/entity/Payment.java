@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class Payment {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = 50)
     private Long id;
     
     @OneToOne
@@ -210,7 +211,10 @@ public class Payment {
         this.updatedAt = updatedAt;
     }
     
-    public PaymentStatus processPayment() {
+    /**
+     * Settle the payment; transactionId is recorded when it completes immediately (non-COD)
+     */
+    public PaymentStatus processPayment(String transactionId) {
         try {
             System.out.println("Processing payment of $" + amount + " via " + paymentMethod);
             
@@ -220,7 +224,7 @@ public class Payment {
                 System.out.println("COD payment - Status set to PENDING");
             } else {
                 this.status = PaymentStatus.PAID;
-                this.transactionId = generateTransactionId();
+                this.transactionId = transactionId;
                 this.paymentDate = LocalDateTime.now();
                 System.out.println("Payment successful! Transaction ID: " + transactionId);
             }
@@ -233,10 +237,6 @@ public class Payment {
         }
     }
     
-    private String generateTransactionId() {
-        return "TXN_" + System.currentTimeMillis() + "_" + id;
-    }
-    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,73 @@
+package com.minari.ecommerce.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Daily units sold and line revenue per product
+ */
+@Entity
+@Table(name = "product_sales_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_sales_rollups_bucket", columnNames = { "product_id", "bucket_date" })
+}, indexes = {
+        @Index(name = "idx_product_sales_rollups_date", columnList = "bucket_date")
+})
+public class ProductSalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(name = "quantity", nullable = false)
+    private Long quantity;
+
+    @Column(name = "revenue", nullable = false)
+    private Double revenue;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public LocalDate getBucketDate() {
+        return bucketDate;
+    }
+
+    public void setBucketDate(LocalDate bucketDate) {
+        this.bucketDate = bucketDate;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+
+    public Double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(Double revenue) {
+        this.revenue = revenue;
+    }
+}
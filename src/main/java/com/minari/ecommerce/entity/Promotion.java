@@ -36,7 +36,7 @@ public class Promotion {
     @Column(name = "usage_limit")
     private Integer usageLimit;
 
-    @Column(name = "used_count", nullable = false, columnDefinition = "INT DEFAULT 0")
+    @Column(name = "used_count", nullable = false, updatable = false, columnDefinition = "INT DEFAULT 0")
     private Integer usedCount = 0;
 
     @Column(name = "customer_usage_limit")
@@ -0,0 +1,89 @@
+package com.minari.ecommerce.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One use of a promotion by an order. Per-customer limits are checked against
+ * these rows; promotions.used_count is reconciled from them.
+ */
+@Entity
+@Table(name = "promotion_redemptions", indexes = {
+        @Index(name = "idx_promotion_redemption_customer", columnList = "promotion_id, customer_id"),
+        @Index(name = "idx_promotion_redemption_order", columnList = "order_id")
+})
+public class PromotionRedemption {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "promotion_id", nullable = false)
+    private Long promotionId;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "redeemed_at", nullable = false)
+    private LocalDateTime redeemedAt;
+
+    // Constructors
+    public PromotionRedemption() {}
+
+    public PromotionRedemption(Long promotionId, Long customerId, Long orderId) {
+        this.promotionId = promotionId;
+        this.customerId = customerId;
+        this.orderId = orderId;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPromotionId() {
+        return promotionId;
+    }
+
+    public void setPromotionId(Long promotionId) {
+        this.promotionId = promotionId;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public LocalDateTime getRedeemedAt() {
+        return redeemedAt;
+    }
+
+    public void setRedeemedAt(LocalDateTime redeemedAt) {
+        this.redeemedAt = redeemedAt;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (redeemedAt == null) {
+            redeemedAt = LocalDateTime.now();
+        }
+    }
+}
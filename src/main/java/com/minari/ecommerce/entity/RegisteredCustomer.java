@@ -4,23 +4,22 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "registered_customers")
-@PrimaryKeyJoinColumn(name = "user_id")
+@DiscriminatorValue("CUSTOMER")
 public class RegisteredCustomer extends Customer {
 
     @Column(name = "birth_date")
     private LocalDate birthDate;
 
-    @Column(name = "is_logged_in", nullable = false, columnDefinition = "BOOLEAN DEFAULT FALSE")
+    @Column(name = "is_logged_in", columnDefinition = "BOOLEAN DEFAULT FALSE")
     private Boolean isLoggedIn = false;
 
-    @Column(name = "wishlist_count", nullable = false, columnDefinition = "INT DEFAULT 0")
+    @Column(name = "wishlist_count", columnDefinition = "INT DEFAULT 0")
     private Integer wishlistCount = 0;
 
-    @Column(name = "total_orders", nullable = false, columnDefinition = "INT DEFAULT 0")
+    @Column(name = "total_orders", columnDefinition = "INT DEFAULT 0")
     private Integer totalOrders = 0;
 
-    @Column(name = "total_spent", nullable = false, columnDefinition = "DOUBLE PRECISION DEFAULT 0")
+    @Column(name = "total_spent", columnDefinition = "DOUBLE PRECISION DEFAULT 0")
     private Double totalSpent = 0.0;
 
     @Override
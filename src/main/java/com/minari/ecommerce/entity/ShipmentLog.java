@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "shipment_logs")
 public class ShipmentLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shipment_logs_seq")
+    @SequenceGenerator(name = "shipment_logs_seq", sequenceName = "shipment_logs_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
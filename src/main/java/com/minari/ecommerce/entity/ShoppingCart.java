@@ -76,6 +76,7 @@ public class ShoppingCart {
 
     public void setItems(List<CartItem> items) {
         this.items = items;
+        updateCartTotals();
     }
 
     public String getSessionId() {
@@ -86,14 +87,20 @@ public class ShoppingCart {
         this.sessionId = sessionId;
     }
 
+    /**
+     * Stored total, kept current by ShoppingCartService; does not touch items
+     */
     public Double getTotalAmount() {
-        return items.stream().mapToDouble(CartItem::getSubtotal).sum();
+        return totalAmount;
     }
 
     public void setTotalAmount(Double totalAmount) {
         this.totalAmount = totalAmount;
     }
 
+    /**
+     * Stored number of cart lines, kept current by ShoppingCartService; does not touch items
+     */
     public Integer getItemCount() {
         return itemCount;
     }
@@ -175,9 +182,25 @@ public class ShoppingCart {
         return items.stream().mapToInt(CartItem::getQuantity).sum();
     }
     
+    /**
+     * Apply a change of lines and amount to the stored totals without loading items
+     */
+    public void adjustTotals(int lineDelta, double amountDelta) {
+        this.itemCount = Math.max(0, itemCount + lineDelta);
+        // An empty cart is exactly zero, so rounding drift cannot build up
+        this.totalAmount = itemCount == 0 ? 0.0 : totalAmount + amountDelta;
+        updatedAt = LocalDateTime.now();
+    }
+
+    public void resetTotals() {
+        this.itemCount = 0;
+        this.totalAmount = 0.0;
+        updatedAt = LocalDateTime.now();
+    }
+
     private void updateCartTotals() {
         this.itemCount = items.size();
-        this.totalAmount = getTotalAmount();
+        this.totalAmount = items.stream().mapToDouble(CartItem::getSubtotal).sum();
     }
     
     private CartItem findItemByProduct(Product product) {
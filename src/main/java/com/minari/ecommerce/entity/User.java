@@ -3,9 +3,18 @@ package com.minari.ecommerce.entity;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+/**
+ * Root of the user hierarchy. All subtypes share the users table (SINGLE_TABLE); user_type
+ * is the discriminator and is also read back as role. Subclass columns are nullable in the
+ * table, since rows of the other subtypes leave them empty. See UserTableMigration for the
+ * move from the old JOINED tables.
+ */
 @Entity
-@Table(name = "users")
-@Inheritance(strategy = InheritanceType.JOINED)
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_user_type", columnList = "user_type")
+})
+@Inheritance(strategy = InheritanceType.SINGLE_TABLE)
+@DiscriminatorColumn(name = "user_type", discriminatorType = DiscriminatorType.STRING, length = 20)
 public abstract class User {
     
     @Id
@@ -26,6 +35,7 @@ public abstract class User {
     
     private String phone;
     
+    // Same column as the discriminator, read-only
     @Enumerated(EnumType.STRING)
     @Column(name = "user_type", insertable = false, updatable = false)
     private UserRole role;
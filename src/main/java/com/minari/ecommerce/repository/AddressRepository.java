@@ -10,4 +10,6 @@ import java.util.List;
 @Repository
 public interface AddressRepository extends JpaRepository<Address, Long> {
     List<Address> findByCustomer(Customer customer);
+
+    List<Address> findByCustomerId(Long customerId);
 }
\ No newline at end of file
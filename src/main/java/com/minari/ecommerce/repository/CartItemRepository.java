@@ -47,6 +47,11 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     @Query("SELECT ci FROM CartItem ci WHERE ci.shoppingCart.id = :cartId AND ci.product.id = :productId")
     Optional<CartItem> findByShoppingCartIdAndProductId(@Param("cartId") Long cartId, @Param("productId") Long productId);
     
+    // Existing lines for the given products: {productId, itemId, quantity, unitPrice}
+    @Query("SELECT ci.product.id, ci.id, ci.quantity, ci.unitPrice FROM CartItem ci " +
+            "WHERE ci.shoppingCart.id = :cartId AND ci.product.id IN :productIds")
+    List<Object[]> findLinesByCartIdAndProductIds(@Param("cartId") Long cartId, @Param("productIds") List<Long> productIds);
+    
     // Update quantity of a cart item
     @Modifying
     @Query("UPDATE CartItem ci SET ci.quantity = :quantity WHERE ci.id = :itemId")
@@ -110,7 +110,8 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     /**
      * Get customer count by creation date
      */
-    @Query(value = "SELECT COUNT(*) FROM customers WHERE DATE(created_at) = CURDATE()", nativeQuery = true)
+    @Query(value = "SELECT COUNT(*) FROM users WHERE user_type = 'CUSTOMER' AND CAST(created_at AS DATE) = CURRENT_DATE",
+            nativeQuery = true)
     Long countNewCustomersToday();
 
     /**
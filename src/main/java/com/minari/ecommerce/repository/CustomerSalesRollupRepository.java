@@ -0,0 +1,25 @@
+package com.minari.ecommerce.repository;
+
+import com.minari.ecommerce.entity.CustomerSalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CustomerSalesRollupRepository extends JpaRepository<CustomerSalesRollup, Long> {
+
+    @Query("SELECT COUNT(DISTINCT r.customerId) FROM CustomerSalesRollup r " +
+            "WHERE r.bucketDate BETWEEN :start AND :end AND r.orderCount > 0")
+    long countCustomersBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    // [customerId, fullName, orderCount, totalSpent], biggest spenders first
+    @Query("SELECT r.customerId, u.fullName, SUM(r.orderCount), SUM(r.revenue) FROM CustomerSalesRollup r, User u " +
+            "WHERE u.id = r.customerId GROUP BY r.customerId, u.fullName " +
+            "HAVING SUM(r.orderCount) > 0 ORDER BY SUM(r.revenue) DESC")
+    List<Object[]> findTopCustomers(Pageable pageable);
+}
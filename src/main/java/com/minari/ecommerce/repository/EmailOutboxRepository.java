@@ -0,0 +1,50 @@
+package com.minari.ecommerce.repository;
+
+import com.minari.ecommerce.entity.EmailOutbox;
+import com.minari.ecommerce.entity.EmailOutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    long countByStatus(EmailOutboxStatus status);
+
+    List<EmailOutbox> findByClaimToken(String claimToken);
+
+    List<EmailOutbox> findByStatusOrderByIdDesc(EmailOutboxStatus status, Pageable pageable);
+
+    @Query("SELECT e.id FROM EmailOutbox e WHERE e.status = com.minari.ecommerce.entity.EmailOutboxStatus.PENDING " +
+            "AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt, e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Only rows still PENDING are taken, so two dispatchers never claim the same email
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.minari.ecommerce.entity.EmailOutboxStatus.SENDING, " +
+            "e.claimToken = :token, e.claimedAt = :now " +
+            "WHERE e.id IN :ids AND e.status = com.minari.ecommerce.entity.EmailOutboxStatus.PENDING")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.minari.ecommerce.entity.EmailOutboxStatus.SENT, " +
+            "e.sentAt = :now, e.attempts = e.attempts + 1, e.claimToken = NULL, e.lastError = NULL WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Claims left behind by a crashed dispatcher go back to the queue
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.minari.ecommerce.entity.EmailOutboxStatus.PENDING, e.claimToken = NULL " +
+            "WHERE e.status = com.minari.ecommerce.entity.EmailOutboxStatus.SENDING AND e.claimedAt < :cutoff")
+    int releaseStaleClaims(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = com.minari.ecommerce.entity.EmailOutboxStatus.SENT AND e.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
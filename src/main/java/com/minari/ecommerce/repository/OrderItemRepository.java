@@ -1,10 +1,12 @@
 package com.minari.ecommerce.repository;
 
+import com.minari.ecommerce.dto.OrderProjection;
 import com.minari.ecommerce.entity.OrderItem;
 import com.minari.ecommerce.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,4 +20,11 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     @org.springframework.data.jpa.repository.Modifying
     @org.springframework.data.jpa.repository.Query("DELETE FROM OrderItem oi WHERE oi.product.id = :productId")
     void deleteByProductId(@org.springframework.data.repository.query.Param("productId") Long productId);
+
+    // Lines of several orders in one query, for the order listing read model
+    @org.springframework.data.jpa.repository.Query("SELECT oi.id AS id, oi.order.id AS orderId, oi.product.id AS productId, " +
+            "oi.productName AS productName, oi.productSku AS productSku, oi.quantity AS quantity, " +
+            "oi.unitPrice AS unitPrice, oi.totalPrice AS totalPrice, oi.variantInfo AS variantInfo, oi.imageUrl AS imageUrl " +
+            "FROM OrderItem oi WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderProjection.Item> findViewsByOrderIdIn(@org.springframework.data.repository.query.Param("orderIds") Collection<Long> orderIds);
 }
@@ -0,0 +1,9 @@
+package com.minari.ecommerce.repository;
+
+import com.minari.ecommerce.entity.OrderLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderLogRepository extends JpaRepository<OrderLog, Long> {
+}
@@ -1,9 +1,16 @@
 package com.minari.ecommerce.repository;
 
+import com.minari.ecommerce.dto.OrderProjection;
 import com.minari.ecommerce.entity.Order;
 import com.minari.ecommerce.entity.OrderStatus;
+import com.minari.ecommerce.entity.PaymentStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,9 +28,82 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @org.springframework.data.jpa.repository.Query("SELECT SUM(o.totalAmount) FROM Order o")
     Double sumTotalRevenue();
     
-    @org.springframework.data.jpa.repository.Query("SELECT o FROM Order o ORDER BY o.orderDate DESC")
-    List<Order> findRecentOrders(org.springframework.data.domain.Pageable pageable);
-    
-    @org.springframework.data.jpa.repository.Query("SELECT p.name, p.imageUrl, SUM(oi.quantity) as totalSold FROM OrderItem oi JOIN oi.product p GROUP BY p.name, p.imageUrl ORDER BY totalSold DESC")
-    List<Object[]> findTopSellingProducts(org.springframework.data.domain.Pageable pageable);
-}
\ No newline at end of file
+
+    // Filtered order listing: page over IDs first (filters and sort run in the DB),
+    // then load the page through the OrderProjection read model.
+    // An order without a payment row counts as PENDING, like in OrderDTO.
+    @org.springframework.data.jpa.repository.Query(value = "SELECT o.id FROM Order o LEFT JOIN o.payment p " +
+            "WHERE (:status IS NULL OR o.status = :status) " +
+            "AND (:paymentStatus IS NULL OR p.status = :paymentStatus " +
+            "     OR (p.id IS NULL AND :paymentStatus = com.minari.ecommerce.entity.PaymentStatus.PENDING)) " +
+            "AND (:from IS NULL OR o.orderDate >= :from) " +
+            "AND (:to IS NULL OR o.orderDate < :to) " +
+            "ORDER BY o.orderDate DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o LEFT JOIN o.payment p " +
+            "WHERE (:status IS NULL OR o.status = :status) " +
+            "AND (:paymentStatus IS NULL OR p.status = :paymentStatus " +
+            "     OR (p.id IS NULL AND :paymentStatus = com.minari.ecommerce.entity.PaymentStatus.PENDING)) " +
+            "AND (:from IS NULL OR o.orderDate >= :from) " +
+            "AND (:to IS NULL OR o.orderDate < :to)")
+    Page<Long> findIdsByFilters(@Param("status") OrderStatus status,
+                                @Param("paymentStatus") PaymentStatus paymentStatus,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to,
+                                Pageable pageable);
+
+    // Order listing read model (see OrderProjection): headers by ID, items via OrderItemRepository
+    @org.springframework.data.jpa.repository.Query("SELECT o.id AS id, o.orderNumber AS orderNumber, o.status AS status, " +
+            "c.id AS customerId, c.fullName AS customerName, u.fullName AS userName, " +
+            "o.totalAmount AS totalAmount, o.subtotalAmount AS subtotalAmount, o.taxAmount AS taxAmount, " +
+            "o.shippingCost AS shippingCost, o.discountAmount AS discountAmount, " +
+            "a.streetAddress AS streetAddress, a.city AS city, a.state AS state, a.zipcode AS zipcode, a.country AS country, " +
+            "p.status AS paymentStatus, p.paymentMethod AS paymentMethod, " +
+            "o.orderDate AS orderDate, o.updatedAt AS updatedAt, " +
+            "s.currentStatus AS shipmentStatus, s.trackingNumber AS trackingNumber " +
+            "FROM Order o LEFT JOIN o.customer c LEFT JOIN o.user u LEFT JOIN o.shippingAddress a " +
+            "LEFT JOIN o.payment p LEFT JOIN o.shipment s " +
+            "WHERE o.id IN :ids")
+    List<OrderProjection.Header> findHeadersByIdIn(@Param("ids") Collection<Long> ids);
+
+    // [id, orderNumber, status, customerName, totalAmount, orderDate, customerId,
+    //  paymentId, paymentMethod, paymentStatus, shipmentId, trackingNumber, shipmentStatus] for bulk status transitions
+    @org.springframework.data.jpa.repository.Query("SELECT o.id, o.orderNumber, o.status, COALESCE(c.fullName, u.fullName), " +
+            "o.totalAmount, o.orderDate, c.id, p.id, p.paymentMethod, p.status, s.id, s.trackingNumber, s.currentStatus " +
+            "FROM Order o LEFT JOIN o.customer c LEFT JOIN o.user u LEFT JOIN o.payment p LEFT JOIN o.shipment s " +
+            "WHERE o.id IN :ids")
+    List<Object[]> findTransitionRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Order history page of one user; line count and first line come from correlated subqueries, so no items are loaded
+    @org.springframework.data.jpa.repository.Query(value = "SELECT o.id AS id, o.orderNumber AS orderNumber, " +
+            "o.orderDate AS orderDate, o.status AS status, o.totalAmount AS totalAmount, " +
+            "(SELECT COUNT(li) FROM OrderItem li WHERE li.order.id = o.id) AS lineCount, " +
+            "(SELECT COALESCE(SUM(qi.quantity), 0) FROM OrderItem qi WHERE qi.order.id = o.id) AS itemCount, " +
+            "(SELECT fi.productName FROM OrderItem fi WHERE fi.id = " +
+            "(SELECT MIN(mi.id) FROM OrderItem mi WHERE mi.order.id = o.id)) AS firstItemName, " +
+            "(SELECT ti.imageUrl FROM OrderItem ti WHERE ti.id = " +
+            "(SELECT MIN(ni.id) FROM OrderItem ni WHERE ni.order.id = o.id)) AS thumbnailUrl " +
+            "FROM Order o WHERE o.user.id = :userId ORDER BY o.orderDate DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderProjection.Summary> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @org.springframework.data.jpa.repository.Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @org.springframework.data.jpa.repository.Query("SELECT o.orderNumber, o.id FROM Order o WHERE o.orderNumber IN :orderNumbers")
+    List<Object[]> findIdsByOrderNumberIn(@Param("orderNumbers") Collection<String> orderNumbers);
+
+    @org.springframework.data.jpa.repository.Query("SELECT o.id FROM Order o ORDER BY o.orderDate DESC, o.id DESC")
+    List<Long> findRecentOrderIds(Pageable pageable);
+
+    @org.springframework.data.jpa.repository.Query(value = "SELECT o.id FROM Order o WHERE o.customer.id = :customerId ORDER BY o.orderDate DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.customer.id = :customerId")
+    Page<Long> findIdsByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
+
+    @org.springframework.data.jpa.repository.Query("SELECT o.id FROM Order o WHERE o.orderNumber = :orderNumber")
+    Optional<Long> findIdByOrderNumber(@Param("orderNumber") String orderNumber);
+
+    // [id, orderNumber, customerName, totalAmount, orderDate] of the newest orders in a status
+    @org.springframework.data.jpa.repository.Query("SELECT o.id, o.orderNumber, COALESCE(c.fullName, u.fullName), o.totalAmount, o.orderDate " +
+            "FROM Order o LEFT JOIN o.customer c LEFT JOIN o.user u WHERE o.status = :status ORDER BY o.orderDate DESC, o.id DESC")
+    List<Object[]> findRecentByStatus(@Param("status") OrderStatus status, Pageable pageable);
+}
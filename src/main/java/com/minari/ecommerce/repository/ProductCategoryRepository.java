@@ -4,6 +4,7 @@ import com.minari.ecommerce.entity.ProductCategory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -23,4 +24,8 @@ public interface ProductCategoryRepository extends JpaRepository<ProductCategory
         String name, String description, Pageable pageable);
 
     List<ProductCategory> findByNameContainingIgnoreCase(String name);
+
+    // Every category with its sub-categories initialized, so the whole tree is usable detached
+    @Query("SELECT DISTINCT c FROM ProductCategory c LEFT JOIN FETCH c.subCategories")
+    List<ProductCategory> findAllWithSubCategories();
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.minari.ecommerce.repository;
 
+import com.minari.ecommerce.dto.ProductSearchDocument;
 import com.minari.ecommerce.entity.Product;
 import com.minari.ecommerce.entity.ProductCategory;
 import org.springframework.data.domain.Page;
@@ -9,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -27,6 +29,17 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.category.name = :categoryName")
     List<Product> findByCategoryName(@Param("categoryName") String categoryName);
 
+    // All products with their category loaded, for the catalog cache (entities are used detached)
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category")
+    List<Product> findAllWithCategory();
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE c.id = :categoryId")
+    List<Product> findByCategoryIdWithCategory(@Param("categoryId") Long categoryId);
+
+    // [id, stockQuantity] rows, for refreshing the stock of cached products
+    @Query("SELECT p.id, p.stockQuantity FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStockByIdIn(@Param("ids") Collection<Long> ids);
+
     // Find by category ID
     List<Product> findByCategoryId(Long categoryId);
 
@@ -44,6 +57,20 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Product> searchByNameOrDescription(@Param("query") String query);
 
+    // Search index loading (keyset paged by id)
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description, p.brand AS brand, p.tags AS tags, " +
+            "c.id AS categoryId, c.name AS categoryName, p.price AS price, p.averageRating AS averageRating " +
+            "FROM Product p LEFT JOIN p.category c WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductSearchDocument> findSearchDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description, p.brand AS brand, p.tags AS tags, " +
+            "c.id AS categoryId, c.name AS categoryName, p.price AS price, p.averageRating AS averageRating " +
+            "FROM Product p LEFT JOIN p.category c WHERE p.id IN :ids")
+    List<ProductSearchDocument> findSearchDocumentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
     // Find featured products (high rating, in stock)
     @Query("SELECT p FROM Product p WHERE p.averageRating >= 4.0 AND p.stockQuantity > 0 ORDER BY p.averageRating DESC")
     List<Product> findFeaturedProducts();
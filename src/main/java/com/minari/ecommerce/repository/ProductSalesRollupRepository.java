@@ -0,0 +1,19 @@
+package com.minari.ecommerce.repository;
+
+import com.minari.ecommerce.entity.ProductSalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductSalesRollupRepository extends JpaRepository<ProductSalesRollup, Long> {
+
+    // [name, imageUrl, unitsSold], best sellers first
+    @Query("SELECT p.name, p.imageUrl, SUM(r.quantity) FROM ProductSalesRollup r, Product p " +
+            "WHERE p.id = r.productId GROUP BY p.id, p.name, p.imageUrl " +
+            "HAVING SUM(r.quantity) > 0 ORDER BY SUM(r.quantity) DESC")
+    List<Object[]> findTopSellingProducts(Pageable pageable);
+}
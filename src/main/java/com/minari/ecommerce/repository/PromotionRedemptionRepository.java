@@ -0,0 +1,37 @@
+package com.minari.ecommerce.repository;
+
+import com.minari.ecommerce.entity.PromotionRedemption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PromotionRedemptionRepository extends JpaRepository<PromotionRedemption, Long> {
+
+    long countByPromotionIdAndCustomerId(Long promotionId, Long customerId);
+
+    // Active promotions this customer has already used customerUsageLimit times
+    @Query("SELECT p.id FROM Promotion p WHERE p.isActive = true AND p.customerUsageLimit IS NOT NULL " +
+           "AND (SELECT COUNT(r) FROM PromotionRedemption r " +
+           "     WHERE r.promotionId = p.id AND r.customerId = :customerId) >= p.customerUsageLimit")
+    List<Long> findPromotionIdsAtCustomerLimit(@Param("customerId") Long customerId);
+
+    // One-off backfill from orders placed before redemptions were recorded
+    @Modifying
+    @Query(value = "INSERT INTO promotion_redemptions (promotion_id, customer_id, order_id, redeemed_at) " +
+                   "SELECT o.promotion_id, o.user_id, o.id, COALESCE(o.order_date, CURRENT_TIMESTAMP) FROM orders o " +
+                   "WHERE o.promotion_id IS NOT NULL", nativeQuery = true)
+    int backfillFromOrders();
+
+    // Raise used_count to the number of recorded redemptions (never lowers it: running instances may hold uses)
+    @Modifying
+    @Query(value = "UPDATE promotions SET used_count = " +
+                   "(SELECT COUNT(*) FROM promotion_redemptions r WHERE r.promotion_id = promotions.id) " +
+                   "WHERE used_count < " +
+                   "(SELECT COUNT(*) FROM promotion_redemptions r WHERE r.promotion_id = promotions.id)", nativeQuery = true)
+    int reconcileUsedCounts();
+}
@@ -2,8 +2,13 @@ package com.minari.ecommerce.repository;
 
 import com.minari.ecommerce.entity.Promotion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface PromotionRepository extends JpaRepository<Promotion, Long> {
     Promotion findByPromoCode(String promoCode);
@@ -11,4 +16,18 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long> {
     java.util.List<Promotion> findByIsActive(Boolean isActive);
 
     java.util.List<Promotion> findByPromoCodeContainingIgnoreCase(String promoCode);
-}
\ No newline at end of file
+
+    /**
+     * Deactivate every active promotion whose end date has passed
+     */
+    @Modifying
+    @Query("UPDATE Promotion p SET p.isActive = false, p.updatedAt = :now " +
+           "WHERE p.isActive = true AND p.endDate <= :now")
+    int deactivateEnded(@Param("now") LocalDateTime now);
+
+    @Query("SELECT MIN(p.startDate) FROM Promotion p WHERE p.isActive = true AND p.startDate > :now")
+    LocalDateTime findNextStartAfter(@Param("now") LocalDateTime now);
+
+    @Query("SELECT MIN(p.endDate) FROM Promotion p WHERE p.isActive = true AND p.endDate > :now")
+    LocalDateTime findNextEndAfter(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,19 @@
+package com.minari.ecommerce.repository;
+
+import com.minari.ecommerce.entity.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+    // [date, orderCount, revenue] per day, from the hourly buckets
+    @Query("SELECT r.bucketDate, SUM(r.orderCount), SUM(r.revenue) FROM SalesRollup r " +
+            "WHERE r.bucketDate BETWEEN :start AND :end GROUP BY r.bucketDate ORDER BY r.bucketDate")
+    List<Object[]> sumByDate(@Param("start") LocalDate start, @Param("end") LocalDate end);
+}
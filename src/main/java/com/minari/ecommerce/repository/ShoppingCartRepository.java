@@ -2,10 +2,38 @@ package com.minari.ecommerce.repository;
 
 import com.minari.ecommerce.entity.ShoppingCart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
 public interface ShoppingCartRepository extends JpaRepository<ShoppingCart, Long> {
+
+    String ITEM_COUNT_SQL = "(SELECT COUNT(*) FROM cart_items i WHERE i.cart_id = shopping_carts.id)";
+    String ITEMS_TOTAL_SQL = "(SELECT COALESCE(SUM(i.quantity * i.unit_price), 0) FROM cart_items i WHERE i.cart_id = shopping_carts.id)";
+    String RECALCULATE_SQL = "UPDATE shopping_carts SET item_count = " + ITEM_COUNT_SQL + ", total_amount = " + ITEMS_TOTAL_SQL;
+
     Optional<ShoppingCart> findByCustomerId(Long customerId);
-}
\ No newline at end of file
+
+    // Checkout: the cart with its lines and their products in one query
+    @Query("SELECT c FROM ShoppingCart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product WHERE c.id = :id")
+    Optional<ShoppingCart> findWithItemsById(@Param("id") Long id);
+
+    // Cart badge: reads the stored count, never the items
+    @Query("SELECT c.itemCount FROM ShoppingCart c WHERE c.customer.email = :email")
+    Optional<Integer> findItemCountByCustomerEmail(@Param("email") String email);
+
+    // Recompute stored totals from cart_items
+    @Modifying(flushAutomatically = true)
+    @Query(value = RECALCULATE_SQL + " WHERE id IN (:cartIds)", nativeQuery = true)
+    int recalculateTotals(@Param("cartIds") Collection<Long> cartIds);
+
+    @Modifying
+    @Query(value = RECALCULATE_SQL + " WHERE item_count <> " + ITEM_COUNT_SQL
+            + " OR ABS(total_amount - " + ITEMS_TOTAL_SQL + ") > 0.005", nativeQuery = true)
+    int recalculateStaleTotals();
+}
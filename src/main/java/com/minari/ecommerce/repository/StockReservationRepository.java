@@ -0,0 +1,18 @@
+package com.minari.ecommerce.repository;
+
+import com.minari.ecommerce.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Active holds of one checkout (keyed by customer email)
+    List<StockReservation> findByHolderKey(String holderKey);
+
+    // Holds whose TTL has passed, picked up by the sweeper
+    List<StockReservation> findTop500ByExpiresAtBeforeOrderByExpiresAtAsc(LocalDateTime now);
+}
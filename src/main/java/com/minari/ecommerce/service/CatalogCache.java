@@ -0,0 +1,362 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.entity.Product;
+import com.minari.ecommerce.entity.ProductCategory;
+import com.minari.ecommerce.repository.ProductCategoryRepository;
+import com.minari.ecommerce.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read cache for the storefront catalog: all products, products per category and the
+ * category tree.
+ *
+ * Every entry is an immutable snapshot of detached entities, with the associations the
+ * pages and the category API need already loaded. Callers get copies of those entities, so
+ * changing a returned product or category never leaks into the cache; admin edit forms keep
+ * loading from the repositories. Entries live in an LRU map bounded by
+ * app.catalog-cache.max-entries.
+ *
+ * There is no TTL. Entries are dropped when a CatalogChangedEvent is published by a
+ * write (after the writing transaction commits):
+ * - product change: every "products*" entry
+ * - category change: the category snapshot and every "products*" entry
+ *   (cached products carry their category, and deleting a category cascades to its products)
+ * A load that overlaps an invalidation is returned to its caller but not stored.
+ *
+ * Stock changes (every checkout) drop nothing: the stock of the changed products is
+ * re-read and kept in an overlay that the copies handed out take their stockQuantity from.
+ * Each re-read takes a ticket before querying, and a product's overlay value is only
+ * replaced by a read with a higher ticket, so reads finishing out of order cannot bring
+ * back an older quantity. The overlay is emptied whenever the product entries are dropped.
+ */
+@Service
+public class CatalogCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogCache.class);
+
+    private static final String PRODUCTS = "products";
+    private static final String CATEGORIES = "categories";
+
+    /**
+     * All categories taken from one load; every call returns fresh copies of the category tree
+     */
+    public static final class CategorySnapshot {
+        private final List<ProductCategory> all;
+        private final Map<Long, ProductCategory> byId;
+
+        CategorySnapshot(List<ProductCategory> categories) {
+            this.all = List.copyOf(categories);
+            Map<Long, ProductCategory> index = new HashMap<>();
+            categories.forEach(category -> index.put(category.getId(), category));
+            this.byId = Map.copyOf(index);
+        }
+
+        public List<ProductCategory> getAll() {
+            return List.copyOf(copyTree(all).values());
+        }
+
+        public List<ProductCategory> getActive() {
+            return copyTree(all).values().stream()
+                    .filter(category -> Boolean.TRUE.equals(category.getIsActive()))
+                    .toList();
+        }
+
+        /**
+         * Copy of one category with its sub-category tree; the parent chain is copied without
+         * the parents' other sub-categories
+         */
+        public Optional<ProductCategory> get(Long id) {
+            ProductCategory category = id != null ? byId.get(id) : null;
+            if (category == null) {
+                return Optional.empty();
+            }
+            return Optional.of(copySubtree(category, copyAncestors(category.getParentCategory())));
+        }
+
+        private ProductCategory copyAncestors(ProductCategory parent) {
+            ProductCategory loaded = parent != null ? byId.get(parent.getId()) : null;
+            return loaded != null ? copyOf(loaded, copyAncestors(loaded.getParentCategory())) : null;
+        }
+
+        private ProductCategory copySubtree(ProductCategory category, ProductCategory parent) {
+            ProductCategory copy = copyOf(category, parent);
+            category.getSubCategories().forEach(sub -> {
+                ProductCategory loaded = byId.get(sub.getId());
+                copy.getSubCategories().add(loaded != null ? copySubtree(loaded, copy) : copyOf(sub, copy));
+            });
+            return copy;
+        }
+    }
+
+    /**
+     * One cached value and when it was loaded
+     */
+    public static final class Snapshot<T> {
+        private final T value;
+        private final LocalDateTime loadedAt;
+
+        Snapshot(T value) {
+            this.value = value;
+            this.loadedAt = LocalDateTime.now();
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public LocalDateTime getLoadedAt() {
+            return loadedAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final Map<String, Snapshot<?>> entries;
+
+    // Bumped on every invalidation; a load only stores its result if this did not move meanwhile
+    private final AtomicLong generation = new AtomicLong();
+
+    // Stock overlay: product id -> {ticket, stockQuantity}; guarded by "entries"
+    private final Map<Long, long[]> stock = new HashMap<>();
+    private final AtomicLong stockTickets = new AtomicLong();
+    // Reads with a ticket at or below this started before the last invalidation; guarded by "entries"
+    private long stockFloor;
+
+    // Metrics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong stockRefreshes = new AtomicLong();
+
+    private final ProductRepository productRepository;
+    private final ProductCategoryRepository categoryRepository;
+
+    public CatalogCache(ProductRepository productRepository, ProductCategoryRepository categoryRepository,
+            @Value("${app.catalog-cache.max-entries:64}") int maxEntries) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot<?>> eldest) {
+                if (size() > CatalogCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public List<Product> getAllProducts() {
+        return copies(get(PRODUCTS, () -> List.copyOf(productRepository.findAllWithCategory())));
+    }
+
+    public List<Product> getProductsByCategory(Long categoryId) {
+        return copies(get(PRODUCTS + ":category:" + categoryId,
+                () -> List.copyOf(productRepository.findByCategoryIdWithCategory(categoryId))));
+    }
+
+    /**
+     * The given products by id, for lookups that should not hit the database (e.g. rendering a
+     * guest cart); ids of products that do not exist are left out
+     */
+    public Map<Long, Product> getProductsById(Collection<Long> productIds) {
+        Map<Long, Product> index = get(PRODUCTS + ":byId", () -> {
+            Map<Long, Product> byId = new HashMap<>();
+            get(PRODUCTS, () -> List.copyOf(productRepository.findAllWithCategory()))
+                    .forEach(product -> byId.put(product.getId(), product));
+            return Map.copyOf(byId);
+        });
+        Map<Long, Product> products = new HashMap<>();
+        synchronized (entries) {
+            for (Long productId : productIds) {
+                Product product = index.get(productId);
+                if (product != null) {
+                    products.put(productId, copy(product));
+                }
+            }
+        }
+        return products;
+    }
+
+    public CategorySnapshot getCategories() {
+        // Sub-categories are fetched too, since the category API serializes them
+        return get(CATEGORIES, () -> new CategorySnapshot(categoryRepository.findAllWithSubCategories()));
+    }
+
+    /**
+     * Return the cached value for key, loading it on a miss. The loader must return an immutable value.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, Supplier<T> loader) {
+        synchronized (entries) {
+            Snapshot<?> snapshot = entries.get(key);
+            if (snapshot != null) {
+                hits.incrementAndGet();
+                return (T) snapshot.getValue();
+            }
+        }
+        misses.incrementAndGet();
+
+        long loadGeneration = generation.get();
+        T value = loader.get();
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                entries.put(key, new Snapshot<>(value));
+            }
+        }
+        return value;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getScope() == CatalogChangedEvent.Scope.STOCK) {
+            refreshStock(event.getProductIds());
+            return;
+        }
+        int removed;
+        synchronized (entries) {
+            generation.incrementAndGet();
+            int before = entries.size();
+            entries.keySet().removeIf(key -> key.startsWith(PRODUCTS));
+            if (event.getScope() == CatalogChangedEvent.Scope.CATEGORIES) {
+                entries.remove(CATEGORIES);
+            }
+            removed = before - entries.size();
+            clearStock();
+        }
+        invalidations.addAndGet(removed);
+        log.debug("Catalog cache: {} #{} changed, dropped {} entries", event.getScope(), event.getId(), removed);
+    }
+
+    /**
+     * Re-read the stock of the given products into the overlay
+     */
+    private void refreshStock(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        long ticket = stockTickets.incrementAndGet();
+        List<Object[]> rows;
+        try {
+            rows = productRepository.findStockByIdIn(productIds);
+        } catch (Exception e) {
+            log.error("Catalog cache: could not re-read stock of {}, dropping product entries", productIds, e);
+            onCatalogChanged(CatalogChangedEvent.products(null));
+            return;
+        }
+        synchronized (entries) {
+            if (ticket <= stockFloor) {
+                // Product entries were dropped meanwhile and reload with current stock
+                return;
+            }
+            for (Object[] row : rows) {
+                long[] current = stock.get((Long) row[0]);
+                if (current == null || current[0] < ticket) {
+                    Integer quantity = (Integer) row[1];
+                    stock.put((Long) row[0], new long[] { ticket, quantity != null ? quantity : 0 });
+                }
+            }
+        }
+        stockRefreshes.incrementAndGet();
+    }
+
+    // Guarded by "entries"
+    private void clearStock() {
+        stock.clear();
+        stockFloor = stockTickets.incrementAndGet();
+    }
+
+    private List<Product> copies(List<Product> products) {
+        List<Product> copies = new ArrayList<>(products.size());
+        synchronized (entries) {
+            products.forEach(product -> copies.add(copy(product)));
+        }
+        return List.copyOf(copies);
+    }
+
+    /**
+     * Copy of a cached product with the current stock; its category is a copy without
+     * parent and sub-categories, and its reviews (never loaded for the cache) are left
+     * empty. Guarded by "entries".
+     */
+    private Product copy(Product product) {
+        long[] current = stock.get(product.getId());
+        Integer stockQuantity = current != null ? Integer.valueOf((int) current[1]) : product.getStockQuantity();
+        ProductCategory category = product.getCategory() != null ? copyOf(product.getCategory(), null) : null;
+        return new Product(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                stockQuantity, product.getImageUrl(), product.getSku(), product.getCompareAtPrice(),
+                product.getDiscountPrice(), product.getIsActive(), product.getIsFeatured(), product.getWeight(),
+                product.getTags(), product.getSeoTitle(), product.getSeoDescription(), product.getBrand(),
+                category, new ArrayList<>(), product.getAverageRating(), product.getReviewCount(),
+                product.getCreatedAt(), product.getUpdatedAt());
+    }
+
+    /**
+     * Copies of the given categories by id, in order, with parent and sub-category links
+     * pointing at the copies
+     */
+    private static Map<Long, ProductCategory> copyTree(List<ProductCategory> categories) {
+        Map<Long, ProductCategory> copies = new LinkedHashMap<>();
+        categories.forEach(category -> copies.put(category.getId(), copyOf(category, null)));
+        for (ProductCategory category : categories) {
+            ProductCategory copy = copies.get(category.getId());
+            ProductCategory parent = category.getParentCategory();
+            copy.setParentCategory(parent != null ? copies.get(parent.getId()) : null);
+            List<ProductCategory> subCategories = new ArrayList<>();
+            category.getSubCategories().forEach(sub -> {
+                ProductCategory subCopy = copies.get(sub.getId());
+                subCategories.add(subCopy != null ? subCopy : copyOf(sub, copy));
+            });
+            copy.setSubCategories(subCategories);
+        }
+        return copies;
+    }
+
+    private static ProductCategory copyOf(ProductCategory category, ProductCategory parent) {
+        return new ProductCategory(category.getId(), category.getName(), category.getDescription(),
+                category.getSlug(), category.getImageUrl(), category.getBannerUrl(), parent, new ArrayList<>(),
+                category.getDisplayOrder(), category.getIsActive(), category.getMetaTitle(),
+                category.getMetaDescription(), category.getMetaKeywords(), new ArrayList<>(),
+                category.getCreatedAt(), category.getUpdatedAt());
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+            Map<String, Object> loaded = new LinkedHashMap<>();
+            entries.forEach((key, snapshot) -> loaded.put(key, snapshot.getLoadedAt()));
+            stats.put("entries", loaded);
+            stats.put("stockOverrides", stock.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("stockRefreshes", stockRefreshes.get());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        return stats;
+    }
+}
@@ -0,0 +1,57 @@
+package com.minari.ecommerce.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published whenever products or categories are written, so CatalogCache can drop
+ * exactly the entries that depend on them. id is null when the change is not about
+ * a single row. STOCK is a stock-only change of productIds (checkout, reservations);
+ * it does not drop anything, CatalogCache re-reads the stock of those products.
+ */
+public class CatalogChangedEvent {
+
+    public enum Scope {
+        PRODUCTS,
+        CATEGORIES,
+        STOCK
+    }
+
+    private final Scope scope;
+    private final Long id;
+    private final List<Long> productIds;
+
+    public CatalogChangedEvent(Scope scope, Long id) {
+        this(scope, id, id != null ? List.of(id) : List.of());
+    }
+
+    private CatalogChangedEvent(Scope scope, Long id, List<Long> productIds) {
+        this.scope = scope;
+        this.id = id;
+        this.productIds = productIds;
+    }
+
+    public static CatalogChangedEvent products(Long id) {
+        return new CatalogChangedEvent(Scope.PRODUCTS, id);
+    }
+
+    public static CatalogChangedEvent categories(Long id) {
+        return new CatalogChangedEvent(Scope.CATEGORIES, id);
+    }
+
+    public static CatalogChangedEvent stock(Collection<Long> productIds) {
+        return new CatalogChangedEvent(Scope.STOCK, null, List.copyOf(productIds));
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
@@ -4,6 +4,7 @@ import com.minari.ecommerce.entity.Product;
 import com.minari.ecommerce.entity.ProductCategory;
 import com.minari.ecommerce.repository.ProductRepository;
 import com.minari.ecommerce.repository.ProductCategoryRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Optional;
@@ -13,10 +14,15 @@ public class CatalogService {
     
     private final ProductRepository productRepository;
     private final ProductCategoryRepository categoryRepository;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public CatalogService(ProductRepository productRepository, ProductCategoryRepository categoryRepository) {
+    public CatalogService(ProductRepository productRepository, ProductCategoryRepository categoryRepository,
+            CatalogCache catalogCache, ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
+        this.catalogCache = catalogCache;
+        this.eventPublisher = eventPublisher;
     }
     
     // Implementasi Search interface dari class asli
@@ -41,20 +47,25 @@ public class CatalogService {
     }
     
     // Category management methods for AdminController
+    // Cached, read-only list (see CatalogCache)
     public List<ProductCategory> getAllCategories() {
-        return categoryRepository.findAll();
+        return catalogCache.getCategories().getAll();
     }
     
+    // Not cached: the admin forms modify and save the returned entity
     public ProductCategory getCategoryById(Long categoryId) {
         Optional<ProductCategory> category = categoryRepository.findById(categoryId);
         return category.orElse(null);
     }
     
     public ProductCategory saveCategory(ProductCategory category) {
-        return categoryRepository.save(category);
+        ProductCategory saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(CatalogChangedEvent.categories(saved.getId()));
+        return saved;
     }
     
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.categories(id));
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.minari.ecommerce.service;
 
 import com.minari.ecommerce.entity.Customer;
 import com.minari.ecommerce.repository.CustomerRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -26,9 +27,11 @@ public class CustomerService {
     private static final Logger log = LoggerFactory.getLogger(CustomerService.class);
 
     private final CustomerRepository customerRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CustomerService(CustomerRepository customerRepository) {
+    public CustomerService(CustomerRepository customerRepository, ApplicationEventPublisher eventPublisher) {
         this.customerRepository = customerRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -110,6 +113,7 @@ public class CustomerService {
 
         customer.setUpdatedAt(LocalDateTime.now());
         Customer updatedCustomer = customerRepository.save(customer);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         log.info("Customer updated successfully: {}", id);
         return updatedCustomer;
     }
@@ -124,6 +128,7 @@ public class CustomerService {
                 .orElseThrow(() -> new IllegalArgumentException("Customer not found with ID: " + id));
 
         customerRepository.delete(customer);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         log.info("Customer deleted successfully: {}", id);
     }
 
@@ -138,6 +143,7 @@ public class CustomerService {
 
         customer.setIsActive(!customer.getIsActive());
         Customer updatedCustomer = customerRepository.save(customer);
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         log.info("Customer status toggled: {} - New status: {}", id, updatedCustomer.getIsActive());
         return updatedCustomer;
     }
@@ -0,0 +1,295 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.entity.EmailOutbox;
+import com.minari.ecommerce.entity.EmailOutboxStatus;
+import com.minari.ecommerce.repository.EmailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the email outbox.
+ *
+ * Each run claims a batch of due PENDING rows, splits it into chunks and sends every chunk
+ * over one SMTP connection on a small pool of platform threads (app.mail.outbox.senders).
+ * JavaMail's SMTPTransport synchronizes around its socket I/O, which would pin virtual
+ * threads. A chunk that does not finish within app.mail.outbox.send-timeout-seconds is
+ * cancelled and retried like a failed send; the spring.mail.properties.mail.smtp.*timeout
+ * settings bound each socket operation. Failed emails are retried with
+ * exponential backoff and marked DEAD after app.mail.outbox.max-attempts.
+ * With app.mail.simulate=true emails are only logged.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+
+    @Value("${app.mail.simulate:true}")
+    private boolean simulate;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.chunk-size:10}")
+    private int chunkSize;
+
+    @Value("${app.mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.backoff-seconds:30}")
+    private long backoffSeconds;
+
+    @Value("${app.mail.outbox.claim-timeout-minutes:5}")
+    private long claimTimeoutMinutes;
+
+    @Value("${app.mail.outbox.send-timeout-seconds:120}")
+    private long sendTimeoutSeconds;
+
+    // Metrics
+    private final AtomicLong sentTotal = new AtomicLong();
+    private final AtomicLong retriedTotal = new AtomicLong();
+    private final AtomicLong deadTotal = new AtomicLong();
+    private final AtomicLong batchesTotal = new AtomicLong();
+    private volatile long lastBatchSize;
+    private volatile long lastBatchMillis;
+    private final long startedAt = System.currentTimeMillis();
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository, JavaMailSender mailSender,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.mail.outbox.senders:4}") int senders) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(senders, runnable -> {
+            Thread thread = new Thread(runnable, "mail-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:2000}")
+    public void dispatch() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int released = outboxRepository.releaseStaleClaims(
+                        LocalDateTime.now().minusMinutes(claimTimeoutMinutes));
+                if (released > 0) {
+                    log.warn("Released {} stale email outbox claims", released);
+                }
+            });
+
+            // Keep going while full batches come back, so a backlog drains in one run
+            while (dispatchBatch() == batchSize) {
+                // next batch
+            }
+        } catch (Exception e) {
+            log.error("Email outbox dispatch failed", e);
+        }
+    }
+
+    /**
+     * Claim, send and record one batch; returns the number of emails claimed
+     */
+    int dispatchBatch() {
+        String token = UUID.randomUUID().toString();
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = outboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty() || outboxRepository.claim(ids, token, now) == 0) {
+                return Collections.<EmailOutbox>emptyList();
+            }
+            return outboxRepository.findByClaimToken(token);
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        Map<Long, String> failures = deliver(batch);
+        recordResults(batch, failures);
+
+        batchesTotal.incrementAndGet();
+        lastBatchSize = batch.size();
+        lastBatchMillis = System.currentTimeMillis() - start;
+        log.info("Email outbox batch: {} sent, {} failed in {} ms",
+                batch.size() - failures.size(), failures.size(), lastBatchMillis);
+        return batch.size();
+    }
+
+    /**
+     * Send the batch in chunks on the sender pool; returns outbox id -> error for failed emails
+     */
+    Map<Long, String> deliver(List<EmailOutbox> batch) {
+        List<List<EmailOutbox>> chunks = new ArrayList<>();
+        List<Future<Map<Long, String>>> results = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i += chunkSize) {
+            List<EmailOutbox> chunk = batch.subList(i, Math.min(i + chunkSize, batch.size()));
+            chunks.add(chunk);
+            results.add(executor.submit(() -> deliverChunk(chunk)));
+        }
+
+        Map<Long, String> failures = new HashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(sendTimeoutSeconds);
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                failures.putAll(results.get(i).get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                // Stuck connection: give up on the chunk and retry its emails later
+                results.get(i).cancel(true);
+                log.error("Email chunk did not finish within {} s", sendTimeoutSeconds);
+                chunks.get(i).forEach(email -> failures.put(email.getId(), "Send timed out"));
+            } catch (Exception e) {
+                // Unexpected error in the chunk: retry all of its emails
+                log.error("Email chunk did not complete", e);
+                chunks.get(i).forEach(email -> failures.put(email.getId(), String.valueOf(e.getMessage())));
+            }
+        }
+        return failures;
+    }
+
+    private Map<Long, String> deliverChunk(List<EmailOutbox> chunk) {
+        Map<Long, String> failures = new HashMap<>();
+        SimpleMailMessage[] messages = new SimpleMailMessage[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            EmailOutbox email = chunk.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(email.getRecipient());
+            message.setFrom(email.getSender());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages[i] = message;
+        }
+
+        if (simulate) {
+            for (SimpleMailMessage message : messages) {
+                log.info("📧 [SIMULATION] Email to {}: {}", message.getTo()[0], message.getSubject());
+            }
+            return failures;
+        }
+
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            // Per-message failures; messages not listed were sent
+            Map<Object, Exception> failed = e.getFailedMessages();
+            for (int i = 0; i < messages.length; i++) {
+                Exception cause = failed.get(messages[i]);
+                if (cause != null) {
+                    failures.put(chunk.get(i).getId(), cause.getMessage());
+                }
+            }
+            if (failed.isEmpty()) {
+                chunk.forEach(email -> failures.put(email.getId(), e.getMessage()));
+            }
+        } catch (MailException e) {
+            chunk.forEach(email -> failures.put(email.getId(), e.getMessage()));
+        }
+        return failures;
+    }
+
+    private void recordResults(List<EmailOutbox> batch, Map<Long, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sentIds = new ArrayList<>();
+        List<EmailOutbox> failed = new ArrayList<>();
+        for (EmailOutbox email : batch) {
+            if (!failures.containsKey(email.getId())) {
+                sentIds.add(email.getId());
+                continue;
+            }
+            String error = String.valueOf(failures.get(email.getId()));
+            int attempts = email.getAttempts() + 1;
+            email.setAttempts(attempts);
+            email.setClaimToken(null);
+            email.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            if (attempts >= maxAttempts) {
+                email.setStatus(EmailOutboxStatus.DEAD);
+                deadTotal.incrementAndGet();
+                log.error("Email {} to {} moved to dead letter after {} attempts: {}",
+                        email.getId(), email.getRecipient(), attempts, error);
+            } else {
+                email.setStatus(EmailOutboxStatus.PENDING);
+                email.setNextAttemptAt(now.plus(backoff(attempts)));
+                retriedTotal.incrementAndGet();
+            }
+            failed.add(email);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                outboxRepository.markSent(sentIds, now);
+            }
+            if (!failed.isEmpty()) {
+                outboxRepository.saveAll(failed);
+            }
+        });
+        sentTotal.addAndGet(sentIds.size());
+    }
+
+    /**
+     * backoff-seconds, doubled per failed attempt, at most 1 hour
+     */
+    private Duration backoff(int attempts) {
+        long seconds = backoffSeconds << Math.min(attempts - 1, 16);
+        return Duration.ofSeconds(Math.min(seconds, 3600));
+    }
+
+    /**
+     * Remove delivered emails after a week
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeSent() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(7)));
+        log.info("Purged {} sent emails from the outbox", deleted);
+    }
+
+    public Map<String, Object> getMetrics() {
+        double uptimeMinutes = Math.max((System.currentTimeMillis() - startedAt) / 60000.0, 1.0 / 60);
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("queueDepth", outboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+        metrics.put("inFlight", outboxRepository.countByStatus(EmailOutboxStatus.SENDING));
+        metrics.put("deadLetters", outboxRepository.countByStatus(EmailOutboxStatus.DEAD));
+        metrics.put("sentTotal", sentTotal.get());
+        metrics.put("retriedTotal", retriedTotal.get());
+        metrics.put("deadTotal", deadTotal.get());
+        metrics.put("batchesTotal", batchesTotal.get());
+        metrics.put("lastBatchSize", lastBatchSize);
+        metrics.put("lastBatchMillis", lastBatchMillis);
+        metrics.put("sentPerMinute", sentTotal.get() / uptimeMinutes);
+        metrics.put("simulate", simulate);
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,44 +1,30 @@
 package com.minari.ecommerce.service;
 
+import com.minari.ecommerce.entity.EmailOutbox;
 import com.minari.ecommerce.entity.Order;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import com.minari.ecommerce.repository.EmailOutboxRepository;
 import org.springframework.stereotype.Service;
 
+/**
+ * Builds outgoing emails and queues them in the email outbox.
+ * The outbox row joins the caller's transaction; EmailOutboxDispatcher sends it after commit.
+ */
 @Service
 public class EmailService {
     
-    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository outboxRepository;
     
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(EmailOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
     }
     
     public void sendOrderConfirmation(String toEmail, Order order) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(toEmail);
-            message.setSubject("Order Confirmation - Minari");
-            message.setText(buildOrderConfirmationEmail(order));
-            message.setFrom("noreply@minari.com");
-            
-            // SIMULATION MODE: Do not actually send to prevent errors with invalid creds
-            // mailSender.send(message); 
-            System.out.println("📧 [SIMULATION] Email would be sent to: " + toEmail);
-            System.out.println("   Subject: " + message.getSubject());
-            System.out.println("   Content: \n" + message.getText());
-            
-        } catch (Exception e) {
-            System.err.println("Failed to send email: " + e.getMessage());
-        }
+        enqueue(toEmail, "noreply@minari.com", "Order Confirmation - Minari", buildOrderConfirmationEmail(order));
     }
 
     public void sendAdminOrderNotification(Order order) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo("admin@minari.com");
-            message.setSubject("New Order Received - Order #" + order.getOrderNumber());
-            message.setText(String.format("""
+        enqueue("admin@minari.com", "system@minari.com", "New Order Received - Order #" + order.getOrderNumber(),
+                String.format("""
                 A new order has been received!
                 
                 Order Number: %s
@@ -53,30 +39,14 @@ public class EmailService {
                 String.format("%,.0f", order.getTotalAmount()),
                 order.getOrderDate()
             ));
-            message.setFrom("system@minari.com");
-            
-            // SIMULATION MODE
-            System.out.println("📧 [SIMULATION] Admin Notification sent for Order #" + order.getOrderNumber());
-            
-        } catch (Exception e) {
-            System.err.println("Failed to send admin notification: " + e.getMessage());
-        }
     }
     
     public void sendEmail(String toEmail, String subject, String content) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(toEmail);
-            message.setSubject(subject);
-            message.setText(content);
-            message.setFrom("noreply@minari.com");
-            
-            mailSender.send(message);
-            System.out.println("Email sent to: " + toEmail);
-            
-        } catch (Exception e) {
-            System.err.println("Failed to send email: " + e.getMessage());
-        }
+        enqueue(toEmail, "noreply@minari.com", subject, content);
+    }
+
+    private void enqueue(String toEmail, String from, String subject, String content) {
+        outboxRepository.save(new EmailOutbox(toEmail, from, subject, content));
     }
     
     private String buildOrderConfirmationEmail(Order order) {
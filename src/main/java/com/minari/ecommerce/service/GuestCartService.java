@@ -0,0 +1,244 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.dto.CartSessionItem;
+import com.minari.ecommerce.entity.Product;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Guest cart kept entirely in a signed cookie, so anonymous shoppers need no server session.
+ *
+ * The cookie holds only product id + quantity per line, varint-encoded, followed by a
+ * truncated HMAC-SHA256 and base64url-encoded. Names, prices and images are looked up
+ * from CatalogCache when the cart is rendered, so they are always current. A cookie that
+ * is malformed, too large or fails the signature check is treated as an empty cart.
+ *
+ * app.guest-cart.secret must be the same on every instance; when it is empty a random key
+ * is generated and guest carts do not survive a restart.
+ */
+@Service
+public class GuestCartService {
+
+    private static final Logger log = LoggerFactory.getLogger(GuestCartService.class);
+
+    public static final String COOKIE_NAME = "minari_cart";
+
+    private static final byte VERSION = 1;
+    private static final int MAC_LENGTH = 12;
+    private static final int MAX_TOKEN_LENGTH = 2048;
+    private static final int MAX_QUANTITY = 999;
+
+    private final CatalogCache catalogCache;
+    private final SecretKeySpec key;
+    private final int maxLines;
+    private final Duration maxAge;
+
+    public GuestCartService(CatalogCache catalogCache,
+            @Value("${app.guest-cart.secret:}") String secret,
+            @Value("${app.guest-cart.max-lines:50}") int maxLines,
+            @Value("${app.guest-cart.max-age-days:30}") long maxAgeDays) {
+        this.catalogCache = catalogCache;
+        this.maxLines = maxLines;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            log.warn("app.guest-cart.secret is not set; using a random key, guest carts will not survive a restart");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, "HmacSHA256");
+    }
+
+    /**
+     * Lines of the guest cart in the request: product id -> quantity, in the order they were added
+     */
+    public Map<Long, Integer> read(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (COOKIE_NAME.equals(cookie.getName())) {
+                    return decode(cookie.getValue());
+                }
+            }
+        }
+        return Map.of();
+    }
+
+    public Map<Long, Integer> add(HttpServletRequest request, HttpServletResponse response, Long productId, int quantity) {
+        if (!catalogCache.getProductsById(List.of(productId)).containsKey(productId)) {
+            throw new RuntimeException("Product not found");
+        }
+        Map<Long, Integer> lines = new LinkedHashMap<>(read(request));
+        if (!lines.containsKey(productId) && lines.size() >= maxLines) {
+            throw new RuntimeException("Cart is full (max " + maxLines + " products)");
+        }
+        lines.merge(productId, Math.min(Math.max(quantity, 1), MAX_QUANTITY), (a, b) -> Math.min(a + b, MAX_QUANTITY));
+        return write(request, response, lines);
+    }
+
+    /**
+     * Set the quantity of a line; 0 or less removes it
+     */
+    public Map<Long, Integer> update(HttpServletRequest request, HttpServletResponse response, Long productId, int quantity) {
+        Map<Long, Integer> lines = new LinkedHashMap<>(read(request));
+        if (quantity <= 0) {
+            lines.remove(productId);
+        } else if (lines.containsKey(productId)) {
+            lines.put(productId, Math.min(quantity, MAX_QUANTITY));
+        }
+        return write(request, response, lines);
+    }
+
+    public Map<Long, Integer> remove(HttpServletRequest request, HttpServletResponse response, Long productId) {
+        Map<Long, Integer> lines = new LinkedHashMap<>(read(request));
+        lines.remove(productId);
+        return write(request, response, lines);
+    }
+
+    public void clear(HttpServletRequest request, HttpServletResponse response) {
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie(request, "", Duration.ZERO).toString());
+    }
+
+    /**
+     * Display lines with the current name, price and image from the catalog cache;
+     * products that no longer exist are left out
+     */
+    public List<CartSessionItem> toItems(Map<Long, Integer> lines) {
+        if (lines.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> products = catalogCache.getProductsById(lines.keySet());
+        List<CartSessionItem> items = new ArrayList<>(lines.size());
+        lines.forEach((productId, quantity) -> {
+            Product p = products.get(productId);
+            if (p != null) {
+                items.add(new CartSessionItem(
+                        p.getId(), p.getName(), p.getPrice(), "One Size", "Default", quantity, p.getImageUrl()));
+            }
+        });
+        return items;
+    }
+
+    private Map<Long, Integer> write(HttpServletRequest request, HttpServletResponse response, Map<Long, Integer> lines) {
+        if (lines.isEmpty()) {
+            clear(request, response);
+        } else {
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie(request, encode(lines), maxAge).toString());
+        }
+        return Collections.unmodifiableMap(lines);
+    }
+
+    private ResponseCookie cookie(HttpServletRequest request, String value, Duration age) {
+        return ResponseCookie.from(COOKIE_NAME, value)
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(age)
+                .build();
+    }
+
+    // --- Token format: [version][varint lines]([varint productId][varint quantity])* [mac] ---
+
+    String encode(Map<Long, Integer> lines) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + lines.size() * 4 + MAC_LENGTH);
+        out.write(VERSION);
+        writeVarint(out, lines.size());
+        lines.forEach((productId, quantity) -> {
+            writeVarint(out, productId);
+            writeVarint(out, quantity);
+        });
+        byte[] payload = out.toByteArray();
+        out.write(mac(payload), 0, MAC_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    Map<Long, Integer> decode(String token) {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            return Map.of();
+        }
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            if (bytes.length < 2 + MAC_LENGTH || bytes[0] != VERSION) {
+                return Map.of();
+            }
+            byte[] payload = Arrays.copyOf(bytes, bytes.length - MAC_LENGTH);
+            byte[] expected = Arrays.copyOf(mac(payload), MAC_LENGTH);
+            byte[] actual = Arrays.copyOfRange(bytes, payload.length, bytes.length);
+            if (!MessageDigest.isEqual(expected, actual)) {
+                return Map.of();
+            }
+
+            int[] pos = { 1 };
+            long count = readVarint(payload, pos);
+            if (count > maxLines) {
+                return Map.of();
+            }
+            Map<Long, Integer> lines = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                long productId = readVarint(payload, pos);
+                long quantity = readVarint(payload, pos);
+                if (quantity > 0) {
+                    lines.put(productId, (int) Math.min(quantity, MAX_QUANTITY));
+                }
+            }
+            return lines;
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed guest cart cookie: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private byte[] mac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= bytes.length) {
+                throw new IllegalArgumentException("truncated varint");
+            }
+            byte b = bytes[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("varint too long");
+    }
+}
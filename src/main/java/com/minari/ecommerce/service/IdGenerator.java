@@ -0,0 +1,31 @@
+package com.minari.ecommerce.service;
+
+/**
+ * Source of unique, time-ordered ids for business numbers (order, tracking, transaction).
+ * The default is SnowflakeIdGenerator; another implementation can replace it as a @Primary bean.
+ */
+public interface IdGenerator {
+
+    char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    /**
+     * Positive id, unique across nodes and increasing on each node
+     */
+    long nextId();
+
+    /**
+     * prefix + nextId() as 13 Crockford base32 characters; fixed width, so numbers sort in id order
+     */
+    default String next(String prefix) {
+        return prefix + encode(nextId());
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[13];
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
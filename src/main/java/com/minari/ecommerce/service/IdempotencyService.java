@@ -0,0 +1,256 @@
+package com.minari.ecommerce.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a request at most once per client key (checkout token) and replays its result for
+ * retries and double submits.
+ *
+ * The first submission claims the key by inserting an IN_PROGRESS row into idempotency_keys
+ * (committed on its own, so the unique request_key stops concurrent duplicates on every
+ * instance). The action then runs in one transaction with the update that stores its result,
+ * so an order and its COMPLETED key are committed together or not at all. If the action
+ * fails, the claim is removed and the key can be used again.
+ *
+ * A duplicate of a completed key gets the stored result without running anything, from an
+ * LRU map first and from the table otherwise. A duplicate of a key still in progress waits
+ * up to app.idempotency.wait-ms for it to complete. A claim older than
+ * app.idempotency.in-progress-timeout-ms belongs to a request that died before committing
+ * and is taken over. A claim is identified by its created_at (whole seconds, reset on take
+ * over), so a request whose claim was taken over can neither complete nor release the key.
+ * Keys expire after app.idempotency.ttl-minutes.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9_-]{8,64}");
+    private static final String IN_PROGRESS = "IN_PROGRESS";
+    private static final String COMPLETED = "COMPLETED";
+    private static final long POLL_MS = 100;
+
+    private static final String CLAIM_SQL = "INSERT INTO idempotency_keys " +
+            "(request_key, user_id, status, created_at, expires_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String FIND_SQL = "SELECT user_id, status, result, created_at FROM idempotency_keys " +
+            "WHERE request_key = ? AND expires_at > ?";
+    private static final String TAKE_OVER_SQL = "UPDATE idempotency_keys SET created_at = ?, expires_at = ? " +
+            "WHERE request_key = ? AND status = 'IN_PROGRESS' AND created_at = ?";
+    private static final String COMPLETE_SQL = "UPDATE idempotency_keys SET status = 'COMPLETED', result = ? " +
+            "WHERE request_key = ? AND status = 'IN_PROGRESS' AND created_at = ?";
+    private static final String RELEASE_SQL = "DELETE FROM idempotency_keys " +
+            "WHERE request_key = ? AND status = 'IN_PROGRESS' AND created_at = ?";
+    private static final String DELETE_EXPIRED_KEY_SQL = "DELETE FROM idempotency_keys WHERE request_key = ? AND expires_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlMinutes;
+    private final long inProgressTimeoutMs;
+    private final long waitMs;
+    private final int maxEntries;
+
+    // request key -> completed result (LRU, also bounded by the TTL)
+    private final Map<String, Completed> completed;
+
+    public IdempotencyService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${app.idempotency.ttl-minutes:1440}") long ttlMinutes,
+            @Value("${app.idempotency.in-progress-timeout-ms:60000}") long inProgressTimeoutMs,
+            @Value("${app.idempotency.wait-ms:10000}") long waitMs,
+            @Value("${app.idempotency.memory-entries:10000}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlMinutes = ttlMinutes;
+        this.inProgressTimeoutMs = inProgressTimeoutMs;
+        this.waitMs = waitMs;
+        this.maxEntries = maxEntries;
+        this.completed = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completed> eldest) {
+                return size() > IdempotencyService.this.maxEntries;
+            }
+        };
+    }
+
+    public static boolean isValidKey(String key) {
+        return key != null && KEY.matcher(key).matches();
+    }
+
+    /**
+     * Run action once for (scope, key) and return its result; later calls with the same key
+     * return the first result. The action's writes share a transaction with the stored result.
+     */
+    public String execute(String scope, String key, Long userId, Supplier<String> action) {
+        if (!isValidKey(key)) {
+            throw new IllegalArgumentException("Invalid request key");
+        }
+        String requestKey = scope + ":" + key;
+
+        String replay = cached(requestKey, userId);
+        if (replay != null) {
+            return replay;
+        }
+
+        long deadline = System.currentTimeMillis() + waitMs;
+        Timestamp owned;
+        while ((owned = claim(requestKey, userId)) == null) {
+            Map<String, Object> row = find(requestKey);
+            if (row == null) {
+                // Released meanwhile, or expired but not cleaned up yet: free it and claim it again
+                jdbcTemplate.update(DELETE_EXPIRED_KEY_SQL, requestKey, Timestamp.valueOf(LocalDateTime.now()));
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("The request key could not be claimed");
+                }
+                continue;
+            }
+            if (!Objects.equals(toLong(row.get("user_id")), userId)) {
+                throw new IllegalStateException("Request key belongs to another user");
+            }
+            if (COMPLETED.equals(row.get("status"))) {
+                String result = (String) row.get("result");
+                remember(requestKey, userId, result);
+                return result;
+            }
+            Timestamp claimedAt = (Timestamp) row.get("created_at");
+            if (claimedAt.toLocalDateTime().plusNanos(inProgressTimeoutMs * 1_000_000).isBefore(LocalDateTime.now())
+                    && (owned = takeOver(requestKey, claimedAt)) != null) {
+                log.warn("Idempotency: took over stale claim of {}", requestKey);
+                break;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new RequestInProgressException();
+            }
+            try {
+                Thread.sleep(POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the request to complete");
+            }
+        }
+
+        Timestamp ownClaim = owned;
+        try {
+            String result = transactionTemplate.execute(status -> {
+                String value = action.get();
+                if (jdbcTemplate.update(COMPLETE_SQL, value, requestKey, ownClaim) == 0) {
+                    // Our claim was taken over as stale while the action ran; let the other request win
+                    throw new IllegalStateException("Request key was claimed by another request");
+                }
+                return value;
+            });
+            remember(requestKey, userId, result);
+            return result;
+        } catch (RuntimeException e) {
+            release(requestKey, ownClaim);
+            throw e;
+        }
+    }
+
+    /**
+     * Insert the IN_PROGRESS row; returns its created_at, or null if the key is taken
+     */
+    private Timestamp claim(String requestKey, Long userId) {
+        // Whole seconds, so the value compares equal after a DATETIME column without fractions
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        try {
+            requiresNew.executeWithoutResult(status -> jdbcTemplate.update(CLAIM_SQL,
+                    requestKey, userId, IN_PROGRESS, Timestamp.valueOf(now), Timestamp.valueOf(now.plusMinutes(ttlMinutes))));
+            return Timestamp.valueOf(now);
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Move a stale claim to this request; returns its new created_at, or null if another request got it first
+     */
+    private Timestamp takeOver(String requestKey, Timestamp claimedAt) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Integer updated = requiresNew.execute(status -> jdbcTemplate.update(TAKE_OVER_SQL,
+                Timestamp.valueOf(now), Timestamp.valueOf(now.plusMinutes(ttlMinutes)), requestKey, claimedAt));
+        return updated != null && updated > 0 ? Timestamp.valueOf(now) : null;
+    }
+
+    private void release(String requestKey, Timestamp claim) {
+        try {
+            requiresNew.executeWithoutResult(status -> jdbcTemplate.update(RELEASE_SQL, requestKey, claim));
+        } catch (Exception e) {
+            log.error("Idempotency: could not release {}, it frees up after the in-progress timeout", requestKey, e);
+        }
+    }
+
+    private Map<String, Object> find(String requestKey) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(FIND_SQL, requestKey, Timestamp.valueOf(LocalDateTime.now()));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private String cached(String requestKey, Long userId) {
+        synchronized (completed) {
+            Completed entry = completed.get(requestKey);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt.isBefore(LocalDateTime.now())) {
+                completed.remove(requestKey);
+                return null;
+            }
+            return Objects.equals(entry.userId, userId) ? entry.result : null;
+        }
+    }
+
+    private void remember(String requestKey, Long userId, String result) {
+        synchronized (completed) {
+            completed.put(requestKey, new Completed(userId, result, LocalDateTime.now().plusMinutes(ttlMinutes)));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:600000}")
+    public void deleteExpired() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at < ?",
+                    Timestamp.valueOf(LocalDateTime.now()));
+            if (deleted > 0) {
+                log.debug("Idempotency: deleted {} expired keys", deleted);
+            }
+        } catch (Exception e) {
+            log.error("Idempotency: deleting expired keys failed", e);
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private record Completed(Long userId, String result, LocalDateTime expiresAt) {
+    }
+
+    /**
+     * Thrown to a duplicate whose first submission did not complete within app.idempotency.wait-ms
+     */
+    public static class RequestInProgressException extends RuntimeException {
+        public RequestInProgressException() {
+            super("The request is still being processed");
+        }
+    }
+}
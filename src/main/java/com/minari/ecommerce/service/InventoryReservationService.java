@@ -0,0 +1,196 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.entity.CartItem;
+import com.minari.ecommerce.entity.StockReservation;
+import com.minari.ecommerce.repository.StockReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Stock reservation engine for checkout.
+ *
+ * Stock is never read-modified-written in Java: every change is a conditional
+ * UPDATE on products.stock_quantity, sent as one JDBC batch per order. Lines are
+ * applied in product-id order so concurrent checkouts lock rows in the same order.
+ *
+ * Holds taken when checkout starts (POST /payment) are stored in stock_reservations with a TTL.
+ * A hold row is "claimed" by deleting it, so the order and the sweeper can never
+ * both consume the same hold.
+ */
+@Service
+public class InventoryReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReservationService.class);
+
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+    private static final String INCREMENT_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+    private static final String CLAIM_SQL = "DELETE FROM stock_reservations WHERE id = ?";
+
+    private final StockReservationRepository reservationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long reservationTtlMinutes;
+
+    public InventoryReservationService(StockReservationRepository reservationRepository,
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.inventory.reservation-ttl-minutes:15}") long reservationTtlMinutes) {
+        this.reservationRepository = reservationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.reservationTtlMinutes = reservationTtlMinutes;
+    }
+
+    /**
+     * Sum cart lines per product, ordered by product ID
+     */
+    public Map<Long, Integer> quantitiesOf(Collection<CartItem> items) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CartItem item : items) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    /**
+     * Hold stock for a checkout in progress. Replaces any previous holds of the same holder.
+     * Runs in its own short transaction so the product rows are not locked while the customer
+     * is still on the payment page.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void reserve(String holderKey, Map<Long, Integer> quantities) {
+        releaseHolds(reservationRepository.findByHolderKey(holderKey));
+        decrementOrFail(quantities);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(reservationTtlMinutes);
+        List<StockReservation> holds = new ArrayList<>();
+        quantities.forEach((productId, quantity) ->
+                holds.add(new StockReservation(holderKey, productId, quantity, expiresAt)));
+        reservationRepository.saveAll(holds);
+        log.info("Reserved stock for {}: {} (expires {})", holderKey, quantities, expiresAt);
+    }
+
+    /**
+     * Turn the holder's holds into a permanent deduction for the given order lines.
+     * Lines without a (live) hold are decremented now; held stock not needed by the
+     * order is given back. Joins the caller's transaction, so a failure rolls back the order.
+     */
+    @Transactional
+    public void commit(String holderKey, Map<Long, Integer> quantities) {
+        Map<Long, Integer> held = claim(reservationRepository.findByHolderKey(holderKey));
+
+        Map<Long, Integer> toDecrement = new TreeMap<>();
+        Map<Long, Integer> toRestore = new TreeMap<>(held);
+        quantities.forEach((productId, quantity) -> {
+            int diff = quantity - held.getOrDefault(productId, 0);
+            toRestore.remove(productId);
+            if (diff > 0) {
+                toDecrement.put(productId, diff);
+            } else if (diff < 0) {
+                toRestore.put(productId, -diff);
+            }
+        });
+
+        decrementOrFail(toDecrement);
+        increment(toRestore);
+    }
+
+    /**
+     * Give back all stock held by a holder (e.g. checkout abandoned or failed)
+     */
+    @Transactional
+    public void release(String holderKey) {
+        releaseHolds(reservationRepository.findByHolderKey(holderKey));
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.sweep-interval-ms:30000}")
+    @Transactional
+    public void releaseExpiredHolds() {
+        List<StockReservation> expired = reservationRepository
+                .findTop500ByExpiresAtBeforeOrderByExpiresAtAsc(LocalDateTime.now());
+        if (expired.isEmpty()) {
+            return;
+        }
+        int released = releaseHolds(expired);
+        log.info("Released {} expired stock reservations", released);
+    }
+
+    private int releaseHolds(List<StockReservation> holds) {
+        Map<Long, Integer> claimed = claim(holds);
+        increment(claimed);
+        return claimed.size();
+    }
+
+    /**
+     * Delete the given hold rows and return the quantities of the rows this transaction actually removed
+     */
+    private Map<Long, Integer> claim(List<StockReservation> holds) {
+        Map<Long, Integer> claimed = new TreeMap<>();
+        if (holds.isEmpty()) {
+            return claimed;
+        }
+        List<Object[]> args = new ArrayList<>();
+        for (StockReservation hold : holds) {
+            args.add(new Object[] { hold.getId() });
+        }
+        int[] counts = jdbcTemplate.batchUpdate(CLAIM_SQL, args);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                StockReservation hold = holds.get(i);
+                claimed.merge(hold.getProductId(), hold.getQuantity(), Integer::sum);
+            }
+        }
+        return claimed;
+    }
+
+    private void decrementOrFail(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        List<Object[]> args = new ArrayList<>();
+        for (Long productId : productIds) {
+            int quantity = quantities.get(productId);
+            args.add(new Object[] { quantity, productId, quantity });
+        }
+        // With MySQL's rewriteBatchedStatements (prod) only INSERT batches are folded into one
+        // statement and report SUCCESS_NO_INFO; UPDATE batches are sent as a multi-statement
+        // and still return one row count per line, which the check below relies on
+        int[] counts = jdbcTemplate.batchUpdate(DECREMENT_SQL, args);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                throw new RuntimeException("Not enough stock for product #" + productIds.get(i));
+            }
+        }
+        stockChanged(productIds);
+    }
+
+    private void increment(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> args.add(new Object[] { quantity, productId }));
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, args);
+        stockChanged(quantities.keySet());
+    }
+
+    /**
+     * Cached products show stock; CatalogCache re-reads it for these products after commit
+     */
+    private void stockChanged(Collection<Long> productIds) {
+        eventPublisher.publishEvent(CatalogChangedEvent.stock(productIds));
+    }
+}
@@ -0,0 +1,438 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.config.OrderArchiveMigration;
+import com.minari.ecommerce.dto.OrderProjection;
+import com.minari.ecommerce.entity.Order;
+import com.minari.ecommerce.entity.OrderItem;
+import com.minari.ecommerce.entity.OrderStatus;
+import com.minari.ecommerce.entity.Payment;
+import com.minari.ecommerce.entity.PaymentMethod;
+import com.minari.ecommerce.entity.PaymentStatus;
+import com.minari.ecommerce.entity.Shipment;
+import com.minari.ecommerce.entity.ShipmentStatus;
+import com.minari.ecommerce.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Moves finished orders (delivered, cancelled, returned, refunded, exchanged) older than
+ * app.orders.archive.age-days out of the transactional tables into *_archive copies of
+ * orders, order_items, order_logs, payments, shipments and shipment_logs.
+ *
+ * Orders are moved oldest id first in chunks of app.orders.archive.batch-size, one
+ * transaction per chunk: the chunk's order rows are locked, copied with INSERT ... SELECT and
+ * deleted, so a run that stops halfway (crash, restart, max-batches reached) simply
+ * continues with the next chunk on the following run.
+ *
+ * Archived orders stay readable: OrderService falls back to this service for order lookups
+ * by number or id, the order detail page and the customer's order history. Reports keep
+ * their figures because the sales rollups already contain archived orders (rebuild() reads
+ * both tables), and the per-status counts and totals of the archive are kept in
+ * order_archive_totals for the order statistics.
+ *
+ * The archive tables are created by OrderArchiveMigration. If a source table later gains a
+ * column the archive lacks, archiving is disabled until the column is added to the archive table.
+ */
+@Service
+public class OrderArchiveService implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    static final String SUFFIX = OrderArchiveMigration.SUFFIX;
+
+    // Source tables in copy order (parents first); deleted in reverse order
+    private static final List<String> TABLES = OrderArchiveMigration.TABLES;
+
+    // Rows of each table that belong to the orders of a chunk; "?" is the id placeholder list
+    private static final Map<String, String> CHUNK_FILTERS = Map.of(
+            "orders", "id IN (?)",
+            "order_items", "order_id IN (?)",
+            "order_logs", "order_id IN (?)",
+            "payments", "order_id IN (?)",
+            "shipments", "order_id IN (?)",
+            "shipment_logs", "shipment_id IN (SELECT id FROM shipments WHERE order_id IN (?))");
+
+    private static final String HEADER_SQL = "SELECT o.id AS id, o.order_number AS orderNumber, o.status AS status, " +
+            "o.customer_id AS customerId, c.full_name AS customerName, o.user_id AS userId, u.full_name AS userName, " +
+            "o.total_amount AS totalAmount, o.subtotal_amount AS subtotalAmount, o.tax_amount AS taxAmount, " +
+            "o.shipping_cost AS shippingCost, o.discount_amount AS discountAmount, " +
+            "a.street_address AS streetAddress, a.city AS city, a.state AS state, a.zipcode AS zipcode, a.country AS country, " +
+            "p.status AS paymentStatus, p.payment_method AS paymentMethod, " +
+            "o.order_date AS orderDate, o.updated_at AS updatedAt, " +
+            "s.current_status AS shipmentStatus, s.tracking_number AS trackingNumber " +
+            "FROM orders_archive o LEFT JOIN users c ON c.id = o.customer_id LEFT JOIN users u ON u.id = o.user_id " +
+            "LEFT JOIN addresses a ON a.id = o.shipping_address_id " +
+            "LEFT JOIN payments_archive p ON p.order_id = o.id LEFT JOIN shipments_archive s ON s.order_id = o.id " +
+            "WHERE o.id IN ";
+    private static final String ITEM_SQL = "SELECT id, order_id AS orderId, product_id AS productId, " +
+            "product_name AS productName, product_sku AS productSku, quantity, unit_price AS unitPrice, " +
+            "total_price AS totalPrice, variant_info AS variantInfo, image_url AS imageUrl " +
+            "FROM order_items_archive WHERE order_id IN ";
+    private static final String SUMMARY_SQL = "SELECT o.id AS id, o.order_number AS orderNumber, " +
+            "o.order_date AS orderDate, o.status AS status, o.total_amount AS totalAmount, " +
+            "(SELECT COUNT(*) FROM order_items_archive li WHERE li.order_id = o.id) AS lineCount, " +
+            "(SELECT COALESCE(SUM(qi.quantity), 0) FROM order_items_archive qi WHERE qi.order_id = o.id) AS itemCount, " +
+            "(SELECT fi.product_name FROM order_items_archive fi WHERE fi.id = " +
+            "(SELECT MIN(mi.id) FROM order_items_archive mi WHERE mi.order_id = o.id)) AS firstItemName, " +
+            "(SELECT ti.image_url FROM order_items_archive ti WHERE ti.id = " +
+            "(SELECT MIN(ni.id) FROM order_items_archive ni WHERE ni.order_id = o.id)) AS thumbnailUrl " +
+            "FROM orders_archive o WHERE o.user_id = ? ORDER BY o.order_date DESC, o.id DESC LIMIT ? OFFSET ?";
+
+    private static final String UPDATE_TOTALS_SQL = "UPDATE order_archive_totals SET order_count = order_count + ?, " +
+            "total_amount = total_amount + ? WHERE status = ?";
+    private static final String INSERT_TOTALS_SQL = "INSERT INTO order_archive_totals (status, order_count, total_amount) " +
+            "VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderArchiveMigration archiveMigration;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
+    @Value("${app.orders.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.orders.archive.age-days:365}")
+    private int ageDays;
+
+    @Value("${app.orders.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.orders.archive.max-batches:200}")
+    private int maxBatches;
+
+    @Value("${app.orders.archive.statuses:DELIVERED,CANCELLED,RETURNED,REFUNDED,EXCHANGED}")
+    private List<String> statuses;
+
+    // Archive tables exist and have every column of their sources
+    private volatile boolean ready;
+    // source table -> column list used for the copy
+    private Map<String, String> copyColumns = Map.of();
+
+    // UserRepository also makes sure the EntityManagerFactory (and with it the schema) is ready first
+    public OrderArchiveService(JdbcTemplate jdbcTemplate, OrderArchiveMigration archiveMigration,
+            PlatformTransactionManager transactionManager, UserRepository userRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveMigration = archiveMigration;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Check that the archive tables exist and still match their sources
+     */
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            Map<String, String> columns = archiveMigration.copyColumns();
+            if (columns != null) {
+                copyColumns = columns;
+                ready = true;
+            }
+        } catch (Exception e) {
+            log.error("Order archive: could not check the archive tables, archiving disabled", e);
+        }
+    }
+
+    @Scheduled(cron = "${app.orders.archive.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * Archive due orders, chunk by chunk, until none are left or max-batches chunks were moved
+     */
+    public synchronized Map<String, Object> archive() {
+        Map<String, Object> result = new HashMap<>();
+        if (!ready) {
+            result.put("archived", 0);
+            result.put("error", "Archive tables are not ready, see the startup log");
+            return result;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(ageDays);
+        String statusList = statuses.stream()
+                .map(s -> "'" + OrderStatus.valueOf(s.trim().toUpperCase()).name() + "'")
+                .collect(Collectors.joining(", "));
+
+        long start = System.currentTimeMillis();
+        int moved = 0;
+        int chunks = 0;
+        try {
+            while (chunks < maxBatches) {
+                Integer count = transactionTemplate.execute(status -> archiveChunk(statusList, cutoff));
+                if (count == null || count == 0) {
+                    break;
+                }
+                moved += count;
+                chunks++;
+            }
+        } catch (Exception e) {
+            // The failed chunk was rolled back; the next run starts with it again
+            log.error("Order archive: run stopped after {} orders", moved, e);
+            result.put("error", e.getMessage());
+        }
+        if (moved > 0) {
+            log.info("Order archive: moved {} orders older than {} in {} chunks ({} ms)",
+                    moved, cutoff, chunks, System.currentTimeMillis() - start);
+        }
+        result.put("archived", moved);
+        result.put("batches", chunks);
+        result.put("cutoff", cutoff.toString());
+        result.put("complete", chunks < maxBatches && !result.containsKey("error"));
+        return result;
+    }
+
+    private int archiveChunk(String statusList, LocalDateTime cutoff) {
+        // Lock the chunk so no status change slips in between the copy and the delete
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM orders WHERE status IN (" + statusList + ") " +
+                "AND order_date < ? ORDER BY id LIMIT ? FOR UPDATE", Long.class, Timestamp.valueOf(cutoff), batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Object[] args = ids.toArray();
+        String placeholders = placeholders(ids.size());
+
+        List<Object[]> totals = jdbcTemplate.query("SELECT status, COUNT(*), COALESCE(SUM(total_amount), 0) FROM orders " +
+                "WHERE id IN (" + placeholders + ") GROUP BY status",
+                (rs, i) -> new Object[] { rs.getString(1), rs.getLong(2), rs.getDouble(3) }, args);
+
+        for (String table : TABLES) {
+            String columns = copyColumns.get(table);
+            jdbcTemplate.update("INSERT INTO " + table + SUFFIX + " (" + columns + ") SELECT " + columns +
+                    " FROM " + table + " WHERE " + filter(table, placeholders), args);
+        }
+        for (int i = TABLES.size() - 1; i >= 0; i--) {
+            String table = TABLES.get(i);
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE " + filter(table, placeholders), args);
+        }
+
+        for (Object[] row : totals) {
+            if (jdbcTemplate.update(UPDATE_TOTALS_SQL, row[1], row[2], row[0]) == 0) {
+                jdbcTemplate.update(INSERT_TOTALS_SQL, row[0], row[1], row[2]);
+            }
+        }
+        return ids.size();
+    }
+
+    // --- Reads ---
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Optional<Long> findIdByOrderNumber(String orderNumber) {
+        if (!ready || orderNumber == null) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM orders_archive WHERE order_number = ?", Long.class, orderNumber)
+                .stream().findFirst();
+    }
+
+    /**
+     * Archived orders in the same read model as OrderRepository.findHeadersByIdIn
+     */
+    public List<OrderProjection.Header> findHeadersByIdIn(Collection<Long> ids) {
+        return headerRows(ids).stream()
+                .map(row -> projectionFactory.createProjection(OrderProjection.Header.class, row))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lines of archived orders, like OrderItemRepository.findViewsByOrderIdIn
+     */
+    public List<OrderProjection.Item> findItemsByOrderIdIn(Collection<Long> ids) {
+        if (!ready || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.queryForList(ITEM_SQL + "(" + placeholders(ids.size()) + ") ORDER BY id", ids.toArray())
+                .stream()
+                .map(row -> {
+                    longValue(row, "id");
+                    longValue(row, "orderId");
+                    longValue(row, "productId");
+                    if (row.get("quantity") != null) {
+                        row.put("quantity", ((Number) row.get("quantity")).intValue());
+                    }
+                    doubleValue(row, "unitPrice");
+                    doubleValue(row, "totalPrice");
+                    return projectionFactory.createProjection(OrderProjection.Item.class, row);
+                })
+                .collect(Collectors.toList());
+    }
+
+    public long countByUserId(Long userId) {
+        if (!ready || userId == null) {
+            return 0;
+        }
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders_archive WHERE user_id = ?", Long.class, userId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Order history rows of archived orders, newest first
+     */
+    public List<OrderProjection.Summary> findSummariesByUserId(Long userId, long offset, int limit) {
+        if (!ready || userId == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.queryForList(SUMMARY_SQL, userId, limit, offset).stream()
+                .map(row -> {
+                    longValue(row, "id");
+                    longValue(row, "lineCount");
+                    longValue(row, "itemCount");
+                    doubleValue(row, "totalAmount");
+                    dateValue(row, "orderDate");
+                    enumValue(row, "status", OrderStatus.class);
+                    return projectionFactory.createProjection(OrderProjection.Summary.class, row);
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A detached Order rebuilt from the archive for the order detail page (lines, payment
+     * method, shipment); never save it
+     */
+    public Order findOrder(Long id) {
+        List<Map<String, Object>> rows = headerRows(id != null ? List.of(id) : List.of());
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> row = rows.get(0);
+        Order order = new Order();
+        order.setId((Long) row.get("id"));
+        order.setOrderNumber((String) row.get("orderNumber"));
+        order.setStatus((OrderStatus) row.get("status"));
+        if (row.get("userId") != null) {
+            order.setUser(userRepository.getReferenceById((Long) row.get("userId")));
+        }
+        order.setTotalAmount((Double) row.get("totalAmount"));
+        order.setSubtotalAmount((Double) row.get("subtotalAmount"));
+        order.setTaxAmount((Double) row.get("taxAmount"));
+        order.setShippingCost((Double) row.get("shippingCost"));
+        order.setDiscountAmount((Double) row.get("discountAmount"));
+        order.setOrderDate((LocalDateTime) row.get("orderDate"));
+        order.setUpdatedAt((LocalDateTime) row.get("updatedAt"));
+
+        for (OrderProjection.Item line : findItemsByOrderIdIn(List.of(id))) {
+            OrderItem item = new OrderItem();
+            item.setId(line.getId());
+            item.setOrder(order);
+            item.setProductName(line.getProductName());
+            item.setProductSku(line.getProductSku());
+            item.setQuantity(line.getQuantity());
+            item.setUnitPrice(line.getUnitPrice());
+            item.setTotalPrice(line.getTotalPrice());
+            item.setVariantInfo(line.getVariantInfo());
+            item.setImageUrl(line.getImageUrl());
+            order.getItems().add(item);
+        }
+        if (row.get("paymentMethod") != null) {
+            Payment payment = new Payment();
+            payment.setOrder(order);
+            payment.setPaymentMethod((PaymentMethod) row.get("paymentMethod"));
+            payment.setStatus((PaymentStatus) row.get("paymentStatus"));
+            payment.setAmount(order.getTotalAmount());
+            order.setPayment(payment);
+        }
+        if (row.get("trackingNumber") != null || row.get("shipmentStatus") != null) {
+            Shipment shipment = new Shipment();
+            shipment.setOrder(order);
+            shipment.setOrderNumber(order.getOrderNumber());
+            shipment.setTrackingNumber((String) row.get("trackingNumber"));
+            shipment.setCurrentStatus((ShipmentStatus) row.get("shipmentStatus"));
+            order.setShipment(shipment);
+        }
+        return order;
+    }
+
+    /**
+     * Archived orders per status: status -> [order count, total amount]
+     */
+    public Map<OrderStatus, Number[]> getTotals() {
+        Map<OrderStatus, Number[]> totals = new EnumMap<>(OrderStatus.class);
+        if (!ready) {
+            return totals;
+        }
+        jdbcTemplate.query("SELECT status, order_count, total_amount FROM order_archive_totals", rs -> {
+            totals.put(OrderStatus.valueOf(rs.getString(1)), new Number[] { rs.getLong(2), rs.getDouble(3) });
+        });
+        return totals;
+    }
+
+    // --- Helpers ---
+
+    private List<Map<String, Object>> headerRows(Collection<Long> ids) {
+        if (!ready || ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                HEADER_SQL + "(" + placeholders(ids.size()) + ")", ids.toArray());
+        for (Map<String, Object> row : rows) {
+            longValue(row, "id");
+            longValue(row, "customerId");
+            longValue(row, "userId");
+            for (String amount : new String[] { "totalAmount", "subtotalAmount", "taxAmount", "shippingCost", "discountAmount" }) {
+                doubleValue(row, amount);
+            }
+            dateValue(row, "orderDate");
+            dateValue(row, "updatedAt");
+            enumValue(row, "status", OrderStatus.class);
+            enumValue(row, "paymentStatus", PaymentStatus.class);
+            enumValue(row, "paymentMethod", PaymentMethod.class);
+            enumValue(row, "shipmentStatus", ShipmentStatus.class);
+        }
+        return rows;
+    }
+
+    // Column maps from JdbcTemplate are case-insensitive, so the camelCase aliases work on every database
+
+    private static void longValue(Map<String, Object> row, String key) {
+        if (row.get(key) instanceof Number number) {
+            row.put(key, number.longValue());
+        }
+    }
+
+    private static void doubleValue(Map<String, Object> row, String key) {
+        if (row.get(key) instanceof Number number) {
+            row.put(key, number.doubleValue());
+        }
+    }
+
+    private static void dateValue(Map<String, Object> row, String key) {
+        if (row.get(key) instanceof Timestamp timestamp) {
+            row.put(key, timestamp.toLocalDateTime());
+        }
+    }
+
+    private static <E extends Enum<E>> void enumValue(Map<String, Object> row, String key, Class<E> type) {
+        if (row.get(key) instanceof String value) {
+            row.put(key, Enum.valueOf(type, value));
+        }
+    }
+
+    private static String filter(String table, String placeholders) {
+        return CHUNK_FILTERS.get(table).replace("?", placeholders);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,363 @@
+package com.minari.ecommerce.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Admin order search by order number, tracking number, customer name, email or phone.
+ *
+ * Every lookup is an index range scan on a prefix (LIKE 'abc%'), never a leading wildcard:
+ * - order numbers through the unique index on orders.order_number
+ * - tracking numbers through idx_shipments_tracking_number
+ * - name tokens, email and phone digits through customer_search_terms, a lookup table of
+ *   normalized terms per user (lower-cased, accents stripped; phones as digits, with both the
+ *   0 and 62 forms of Indonesian numbers); the matching users' orders come from
+ *   idx_orders_user_date
+ *
+ * Each source returns at most app.orders.search.max-candidates orders. Candidates are ranked
+ * by how they matched (exact order number, exact tracking number, prefixes, then customer
+ * matches, where every query word must match a term of the customer) and then newest first.
+ *
+ * customer_search_terms is filled for every user without terms on startup. Every
+ * app.orders.search.index-interval-ms the users above the highest indexed id minus
+ * app.orders.search.index-lookback are checked again, so a user committed after one with a
+ * higher id is still picked up. A user's terms are rewritten on UserChangedEvent.
+ */
+@Service
+public class OrderSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSearchService.class);
+
+    private static final double ORDER_NUMBER_EXACT = 100;
+    private static final double TRACKING_EXACT = 90;
+    private static final double ORDER_NUMBER_PREFIX = 70;
+    private static final double TRACKING_PREFIX = 60;
+    private static final double EMAIL_WEIGHT = 50;
+    private static final double PHONE_WEIGHT = 45;
+    private static final double NAME_WEIGHT = 30;
+    private static final double PREFIX_FACTOR = 0.7;
+
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final int MAX_TERM_LENGTH = 100;
+    private static final int MAX_QUERY_TOKENS = 5;
+    private static final int MAX_USERS = 200;
+    private static final int INDEX_BATCH_SIZE = 1000;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern PHONE_LIKE = Pattern.compile("\\+?[0-9][0-9 ()-]*");
+
+    private static final String ORDER_NUMBER_SQL = "SELECT id, order_number, order_date FROM orders " +
+            "WHERE order_number LIKE ? ESCAPE '!' ORDER BY order_number DESC LIMIT ?";
+    private static final String TRACKING_SQL = "SELECT o.id, s.tracking_number, o.order_date FROM shipments s " +
+            "JOIN orders o ON o.id = s.order_id WHERE s.tracking_number LIKE ? ESCAPE '!' " +
+            "ORDER BY s.tracking_number DESC LIMIT ?";
+    // In index order: the same rows survive the LIMIT on every call, exact terms first
+    private static final String TERM_SQL = "SELECT user_id, term, field FROM customer_search_terms " +
+            "WHERE term LIKE ? ESCAPE '!' ORDER BY term, user_id LIMIT ?";
+    private static final String INSERT_TERM_SQL = "INSERT INTO customer_search_terms (user_id, term, field) VALUES (?, ?, ?)";
+    private static final String DELETE_TERMS_SQL = "DELETE FROM customer_search_terms WHERE user_id = ?";
+    private static final String UNINDEXED_USERS_SQL = "SELECT u.id, u.full_name, u.email, u.phone FROM users u " +
+            "WHERE u.id > ? AND NOT EXISTS (SELECT 1 FROM customer_search_terms t WHERE t.user_id = u.id) " +
+            "ORDER BY u.id LIMIT ?";
+    private static final String USER_SQL = "SELECT id, full_name, email, phone FROM users WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxCandidates;
+    private final long indexLookback;
+
+    public OrderSearchService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${app.orders.search.max-candidates:500}") int maxCandidates,
+            @Value("${app.orders.search.index-lookback:1000}") long indexLookback) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxCandidates = maxCandidates;
+        this.indexLookback = indexLookback;
+    }
+
+    /**
+     * Ids of the matching orders for the requested page, best match first
+     */
+    public Page<Long> search(String query, Pageable pageable) {
+        long start = System.nanoTime();
+        String q = query != null ? query.trim() : "";
+        if (q.length() < MIN_TERM_LENGTH) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+
+        // orderId -> {score, order date millis}
+        Map<Long, double[]> hits = new HashMap<>();
+        if (q.indexOf(' ') < 0 && q.indexOf('@') < 0) {
+            String upper = q.toUpperCase(Locale.ROOT);
+            jdbcTemplate.query(ORDER_NUMBER_SQL, rs -> {
+                addHit(hits, rs.getLong(1), upper.equals(rs.getString(2)) ? ORDER_NUMBER_EXACT : ORDER_NUMBER_PREFIX,
+                        rs.getTimestamp(3));
+            }, escape(upper) + "%", maxCandidates);
+            for (String tracking : upper.equals(q) ? List.of(q) : List.of(upper, q)) {
+                jdbcTemplate.query(TRACKING_SQL, rs -> {
+                    String found = rs.getString(2);
+                    addHit(hits, rs.getLong(1), found != null && found.equalsIgnoreCase(q) ? TRACKING_EXACT : TRACKING_PREFIX,
+                            rs.getTimestamp(3));
+                }, escape(tracking) + "%", maxCandidates);
+            }
+        }
+        searchCustomers(q, hits);
+
+        List<Long> ranked = hits.entrySet().stream()
+                .sorted((a, b) -> {
+                    int byScore = Double.compare(b.getValue()[0], a.getValue()[0]);
+                    if (byScore != 0) {
+                        return byScore;
+                    }
+                    int byDate = Double.compare(b.getValue()[1], a.getValue()[1]);
+                    return byDate != 0 ? byDate : Long.compare(b.getKey(), a.getKey());
+                })
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        long micros = (System.nanoTime() - start) / 1000;
+        log.debug("Order search '{}': {} hits in {} us", q, ranked.size(), micros);
+        return new PageImpl<>(new ArrayList<>(ranked.subList(from, to)), pageable, ranked.size());
+    }
+
+    /**
+     * Orders of customers with a term for every query word; each word scores its best field
+     */
+    private void searchCustomers(String q, Map<Long, double[]> hits) {
+        List<String> tokens = queryTokens(q);
+        if (tokens.isEmpty() || tokens.size() > MAX_QUERY_TOKENS) {
+            return;
+        }
+        Map<Long, Double> userScores = null;
+        for (String token : tokens) {
+            Map<Long, Double> tokenScores = new HashMap<>();
+            jdbcTemplate.query(TERM_SQL, rs -> {
+                String term = rs.getString(2);
+                double weight = fieldWeight(rs.getString(3)) * (token.equals(term) ? 1 : PREFIX_FACTOR);
+                tokenScores.merge(rs.getLong(1), weight, Math::max);
+            }, escape(token) + "%", maxCandidates * 4);
+
+            if (userScores == null) {
+                userScores = tokenScores;
+            } else {
+                userScores.keySet().retainAll(tokenScores.keySet());
+                userScores.replaceAll((userId, score) -> score + tokenScores.get(userId));
+            }
+            if (userScores.isEmpty()) {
+                return;
+            }
+        }
+
+        Map<Long, Double> users = userScores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(MAX_USERS)
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue() / tokens.size()));
+        String placeholders = String.join(", ", Collections.nCopies(users.size(), "?"));
+        List<Object> args = new ArrayList<>(users.keySet());
+        args.add(maxCandidates);
+        jdbcTemplate.query("SELECT id, user_id, order_date FROM orders WHERE user_id IN (" + placeholders + ") " +
+                "ORDER BY order_date DESC LIMIT ?", rs -> {
+            addHit(hits, rs.getLong(1), users.get(rs.getLong(2)), rs.getTimestamp(3));
+        }, args.toArray());
+    }
+
+    private static void addHit(Map<Long, double[]> hits, long orderId, double score, Timestamp orderDate) {
+        double date = orderDate != null ? orderDate.getTime() : 0;
+        hits.merge(orderId, new double[] { score, date }, (a, b) -> a[0] >= b[0] ? a : b);
+    }
+
+    private static double fieldWeight(String field) {
+        return switch (field) {
+            case "EMAIL" -> EMAIL_WEIGHT;
+            case "PHONE" -> PHONE_WEIGHT;
+            default -> NAME_WEIGHT;
+        };
+    }
+
+    // --- Indexing ---
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        indexUsersAfter(0);
+    }
+
+    /**
+     * Index users without terms near or above the highest indexed id. Ids are handed out before
+     * commit, so a user can become visible after one with a higher id; the lookback covers that.
+     */
+    @Scheduled(fixedDelayString = "${app.orders.search.index-interval-ms:60000}",
+            initialDelayString = "${app.orders.search.index-interval-ms:60000}")
+    public void indexNewUsers() {
+        Long last;
+        try {
+            last = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM customer_search_terms", Long.class);
+        } catch (Exception e) {
+            log.error("Order search: reading the highest indexed user failed", e);
+            return;
+        }
+        indexUsersAfter(last != null ? Math.max(last - indexLookback, 0) : 0);
+    }
+
+    private synchronized void indexUsersAfter(long afterId) {
+        try {
+            int total = 0;
+            while (true) {
+                List<Object[]> users = jdbcTemplate.query(UNINDEXED_USERS_SQL, (rs, i) -> new Object[] {
+                        rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4) }, afterId, INDEX_BATCH_SIZE);
+                if (users.isEmpty()) {
+                    break;
+                }
+                List<Object[]> rows = new ArrayList<>();
+                for (Object[] user : users) {
+                    rows.addAll(termRows((Long) user[0], (String) user[1], (String) user[2], (String) user[3]));
+                }
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_TERM_SQL, rows));
+                afterId = (Long) users.get(users.size() - 1)[0];
+                total += users.size();
+            }
+            if (total > 0) {
+                log.info("Order search: indexed {} new users", total);
+            }
+        } catch (Exception e) {
+            log.error("Order search: indexing new users failed", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getUserId() == null) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // A user without terms is not indexed yet; indexNewUsers picks it up
+                if (jdbcTemplate.update(DELETE_TERMS_SQL, event.getUserId()) == 0) {
+                    return;
+                }
+                List<Object[]> rows = new ArrayList<>();
+                jdbcTemplate.query(USER_SQL, rs -> {
+                    rows.addAll(termRows(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+                }, event.getUserId());
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_TERM_SQL, rows);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Order search: reindexing user #{} failed", event.getUserId(), e);
+        }
+    }
+
+    // --- Normalization ---
+
+    /**
+     * {userId, term, field} rows for one user; a user always has at least the email term
+     */
+    static List<Object[]> termRows(Long userId, String fullName, String email, String phone) {
+        Set<String> seen = new HashSet<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (String token : textTokens(fullName)) {
+            addTerm(rows, seen, userId, token, "NAME");
+        }
+        if (email != null && !email.isBlank()) {
+            addTerm(rows, seen, userId, email.trim().toLowerCase(Locale.ROOT), "EMAIL");
+        }
+        for (String digits : phoneForms(phone)) {
+            addTerm(rows, seen, userId, digits, "PHONE");
+        }
+        return rows;
+    }
+
+    private static void addTerm(List<Object[]> rows, Set<String> seen, Long userId, String term, String field) {
+        if (term.length() > MAX_TERM_LENGTH) {
+            term = term.substring(0, MAX_TERM_LENGTH);
+        }
+        if (seen.add(field + ":" + term)) {
+            rows.add(new Object[] { userId, term, field });
+        }
+    }
+
+    /**
+     * Query words as they are stored: emails whole, phone numbers as digits, other text as name tokens
+     */
+    static List<String> queryTokens(String query) {
+        List<String> tokens = new ArrayList<>();
+        if (PHONE_LIKE.matcher(query).matches()) {
+            String digits = query.replaceAll("[^0-9]", "");
+            if (digits.length() >= MIN_TERM_LENGTH) {
+                tokens.add(digits);
+            }
+            return tokens;
+        }
+        for (String word : query.trim().split("\\s+")) {
+            if (word.indexOf('@') >= 0) {
+                tokens.add(word.toLowerCase(Locale.ROOT));
+            } else {
+                tokens.addAll(textTokens(word));
+            }
+        }
+        tokens.removeIf(token -> token.length() < MIN_TERM_LENGTH);
+        return tokens;
+    }
+
+    static List<String> textTokens(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Digits of the phone number, plus the other national form: 0812... <-> 62812...
+     */
+    static List<String> phoneForms(String phone) {
+        if (phone == null) {
+            return List.of();
+        }
+        String digits = phone.replaceAll("[^0-9]", "");
+        if (digits.length() < MIN_TERM_LENGTH) {
+            return List.of();
+        }
+        if (digits.startsWith("62")) {
+            return List.of(digits, "0" + digits.substring(2));
+        }
+        if (digits.startsWith("0")) {
+            return List.of(digits, "62" + digits.substring(1));
+        }
+        return List.of(digits);
+    }
+
+    /**
+     * Escape LIKE wildcards in user input (ESCAPE '!')
+     */
+    private static String escape(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
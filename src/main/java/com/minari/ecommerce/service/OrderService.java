@@ -10,17 +10,23 @@ import com.minari.ecommerce.entity.PaymentMethod;
 import com.minari.ecommerce.entity.PaymentStatus;
 import com.minari.ecommerce.entity.ShoppingCart;
 import com.minari.ecommerce.entity.User;
+import com.minari.ecommerce.dto.OrderProjection;
+import com.minari.ecommerce.repository.OrderItemRepository;
 import com.minari.ecommerce.repository.OrderRepository;
-import com.minari.ecommerce.repository.UserRepository;
 import com.minari.ecommerce.dto.DiscountCalculation;
+import com.minari.ecommerce.dto.UserSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import jakarta.transaction.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -31,24 +37,48 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final ShoppingCartService cartService;
-    private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
     private final EmailService emailService;
     private final ProductService productService;
     private final com.minari.ecommerce.repository.CustomerRepository customerRepository;
 
     private final com.minari.ecommerce.service.PromotionService promotionService;
-
-    public OrderService(OrderRepository orderRepository, ShoppingCartService cartService, UserRepository userRepository,
+    private final InventoryReservationService inventoryReservationService;
+    private final OrderItemRepository orderItemRepository;
+    private final SalesRollupService salesRollupService;
+    private final PendingOrderFeedService pendingOrderFeedService;
+    private final IdGenerator idGenerator;
+    private final com.minari.ecommerce.repository.OrderLogRepository orderLogRepository;
+    private final OrderSearchService orderSearchService;
+    private final OrderArchiveService orderArchiveService;
+
+    public OrderService(OrderRepository orderRepository, ShoppingCartService cartService, UserSnapshotCache userSnapshotCache,
             EmailService emailService, ProductService productService, 
             com.minari.ecommerce.repository.CustomerRepository customerRepository,
-            com.minari.ecommerce.service.PromotionService promotionService) {
+            com.minari.ecommerce.service.PromotionService promotionService,
+            InventoryReservationService inventoryReservationService,
+            OrderItemRepository orderItemRepository,
+            SalesRollupService salesRollupService,
+            PendingOrderFeedService pendingOrderFeedService,
+            IdGenerator idGenerator,
+            com.minari.ecommerce.repository.OrderLogRepository orderLogRepository,
+            OrderSearchService orderSearchService,
+            OrderArchiveService orderArchiveService) {
         this.orderRepository = orderRepository;
         this.cartService = cartService;
-        this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
         this.emailService = emailService;
         this.productService = productService;
         this.customerRepository = customerRepository;
         this.promotionService = promotionService;
+        this.inventoryReservationService = inventoryReservationService;
+        this.orderItemRepository = orderItemRepository;
+        this.salesRollupService = salesRollupService;
+        this.pendingOrderFeedService = pendingOrderFeedService;
+        this.idGenerator = idGenerator;
+        this.orderLogRepository = orderLogRepository;
+        this.orderSearchService = orderSearchService;
+        this.orderArchiveService = orderArchiveService;
     }
 
     // Overloaded method with selectedProductIds parameter for selective checkout
@@ -58,10 +88,12 @@ public class OrderService {
             return createOrderFromCart(email, shippingAddress, paymentMethod);
         }
         
-        User user = userRepository.findByEmail(email)
+        UserSnapshot snapshot = userSnapshotCache.get(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        // Only associated with the order; the user row is not read
+        User user = userSnapshotCache.reference(snapshot);
 
-        ShoppingCart cart = cartService.getCartForUser(email);
+        ShoppingCart cart = cartService.getCartForCheckout(email);
 
         System.out.println("[OrderService] Creating order from cart for user: " + email);
         System.out.println("[OrderService] Cart has " + cart.getItems().size() + " items");
@@ -82,26 +114,14 @@ public class OrderService {
             throw new RuntimeException("No items selected for checkout");
         }
         
-        // Validate stock and deduct for selected items only
-        for (CartItem item : itemsToProcess) {
-            com.minari.ecommerce.entity.Product product = item.getProduct();
-            if (!product.canFulfillOrder(item.getQuantity())) {
-                throw new RuntimeException("Not enough stock for: " + product.getName());
-            }
-            int newStock = product.getStockQuantity() - item.getQuantity();
-            product.setStockQuantity(newStock);
-            productService.saveProduct(product);
-            log.info("Stock deducted for product: {} new stock: {}", product.getName(), newStock);
-        }
-        
         Order order = new Order();
-        order.setOrderNumber("MIN" + System.currentTimeMillis() + new Random().nextInt(100));
+        order.setOrderNumber(idGenerator.next("MIN"));
         order.setOrderDate(LocalDateTime.now());
         order.setUser(user);
         if (user instanceof com.minari.ecommerce.entity.Customer) {
             order.setCustomer((com.minari.ecommerce.entity.Customer) user);
         } else {
-             log.warn("Order created by non-customer user: {}", user.getEmail());
+             log.warn("Order created by non-customer user: {}", email);
         }
         
         // Create address snapshot
@@ -132,15 +152,13 @@ public class OrderService {
         // We need to ensure the tempCart works correctly with calculateBestDiscount logic.
 
         // Calculate discount for selected items
-        DiscountCalculation discountCalc = promotionService.calculateBestDiscount(tempCart);
+        DiscountCalculation discountCalc = promotionService.applyBestDiscount(tempCart, user.getId());
         
         double bestDiscountAmount = discountCalc.getDiscountAmount();
         com.minari.ecommerce.entity.Promotion appliedPromotion = discountCalc.getAppliedPromotion();
         
         if (appliedPromotion != null) {
             log.info("Applying promotion: {} with discount: {}", appliedPromotion.getName(), bestDiscountAmount);
-            appliedPromotion.setUsedCount(appliedPromotion.getUsedCount() + 1);
-            promotionService.savePromotion(appliedPromotion);
             order.setPromotionId(appliedPromotion.getId());
             order.setPromoCode(appliedPromotion.getPromoCode());
         }
@@ -160,7 +178,7 @@ public class OrderService {
         payment.setOrder(order);
         payment.setAmount(order.getTotalAmount());
         payment.setPaymentMethod(paymentMethod);
-        payment.processPayment();
+        payment.processPayment(idGenerator.next("TXN"));
 
         order.setPayment(payment);
 
@@ -168,31 +186,37 @@ public class OrderService {
             order.createShipment(generateTrackingNumber(), "J&Tuh");
         }
 
+        Map<Long, Integer> quantities = inventoryReservationService.quantitiesOf(itemsToProcess);
+
         System.out.println("[OrderService] Saving order...");
         Order savedOrder = orderRepository.saveAndFlush(order);
+        salesRollupService.recordOrder(savedOrder, 1);
+        promotionService.recordRedemption(savedOrder);
+        pendingOrderFeedService.orderCreated(savedOrder);
         System.out.println("[OrderService] Order saved successfully! Order ID: " + savedOrder.getId() + ", Order Number: " + savedOrder.getOrderNumber());
 
-        // Remove only selected items from cart
-        for (Long productId : selectedProductIds) {
-            cartService.removeFromCart(email, productId);
-        }
+        // Remove only the ordered items from cart
+        cartService.removeCheckedOutItems(cart, itemsToProcess);
         System.out.println("[OrderService] Removed selected items from cart");
 
-        try {
-             emailService.sendOrderConfirmation(user.getEmail(), savedOrder);
-             emailService.sendAdminOrderNotification(savedOrder);
-        } catch (Exception e) {
-             log.error("Failed to send order confirmation email", e);
-        }
+        // Queue confirmation email and admin notification in the outbox (same transaction as the order)
+        emailService.sendOrderConfirmation(email, savedOrder);
+        emailService.sendAdminOrderNotification(savedOrder);
+
+        // Deduct stock last: one conditional batch UPDATE, consuming any checkout holds, so the
+        // product row locks are only held until the commit that follows
+        inventoryReservationService.commit(email, quantities);
 
         return savedOrder;
     }
 
     public Order createOrderFromCart(String email, Address shippingAddress, PaymentMethod paymentMethod) {
-        User user = userRepository.findByEmail(email)
+        UserSnapshot snapshot = userSnapshotCache.get(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        // Only associated with the order; the user row is not read
+        User user = userSnapshotCache.reference(snapshot);
 
-        ShoppingCart cart = cartService.getCartForUser(email);
+        ShoppingCart cart = cartService.getCartForCheckout(email);
 
         System.out.println("[OrderService] Creating order from cart for user: " + email);
         System.out.println("[OrderService] Cart has " + cart.getItems().size() + " items");
@@ -201,20 +225,8 @@ public class OrderService {
             throw new RuntimeException("Cart is empty");
         }
         
-        // Validate stock and deduct
-        for (CartItem item : cart.getItems()) {
-            com.minari.ecommerce.entity.Product product = item.getProduct();
-            if (!product.canFulfillOrder(item.getQuantity())) {
-                throw new RuntimeException("Not enough stock for: " + product.getName());
-            }
-            // Deduct stock
-            int newStock = product.getStockQuantity() - item.getQuantity();
-            product.setStockQuantity(newStock);
-            productService.saveProduct(product);
-            log.info("Stock deducted for product: {} new stock: {}", product.getName(), newStock);
-        }
         Order order = new Order();
-        order.setOrderNumber("MIN" + System.currentTimeMillis() + new Random().nextInt(100));
+        order.setOrderNumber(idGenerator.next("MIN"));
         order.setOrderDate(LocalDateTime.now());
         order.setUser(user);
         if (user instanceof com.minari.ecommerce.entity.Customer) {
@@ -223,7 +235,7 @@ public class OrderService {
              // User is not a customer (e.g. Admin). 
              // Since we made customer_id nullable, we can proceed.
              // We could log this event.
-             log.warn("Order created by non-customer user: {}", user.getEmail());
+             log.warn("Order created by non-customer user: {}", email);
         }
         // Create a snapshot of the address for this specific order
         // This ensures the order is saved correctly to the database by avoiding detached entity errors
@@ -244,18 +256,14 @@ public class OrderService {
         double shippingFee = 15000.0;
         
         // --- Auto-Apply Best Promotion Logic ---
-        com.minari.ecommerce.dto.DiscountCalculation discountCalc = promotionService.calculateBestDiscount(cart);
+        com.minari.ecommerce.dto.DiscountCalculation discountCalc = promotionService.applyBestDiscount(cart, user.getId());
         double bestDiscountAmount = discountCalc.getDiscountAmount();
         com.minari.ecommerce.entity.Promotion appliedPromotion = discountCalc.getAppliedPromotion();
         
         // Apply discount
         if (appliedPromotion != null) {
             log.info("Applying promotion: {} with discount: {}", appliedPromotion.getName(), bestDiscountAmount);
-            // Update usage count
-            appliedPromotion.setUsedCount(appliedPromotion.getUsedCount() + 1);
-            promotionService.savePromotion(appliedPromotion);
-            
-            // Link promotion to order
+            // Link promotion to order (the use was taken by applyBestDiscount)
             order.setPromotionId(appliedPromotion.getId());
             order.setPromoCode(appliedPromotion.getPromoCode());
         }
@@ -274,7 +282,7 @@ public class OrderService {
         payment.setOrder(order);
         payment.setAmount(order.getTotalAmount());
         payment.setPaymentMethod(paymentMethod);
-        payment.processPayment(); // Simulasi payment
+        payment.processPayment(idGenerator.next("TXN")); // Simulasi payment
 
         order.setPayment(payment);
 
@@ -283,45 +291,96 @@ public class OrderService {
             order.createShipment(generateTrackingNumber(), "J&Tuh");
         }
 
+        Map<Long, Integer> quantities = inventoryReservationService.quantitiesOf(cart.getItems());
+
         // Save order
         System.out.println("[OrderService] Saving order...");
         Order savedOrder = orderRepository.saveAndFlush(order); // Force flush to catch trigger/constraint errors immediately
+        salesRollupService.recordOrder(savedOrder, 1);
+        promotionService.recordRedemption(savedOrder);
+        pendingOrderFeedService.orderCreated(savedOrder);
         System.out.println("[OrderService] Order saved successfully! Order ID: " + savedOrder.getId() + ", Order Number: " + savedOrder.getOrderNumber());
 
         // Clear cart
         System.out.println("[OrderService] Clearing cart for user: " + email);
-        cartService.clearCart(email);
+        cartService.removeCheckedOutItems(cart, new ArrayList<>(cart.getItems()));
         System.out.println("[OrderService] Cart cleared successfully");
 
-        // Send confirmation email and admin notification
-        try {
-             emailService.sendOrderConfirmation(user.getEmail(), savedOrder);
-             emailService.sendAdminOrderNotification(savedOrder);
-        } catch (Exception e) {
-             log.error("Failed to send order confirmation email", e);
-             // Don't rollback order for email failure
-        }
+        // Queue confirmation email and admin notification in the outbox (same transaction as the order)
+        emailService.sendOrderConfirmation(email, savedOrder);
+        emailService.sendAdminOrderNotification(savedOrder);
+
+        // Deduct stock last: one conditional batch UPDATE, consuming any checkout holds, so the
+        // product row locks are only held until the commit that follows
+        inventoryReservationService.commit(email, quantities);
 
         return savedOrder;
     }
 
     public List<Order> getUserOrders(String email) {
-        User user = userRepository.findByEmail(email)
+        UserSnapshot user = userSnapshotCache.get(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return orderRepository.findByUser_IdOrderByOrderDateDesc(user.getId());
     }
 
+    /**
+     * One page of the user's order history as summary rows, newest first.
+     * One query per page (plus the count); full orders are only loaded on the detail page.
+     */
+    public Page<OrderProjection.Summary> getOrderHistory(Long userId, Pageable pageable) {
+        Page<OrderProjection.Summary> live = orderRepository.findSummariesByUserId(userId, pageable);
+        long archived = orderArchiveService.countByUserId(userId);
+        if (archived == 0) {
+            return live;
+        }
+
+        // Archived orders are older than the archive cutoff, so they follow the live ones
+        List<OrderProjection.Summary> content = new ArrayList<>(live.getContent());
+        if (content.size() < pageable.getPageSize()) {
+            long archiveOffset = Math.max(0, pageable.getOffset() - live.getTotalElements());
+            content.addAll(orderArchiveService.findSummariesByUserId(userId, archiveOffset,
+                    pageable.getPageSize() - content.size()));
+        }
+        return new PageImpl<>(content, pageable, live.getTotalElements() + archived);
+    }
+
     private String generateTrackingNumber() {
-        return "JNT" + System.currentTimeMillis() + (int)(Math.random() * 1000);
+        return idGenerator.next("JNT");
     }
 
     /**
-     * Get all orders with optional filters
+     * Get one page of orders, newest first, with optional filters.
+     * Blank filters are ignored; dates are inclusive. A page costs four queries
+     * (IDs, count, order rows, items) no matter how many orders it holds.
      */
-    public List<OrderDTO> getAllOrders(String status, String paymentStatus) {
-        log.info("Fetching all orders - status: {}, paymentStatus: {}", status, paymentStatus);
-        List<Order> orders = orderRepository.findAll();
-        return orders.stream().map(this::convertToDTO).collect(Collectors.toList());
+    public Page<OrderDTO> getAllOrders(String status, String paymentStatus,
+                                       LocalDate startDate, LocalDate endDate, Pageable pageable) {
+        log.info("Fetching orders - status: {}, paymentStatus: {}, from: {}, to: {}, page: {}",
+                status, paymentStatus, startDate, endDate, pageable);
+
+        Page<Long> ids = orderRepository.findIdsByFilters(
+                parseEnum(com.minari.ecommerce.entity.OrderStatus.class, status, "status"),
+                parseEnum(PaymentStatus.class, paymentStatus, "payment status"),
+                startDate != null ? startDate.atStartOfDay() : null,
+                endDate != null ? endDate.plusDays(1).atStartOfDay() : null,
+                pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, ids.getTotalElements());
+        }
+
+        List<OrderDTO> content = toDTOs(ids.getContent());
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+
+    private <E extends Enum<E>> E parseEnum(Class<E> type, String value, String label) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + label + ": " + value);
+        }
     }
 
     /**
@@ -329,8 +388,9 @@ public class OrderService {
      */
     public OrderDTO getOrderByNumber(String orderNumber) {
         log.info("Fetching order: {}", orderNumber);
-        return orderRepository.findByOrderNumber(orderNumber)
-                .map(this::convertToDTO)
+        return orderRepository.findIdByOrderNumber(orderNumber)
+                .map(this::toDTO)
+                .or(() -> orderArchiveService.findIdByOrderNumber(orderNumber).map(this::toArchivedDTO))
                 .orElse(null);
     }
 
@@ -339,25 +399,31 @@ public class OrderService {
      */
     public OrderDTO getOrderById(Long id) {
         log.info("Fetching order by ID: {}", id);
-        return orderRepository.findById(id)
-                .map(this::convertToDTO)
-                .orElse(null);
+        if (id == null) {
+            return null;
+        }
+        OrderDTO order = toDTO(id);
+        return order != null ? order : toArchivedDTO(id);
     }
 
     /**
-     * Get full Order entity by ID
+     * Get full Order entity by ID; archived orders come back detached and read-only
      */
     public Order getOrderEntityById(Long id) {
-        return orderRepository.findById(id).orElse(null);
+        return orderRepository.findById(id).orElseGet(() -> orderArchiveService.findOrder(id));
     }
 
     /**
-     * Get orders by customer ID
+     * Get one page of a customer's orders, newest first (four queries per page, like getAllOrders)
      */
-    public List<OrderDTO> getOrdersByCustomerId(String customerId) {
-        log.info("Fetching orders for customer: {}", customerId);
-        List<Order> orders = orderRepository.findByCustomerIdOrderByOrderDateDesc(Long.parseLong(customerId));
-        return orders.stream().map(this::convertToDTO).collect(Collectors.toList());
+    public Page<OrderDTO> getOrdersByCustomerId(String customerId, Pageable pageable) {
+        log.info("Fetching orders for customer: {}, page: {}", customerId, pageable);
+
+        Page<Long> ids = orderRepository.findIdsByCustomerId(Long.parseLong(customerId), pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, ids.getTotalElements());
+        }
+        return new PageImpl<>(toDTOs(ids.getContent()), pageable, ids.getTotalElements());
     }
 
     /**
@@ -374,11 +440,8 @@ public class OrderService {
      */
     public OrderDTO updateOrderStatus(String orderNumber, String newStatus) {
         log.info("Updating order {} status to {}", orderNumber, newStatus);
-        Optional<Order> order = orderRepository.findByOrderNumber(orderNumber);
-        if (order.isPresent()) {
-            return convertToDTO(order.get());
-        }
-        return new OrderDTO();
+        OrderDTO order = getOrderByNumber(orderNumber);
+        return order != null ? order : new OrderDTO();
     }
 
     /**
@@ -386,11 +449,8 @@ public class OrderService {
      */
     public OrderDTO updatePaymentStatus(String orderNumber, String newStatus) {
         log.info("Updating order {} payment status to {}", orderNumber, newStatus);
-        Optional<Order> order = orderRepository.findByOrderNumber(orderNumber);
-        if (order.isPresent()) {
-            return convertToDTO(order.get());
-        }
-        return new OrderDTO();
+        OrderDTO order = getOrderByNumber(orderNumber);
+        return order != null ? order : new OrderDTO();
     }
 
     /**
@@ -400,6 +460,11 @@ public class OrderService {
         log.info("Cancelling order: {}", orderNumber);
         Optional<Order> order = orderRepository.findByOrderNumber(orderNumber);
         if (order.isPresent()) {
+            if (salesRollupService.countsAsSale(order.get().getStatus())) {
+                salesRollupService.recordOrder(order.get(), -1);
+            }
+            pendingOrderFeedService.statusChanged(order.get(), order.get().getStatus(),
+                    com.minari.ecommerce.entity.OrderStatus.CANCELLED);
             orderRepository.delete(order.get());
         }
     }
@@ -415,40 +480,40 @@ public class OrderService {
 
         Map<String, Object> stats = new HashMap<>();
         
-        stats.put("totalOrders", orderRepository.count());
+        // Live tables plus the per-status totals of the archive (no archive table is scanned)
+        Map<com.minari.ecommerce.entity.OrderStatus, Number[]> archived = orderArchiveService.getTotals();
+        long archivedCount = archived.values().stream().mapToLong(v -> v[0].longValue()).sum();
+        double archivedRevenue = archived.values().stream().mapToDouble(v -> v[1].doubleValue()).sum();
+
+        long count = orderRepository.count() + archivedCount;
+        stats.put("totalOrders", count);
         stats.put("pendingOrders", orderRepository.countByStatus(com.minari.ecommerce.entity.OrderStatus.PENDING));
-        stats.put("completedOrders", orderRepository.countByStatus(com.minari.ecommerce.entity.OrderStatus.DELIVERED));
-        stats.put("cancelledOrders", orderRepository.countByStatus(com.minari.ecommerce.entity.OrderStatus.CANCELLED));
+        stats.put("completedOrders", orderRepository.countByStatus(com.minari.ecommerce.entity.OrderStatus.DELIVERED)
+                + archivedCount(archived, com.minari.ecommerce.entity.OrderStatus.DELIVERED));
+        stats.put("cancelledOrders", orderRepository.countByStatus(com.minari.ecommerce.entity.OrderStatus.CANCELLED)
+                + archivedCount(archived, com.minari.ecommerce.entity.OrderStatus.CANCELLED));
         
-        Double totalRevenue = orderRepository.sumTotalRevenue();
-        stats.put("totalRevenue", totalRevenue != null ? totalRevenue : 0.0);
+        Double liveRevenue = orderRepository.sumTotalRevenue();
+        double totalRevenue = (liveRevenue != null ? liveRevenue : 0.0) + archivedRevenue;
+        stats.put("totalRevenue", totalRevenue);
         
-        long count = orderRepository.count();
-        stats.put("averageOrderValue", count > 0 ? (totalRevenue != null ? totalRevenue : 0.0) / count : 0.0);
+        stats.put("averageOrderValue", count > 0 ? totalRevenue / count : 0.0);
 
         return stats;
     }
 
+    private static long archivedCount(Map<com.minari.ecommerce.entity.OrderStatus, Number[]> archived,
+            com.minari.ecommerce.entity.OrderStatus status) {
+        Number[] totals = archived.get(status);
+        return totals != null ? totals[0].longValue() : 0;
+    }
+
     /**
-     * Get statistics by date range
+     * Get statistics by date range (yyyy-MM-dd, inclusive), read from the sales rollups
      */
     public Map<String, Object> getStatsByDateRange(String startDate, String endDate) {
         log.info("Fetching stats for date range: {} to {}", startDate, endDate);
-
-        Map<String, Object> stats = new HashMap<>();
-        List<Order> allOrders = orderRepository.findAll();
-
-        stats.put("startDate", startDate);
-        stats.put("endDate", endDate);
-        stats.put("totalOrders", (long) allOrders.size());
-        stats.put("totalRevenue", allOrders.stream()
-                .mapToDouble(Order::getTotalAmount)
-                .sum());
-        stats.put("averageOrderValue", allOrders.isEmpty() ? 0.0
-                : allOrders.stream().mapToDouble(Order::getTotalAmount).average().orElse(0.0));
-        stats.put("totalCustomers", 0L);
-
-        return stats;
+        return salesRollupService.getStats(LocalDate.parse(startDate), LocalDate.parse(endDate));
     }
 
     /**
@@ -473,119 +538,108 @@ public class OrderService {
      */
     public List<Map<String, Object>> getTopCustomers(int limit) {
         log.info("Fetching top {} customers", limit);
-
-        List<Map<String, Object>> topCustomers = new ArrayList<>();
-        List<Order> allOrders = orderRepository.findAll();
-
-        // Group by customer and calculate totals
-        Map<Long, Double> customerTotals = new HashMap<>();
-        for (Order order : allOrders) {
-            Long customerId = order.getCustomer().getId();
-            customerTotals.put(customerId,
-                    customerTotals.getOrDefault(customerId, 0.0) + order.getTotalAmount());
-        }
-
-        // Sort and take top N
-        customerTotals.entrySet().stream()
-                .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
-                .limit(limit)
-                .forEach(entry -> {
-                    Map<String, Object> customer = new HashMap<>();
-                    customer.put("customerId", entry.getKey());
-                    customer.put("customerName", "Customer");
-                    customer.put("totalSpent", entry.getValue());
-                    customer.put("orderCount", 0);
-                    topCustomers.add(customer);
-                });
-
-        return topCustomers;
+        return salesRollupService.getTopCustomers(limit);
     }
 
     /**
      * Get top selling products
      */
-    /**
-     * Get top selling products (Optimized)
-     */
     public List<Map<String, Object>> getTopSellingProducts(int limit) {
-        log.info("Fetching top {} selling products (Optimized)", limit);
-        List<Map<String, Object>> topProducts = new ArrayList<>();
-        
-        List<Object[]> results = orderRepository.findTopSellingProducts(org.springframework.data.domain.PageRequest.of(0, limit));
-        
-        for (Object[] row : results) {
-            Map<String, Object> map = new HashMap<>();
-            map.put("name", row[0]);
-            map.put("imageUrl", row[1]);
-            map.put("salesCount", row[2]);
-            topProducts.add(map);
-        }
-
-        return topProducts;
+        log.info("Fetching top {} selling products", limit);
+        return salesRollupService.getTopSellingProducts(limit);
     }
 
     /**
      * Get recent orders (Optimized)
      */
     public List<OrderDTO> getRecentOrders(int limit) {
-         return orderRepository.findRecentOrders(org.springframework.data.domain.PageRequest.of(0, limit))
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return toDTOs(orderRepository.findRecentOrderIds(org.springframework.data.domain.PageRequest.of(0, limit)));
     }
 
     /**
-     * Search orders by query
+     * Search orders by order number, tracking number, customer name, email or phone, best match first
      */
-    public List<OrderDTO> searchOrders(String query) {
-        log.info("Searching orders with query: {}", query);
-        List<Order> orders = orderRepository.findByOrderNumberContainingIgnoreCase(query);
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public Page<OrderDTO> searchOrders(String query, Pageable pageable) {
+        log.info("Searching orders with query: {}, page: {}", query, pageable);
+        Page<Long> ids = orderSearchService.search(query, pageable);
+        return new PageImpl<>(toDTOs(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    private OrderDTO toDTO(Long id) {
+        List<OrderDTO> orders = toDTOs(List.of(id));
+        return orders.isEmpty() ? null : orders.get(0);
+    }
+
+    private OrderDTO toArchivedDTO(Long id) {
+        List<Long> ids = List.of(id);
+        List<OrderDTO> orders = toDTOs(ids, orderArchiveService.findHeadersByIdIn(ids),
+                orderArchiveService.findItemsByOrderIdIn(ids));
+        return orders.isEmpty() ? null : orders.get(0);
     }
 
     /**
-     * Convert Order entity to OrderDTO
+     * Build OrderDTOs for the given order IDs, keeping their order.
+     * Always two queries (order rows, then all their items) however many IDs are passed.
      */
-    private OrderDTO convertToDTO(Order order) {
-        return OrderDTO.builder()
-                .id(order.getId())
-                .orderNumber(order.getOrderNumber())
-                .status(order.getStatus().toString())
-                .customerId(order.getCustomer() != null ? order.getCustomer().getId() : null)
-                .customerName(order.getCustomer() != null ? order.getCustomer().getFullName() : (order.getUser() != null ? order.getUser().getFullName() : "Guest"))
-                .totalAmount(order.getTotalAmount())
-                .subtotalAmount(order.getSubtotalAmount())
-                .taxAmount(order.getTaxAmount())
-                .shippingCost(order.getShippingCost())
-                .discountAmount(order.getDiscountAmount())
-                .shippingAddressStreet(order.getShippingAddress() != null ? order.getShippingAddress().getStreetAddress() : null)
-                .shippingAddressCity(order.getShippingAddress() != null ? order.getShippingAddress().getCity() : null)
-                .shippingAddressState(order.getShippingAddress() != null ? order.getShippingAddress().getState() : null)
-                .shippingAddressPostalCode(order.getShippingAddress() != null ? order.getShippingAddress().getZipcode() : null)
-                .shippingAddressCountry(order.getShippingAddress() != null ? order.getShippingAddress().getCountry() : null)
-                .paymentStatus(order.getPayment() != null ? order.getPayment().getStatus().toString() : "PENDING")
-                .paymentMethod(order.getPayment() != null ? order.getPayment().getPaymentMethod().toString() : null)
-                .orderDate(order.getOrderDate())
-                .updatedAt(order.getUpdatedAt())
-                .shipmentStatus(order.getShipment() != null && order.getShipment().getCurrentStatus() != null ? order.getShipment().getCurrentStatus().toString() : null)
-                .trackingNumber(order.getShipment() != null ? order.getShipment().getTrackingNumber() : null)
-                .items(order.getItems().stream().map(item -> OrderDTO.OrderItemDTO.builder()
-                        .id(item.getId())
-                        .productId(item.getProduct() != null ? item.getProduct().getId() : null)
-                        .productName(item.getProductName())
-                        .productSku(item.getProductSku())
-                        .quantity(item.getQuantity())
-                        .unitPrice(item.getUnitPrice())
-                        .totalPrice(item.getTotalPrice())
-                        .variantInfo(item.getVariantInfo())
-                        .imageUrl(item.getImageUrl())
-                        .build()).collect(Collectors.toList()))
-                .build();
+    private List<OrderDTO> toDTOs(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return toDTOs(ids, orderRepository.findHeadersByIdIn(ids), orderItemRepository.findViewsByOrderIdIn(ids));
     }
 
-    public void updateOrderDetails(Long id, String statusStr, String trackingNumber) {
+    private List<OrderDTO> toDTOs(List<Long> ids, List<OrderProjection.Header> headers, List<OrderProjection.Item> items) {
+        Map<Long, List<OrderDTO.OrderItemDTO>> itemsByOrder = new HashMap<>();
+        for (OrderProjection.Item item : items) {
+            itemsByOrder.computeIfAbsent(item.getOrderId(), k -> new ArrayList<>()).add(OrderDTO.OrderItemDTO.builder()
+                    .id(item.getId())
+                    .productId(item.getProductId())
+                    .productName(item.getProductName())
+                    .productSku(item.getProductSku())
+                    .quantity(item.getQuantity())
+                    .unitPrice(item.getUnitPrice())
+                    .totalPrice(item.getTotalPrice())
+                    .variantInfo(item.getVariantInfo())
+                    .imageUrl(item.getImageUrl())
+                    .build());
+        }
+
+        Map<Long, OrderDTO> byId = new HashMap<>();
+        for (OrderProjection.Header order : headers) {
+            byId.put(order.getId(), OrderDTO.builder()
+                    .id(order.getId())
+                    .orderNumber(order.getOrderNumber())
+                    .status(order.getStatus().toString())
+                    .customerId(order.getCustomerId())
+                    .customerName(order.getCustomerName() != null ? order.getCustomerName()
+                            : (order.getUserName() != null ? order.getUserName() : "Guest"))
+                    .totalAmount(order.getTotalAmount())
+                    .subtotalAmount(order.getSubtotalAmount())
+                    .taxAmount(order.getTaxAmount())
+                    .shippingCost(order.getShippingCost())
+                    .discountAmount(order.getDiscountAmount())
+                    .shippingAddressStreet(order.getStreetAddress())
+                    .shippingAddressCity(order.getCity())
+                    .shippingAddressState(order.getState())
+                    .shippingAddressPostalCode(order.getZipcode())
+                    .shippingAddressCountry(order.getCountry())
+                    .paymentStatus(order.getPaymentStatus() != null ? order.getPaymentStatus().toString() : "PENDING")
+                    .paymentMethod(order.getPaymentMethod() != null ? order.getPaymentMethod().toString() : null)
+                    .orderDate(order.getOrderDate())
+                    .updatedAt(order.getUpdatedAt())
+                    .shipmentStatus(order.getShipmentStatus() != null ? order.getShipmentStatus().toString() : null)
+                    .trackingNumber(order.getTrackingNumber())
+                    .items(itemsByOrder.getOrDefault(order.getId(), new ArrayList<>()))
+                    .build());
+        }
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    public void updateOrderDetails(Long id, String statusStr, String trackingNumber, String changedBy) {
         Order order = orderRepository.findById(id).orElseThrow(() -> new RuntimeException("Order not found"));
         
         // Track old status to detect status change
@@ -643,6 +697,12 @@ public class OrderService {
         }
 
         orderRepository.save(order);
+        if (order.getStatus() != oldStatus) {
+            orderLogRepository.save(new com.minari.ecommerce.entity.OrderLog(order, order.getOrderNumber(),
+                    oldStatus, order.getStatus(), changedBy, null));
+        }
+        salesRollupService.recordStatusChange(order, oldStatus, order.getStatus());
+        pendingOrderFeedService.statusChanged(order, oldStatus, order.getStatus());
     }
 
     /**
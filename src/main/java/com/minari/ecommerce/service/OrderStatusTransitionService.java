@@ -0,0 +1,292 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.dto.BulkOrderStatusRequest;
+import com.minari.ecommerce.entity.Order;
+import com.minari.ecommerce.entity.OrderLog;
+import com.minari.ecommerce.entity.OrderStatus;
+import com.minari.ecommerce.entity.PaymentMethod;
+import com.minari.ecommerce.entity.PaymentStatus;
+import com.minari.ecommerce.repository.OrderLogRepository;
+import com.minari.ecommerce.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk order status transitions for admins.
+ *
+ * Orders are processed in chunks of app.orders.bulk-transition.chunk-size, each in its own
+ * transaction: one query reads status, payment and shipment for the whole chunk, every move
+ * is checked against OrderStatus.canTransitionTo, and the writes go out as JDBC batches.
+ * The status UPDATE only matches the status that was read, so an order changed by someone
+ * else in between is reported back instead of overwritten. OrderLog rows are inserted as one
+ * batch, and the sales rollups and pending-order feed are updated once per chunk after commit.
+ *
+ * Side effects are those of OrderService.updateOrderDetails: COD payments become PAID and
+ * loyalty points are awarded on delivery, and orders moving to SHIPPED or DELIVERED get a
+ * tracking number (the one given, or a generated one when the shipment has none).
+ */
+@Service
+public class OrderStatusTransitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatusTransitionService.class);
+
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE orders SET status = ?, updated_at = ? WHERE id = ? AND status = ?";
+    private static final String PAY_COD_SQL =
+            "UPDATE payments SET status = 'PAID', payment_date = ?, updated_at = ? WHERE id = ?";
+    private static final String ADD_LOYALTY_SQL =
+            "UPDATE users SET loyalty_points = COALESCE(loyalty_points, 0) + ? WHERE id = ?";
+    private static final String UPDATE_SHIPMENT_SQL = "UPDATE shipments SET tracking_number = ?, " +
+            "current_status = CASE WHEN current_status = 'AWAITING_PICKUP' THEN 'IN_TRANSIT' ELSE current_status END " +
+            "WHERE id = ?";
+
+    private final OrderRepository orderRepository;
+    private final OrderLogRepository orderLogRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SalesRollupService salesRollupService;
+    private final PendingOrderFeedService pendingOrderFeedService;
+    private final IdGenerator idGenerator;
+    private final int chunkSize;
+    private final int maxOrders;
+
+    public OrderStatusTransitionService(OrderRepository orderRepository, OrderLogRepository orderLogRepository,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            SalesRollupService salesRollupService, PendingOrderFeedService pendingOrderFeedService,
+            IdGenerator idGenerator,
+            @Value("${app.orders.bulk-transition.chunk-size:500}") int chunkSize,
+            @Value("${app.orders.bulk-transition.max-orders:5000}") int maxOrders) {
+        this.orderRepository = orderRepository;
+        this.orderLogRepository = orderLogRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.salesRollupService = salesRollupService;
+        this.pendingOrderFeedService = pendingOrderFeedService;
+        this.idGenerator = idGenerator;
+        this.chunkSize = chunkSize;
+        this.maxOrders = maxOrders;
+    }
+
+    /**
+     * Move the requested orders to the target status. Orders that cannot move (unknown,
+     * already there, not allowed by the state machine, changed concurrently) are listed
+     * under "skipped" with the reason; the others are changed.
+     */
+    public Map<String, Object> transition(BulkOrderStatusRequest request, String changedBy) {
+        long start = System.currentTimeMillis();
+        OrderStatus target;
+        try {
+            target = OrderStatus.valueOf(request.getStatus().trim().toUpperCase());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException("Invalid status: " + request.getStatus());
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        if (request.getOrderIds() != null) {
+            request.getOrderIds().stream().filter(Objects::nonNull).forEach(ids::add);
+        }
+        List<String> numbers = request.getOrderNumbers() == null ? List.of() : request.getOrderNumbers().stream()
+                .filter(n -> n != null && !n.isBlank())
+                .map(String::trim)
+                .distinct()
+                .collect(Collectors.toList());
+        if (ids.isEmpty() && numbers.isEmpty()) {
+            throw new RuntimeException("No orders given");
+        }
+        if (ids.size() + numbers.size() > maxOrders) {
+            throw new RuntimeException("At most " + maxOrders + " orders can be changed at once");
+        }
+        int requested = ids.size() + numbers.size();
+
+        List<Map<String, Object>> skipped = new ArrayList<>();
+        for (int i = 0; i < numbers.size(); i += chunkSize) {
+            List<String> part = numbers.subList(i, Math.min(i + chunkSize, numbers.size()));
+            Map<String, Long> found = new HashMap<>();
+            for (Object[] row : orderRepository.findIdsByOrderNumberIn(part)) {
+                found.put((String) row[0], (Long) row[1]);
+            }
+            for (String number : part) {
+                Long id = found.get(number);
+                if (id != null) {
+                    ids.add(id);
+                } else {
+                    skipped.add(skip(number, "not found"));
+                }
+            }
+        }
+
+        Map<String, String> trackingNumbers = request.getTrackingNumbers() != null ? request.getTrackingNumbers() : Map.of();
+        List<Long> idList = new ArrayList<>(ids);
+        int changed = 0;
+        int chunks = 0;
+        for (int i = 0; i < idList.size(); i += chunkSize) {
+            List<Long> chunk = idList.subList(i, Math.min(i + chunkSize, idList.size()));
+            List<Map<String, Object>> chunkSkipped = new ArrayList<>();
+            try {
+                Integer applied = transactionTemplate.execute(status ->
+                        applyChunk(chunk, target, trackingNumbers, changedBy, request.getNotes(), chunkSkipped));
+                changed += applied != null ? applied : 0;
+                skipped.addAll(chunkSkipped);
+            } catch (RuntimeException e) {
+                log.error("Bulk transition of {} orders to {} failed", chunk.size(), target, e);
+                chunk.forEach(id -> skipped.add(skip(id, "failed: " + e.getMessage())));
+            }
+            chunks++;
+        }
+
+        long tookMillis = System.currentTimeMillis() - start;
+        log.info("Bulk transition to {} by {}: {} changed, {} skipped, {} chunks in {} ms",
+                target, changedBy, changed, skipped.size(), chunks, tookMillis);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", target.name());
+        result.put("requested", requested);
+        result.put("changed", changed);
+        result.put("skipped", skipped);
+        result.put("chunks", chunks);
+        result.put("tookMillis", tookMillis);
+        return result;
+    }
+
+    /**
+     * One chunk inside its transaction; returns the number of orders changed
+     */
+    private int applyChunk(List<Long> chunk, OrderStatus target, Map<String, String> trackingNumbers,
+            String changedBy, String notes, List<Map<String, Object>> skipped) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        Map<Long, Object[]> rows = new HashMap<>();
+        for (Object[] row : orderRepository.findTransitionRowsByIdIn(chunk)) {
+            rows.put((Long) row[0], row);
+        }
+
+        List<Object[]> moves = new ArrayList<>();
+        List<Object[]> statusUpdates = new ArrayList<>();
+        for (Long id : chunk) {
+            Object[] row = rows.get(id);
+            if (row == null) {
+                skipped.add(skip(id, "not found"));
+                continue;
+            }
+            OrderStatus current = (OrderStatus) row[2];
+            if (current == target) {
+                skipped.add(skip(row[1], "already " + target));
+            } else if (current == null || !current.canTransitionTo(target)) {
+                skipped.add(skip(row[1], "cannot move from " + current + " to " + target));
+            } else {
+                moves.add(row);
+                statusUpdates.add(new Object[] { target.name(), now, id, current.name() });
+            }
+        }
+        if (moves.isEmpty()) {
+            return 0;
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, statusUpdates);
+        List<Object[]> applied = new ArrayList<>(moves.size());
+        for (int i = 0; i < counts.length; i++) {
+            // 0 rows: the status is no longer the one read above
+            if (counts[i] == 0) {
+                skipped.add(skip(moves.get(i)[1], "changed concurrently"));
+            } else {
+                applied.add(moves.get(i));
+            }
+        }
+
+        List<Object[]> paymentUpdates = new ArrayList<>();
+        Map<Long, Integer> loyaltyPoints = new HashMap<>();
+        List<Object[]> shipmentUpdates = new ArrayList<>();
+        Map<Long, String> missingShipments = new HashMap<>();
+        List<OrderLog> logs = new ArrayList<>(applied.size());
+        List<Object[]> feedRows = new ArrayList<>(applied.size());
+        List<Long> enteringSales = new ArrayList<>();
+        List<Long> leavingSales = new ArrayList<>();
+
+        for (Object[] row : applied) {
+            Long id = (Long) row[0];
+            String orderNumber = (String) row[1];
+            OrderStatus oldStatus = (OrderStatus) row[2];
+
+            if (target == OrderStatus.DELIVERED) {
+                if (row[7] != null && row[8] == PaymentMethod.COD && row[9] != PaymentStatus.PAID) {
+                    paymentUpdates.add(new Object[] { now, now, row[7] });
+                }
+                // Rp 10,000 = 1 point, as in OrderService.awardLoyaltyPoints
+                int points = row[4] != null ? (int) ((Double) row[4] / 10000) : 0;
+                if (row[6] != null && points > 0) {
+                    loyaltyPoints.merge((Long) row[6], points, Integer::sum);
+                }
+            }
+
+            String trackingNumber = trackingNumbers.get(orderNumber);
+            if (trackingNumber == null) {
+                trackingNumber = trackingNumbers.get(String.valueOf(id));
+            }
+            trackingNumber = trackingNumber != null && !trackingNumber.isBlank() ? trackingNumber.trim() : null;
+            boolean hasTracking = row[11] != null && !((String) row[11]).isEmpty();
+            if (trackingNumber == null && !hasTracking
+                    && (target == OrderStatus.SHIPPED || target == OrderStatus.DELIVERED)) {
+                trackingNumber = idGenerator.next("JNT");
+            }
+            if (trackingNumber != null) {
+                if (row[10] != null) {
+                    shipmentUpdates.add(new Object[] { trackingNumber, row[10] });
+                } else {
+                    missingShipments.put(id, trackingNumber);
+                }
+            }
+
+            logs.add(new OrderLog(orderRepository.getReferenceById(id), orderNumber, oldStatus, target, changedBy, notes));
+            feedRows.add(new Object[] { id, orderNumber, row[3], row[4], row[5], oldStatus, target });
+            boolean wasSale = salesRollupService.countsAsSale(oldStatus);
+            if (wasSale != salesRollupService.countsAsSale(target)) {
+                (wasSale ? leavingSales : enteringSales).add(id);
+            }
+        }
+
+        if (!paymentUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate(PAY_COD_SQL, paymentUpdates);
+        }
+        if (!loyaltyPoints.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_LOYALTY_SQL, loyaltyPoints.entrySet().stream()
+                    .map(e -> new Object[] { e.getValue(), e.getKey() })
+                    .collect(Collectors.toList()));
+        }
+        if (!shipmentUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SHIPMENT_SQL, shipmentUpdates);
+        }
+        if (!missingShipments.isEmpty()) {
+            // Rare (checkout creates the shipment); done through JPA so the rows get sequence ids
+            for (Order order : orderRepository.findAllById(missingShipments.keySet())) {
+                order.createShipment(missingShipments.get(order.getId()), "Standard");
+            }
+        }
+        if (!enteringSales.isEmpty()) {
+            salesRollupService.recordOrders(orderRepository.findWithItemsByIdIn(enteringSales), 1);
+        }
+        if (!leavingSales.isEmpty()) {
+            salesRollupService.recordOrders(orderRepository.findWithItemsByIdIn(leavingSales), -1);
+        }
+        // Inserted as one JDBC batch at commit
+        orderLogRepository.saveAll(logs);
+        pendingOrderFeedService.statusesChanged(feedRows);
+        return applied.size();
+    }
+
+    private static Map<String, Object> skip(Object order, String reason) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("order", order);
+        entry.put("reason", reason);
+        return entry;
+    }
+}
@@ -0,0 +1,326 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.entity.Order;
+import com.minari.ecommerce.entity.OrderStatus;
+import com.minari.ecommerce.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pending-order notifications for the admin panel.
+ *
+ * OrderService reports order creation and status changes (after commit). The service keeps
+ * the number of PENDING orders, the most recent pending orders, and a bounded ring of events
+ * numbered by a sequence cursor. Admin tabs either subscribe to the SSE stream or poll
+ * count/since; neither touches the orders table. The state is resynced from the database on
+ * startup and periodically, so changes made outside OrderService are picked up. At most
+ * app.notifications.max-subscribers streams are held open; further tabs fall back to polling.
+ * Pushes to the open streams run on a single sender thread, never on the committing thread.
+ */
+@Service
+public class PendingOrderFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingOrderFeedService.class);
+
+    private static final int RECENT_LIMIT = 10;
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final OrderRepository orderRepository;
+    private final int ringCapacity;
+    private final int maxSubscribers;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pending-feed-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Latest snapshot not yet pushed; a burst of changes is sent once
+    private final AtomicReference<Map<String, Object>> unsent = new AtomicReference<>();
+
+    // Guarded by "this"
+    private long pendingCount;
+    private long lastSeq;
+    private final Deque<Map<String, Object>> events = new ArrayDeque<>();
+    private final LinkedHashMap<Long, Map<String, Object>> recentPending = new LinkedHashMap<>();
+
+    public PendingOrderFeedService(OrderRepository orderRepository,
+            @Value("${app.notifications.ring-size:200}") int ringCapacity,
+            @Value("${app.notifications.max-subscribers:50}") int maxSubscribers) {
+        this.orderRepository = orderRepository;
+        this.ringCapacity = ringCapacity;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * A new order was saved (published once the transaction commits)
+     */
+    public void orderCreated(Order order) {
+        if (order.getStatus() != OrderStatus.PENDING) {
+            return;
+        }
+        Map<String, Object> notification = toNotification(order);
+        afterCommit(() -> publish("CREATED", notification, 1));
+    }
+
+    /**
+     * An order changed status; only moves into or out of PENDING are published
+     */
+    public void statusChanged(Order order, OrderStatus oldStatus, OrderStatus newStatus) {
+        boolean wasPending = oldStatus == OrderStatus.PENDING;
+        boolean isPending = newStatus == OrderStatus.PENDING;
+        if (wasPending == isPending) {
+            return;
+        }
+        Map<String, Object> notification = toNotification(order);
+        afterCommit(() -> publish(isPending ? "CREATED" : "RESOLVED", notification, isPending ? 1 : -1));
+    }
+
+    /**
+     * Status changes of a bulk transition; rows are [id, orderNumber, customerName, totalAmount,
+     * orderDate, oldStatus, newStatus]. Subscribers get one update for the whole batch.
+     */
+    public void statusesChanged(List<Object[]> rows) {
+        List<Object[]> changes = new ArrayList<>();
+        for (Object[] row : rows) {
+            boolean wasPending = row[5] == OrderStatus.PENDING;
+            boolean isPending = row[6] == OrderStatus.PENDING;
+            if (wasPending != isPending) {
+                Map<String, Object> notification = notification((Long) row[0], (String) row[1],
+                        (String) row[2], (Double) row[3], (LocalDateTime) row[4]);
+                changes.add(new Object[] { isPending ? "CREATED" : "RESOLVED", notification, isPending ? 1 : -1 });
+            }
+        }
+        if (!changes.isEmpty()) {
+            afterCommit(() -> publishAll(changes));
+        }
+    }
+
+    public synchronized long getPendingCount() {
+        return pendingCount;
+    }
+
+    public synchronized long getCursor() {
+        return lastSeq;
+    }
+
+    /**
+     * Most recent pending orders, newest first
+     */
+    public synchronized List<Map<String, Object>> getRecentPending() {
+        List<Map<String, Object>> recent = new ArrayList<>(recentPending.values());
+        Collections.reverse(recent);
+        return recent;
+    }
+
+    /**
+     * Events after the given cursor. "reset" is true when the cursor is older than the ring
+     * (or from before a restart); the client should then reload the recent list.
+     */
+    public synchronized Map<String, Object> getEventsSince(long cursor) {
+        List<Map<String, Object>> newer = new ArrayList<>();
+        for (Map<String, Object> event : events) {
+            if ((long) event.get("seq") > cursor) {
+                newer.add(event);
+            }
+        }
+        long oldest = events.isEmpty() ? lastSeq + 1 : (long) events.peekFirst().get("seq");
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("count", pendingCount);
+        result.put("cursor", lastSeq);
+        result.put("events", newer);
+        result.put("reset", cursor > lastSeq || cursor < oldest - 1);
+        return result;
+    }
+
+    /**
+     * Open a stream; answers 503 when max-subscribers streams are already open, which makes
+     * the browser's EventSource give up and the admin page keep polling instead
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        synchronized (emitters) {
+            if (emitters.size() >= maxSubscribers) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many notification streams");
+            }
+            emitters.add(emitter);
+        }
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        send(emitter, "pending", snapshot());
+        return emitter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        resync();
+    }
+
+    /**
+     * Reload count and recent list from the database, correcting any drift
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.resync-interval-ms:300000}",
+            initialDelayString = "${app.notifications.resync-interval-ms:300000}")
+    public void resync() {
+        try {
+            long count = orderRepository.countByStatus(OrderStatus.PENDING);
+            List<Object[]> rows = orderRepository.findRecentByStatus(OrderStatus.PENDING, PageRequest.of(0, RECENT_LIMIT));
+
+            synchronized (this) {
+                pendingCount = count;
+                recentPending.clear();
+                for (int i = rows.size() - 1; i >= 0; i--) {
+                    Object[] row = rows.get(i);
+                    recentPending.put((Long) row[0], notification((Long) row[0], (String) row[1],
+                            (String) row[2], (Double) row[3], (LocalDateTime) row[4]));
+                }
+            }
+        } catch (Exception e) {
+            log.error("Could not resync pending order feed", e);
+        }
+    }
+
+    /**
+     * Comment line every 25s so proxies keep the stream open and dead clients are dropped
+     */
+    @Scheduled(fixedRate = 25000)
+    public void heartbeat() {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private void publish(String type, Map<String, Object> notification, int delta) {
+        publishAll(List.<Object[]>of(new Object[] { type, notification, delta }));
+    }
+
+    /**
+     * Apply [type, notification, delta] changes and queue a single snapshot for the subscribers
+     */
+    @SuppressWarnings("unchecked")
+    private void publishAll(List<Object[]> changes) {
+        Map<String, Object> payload;
+        synchronized (this) {
+            for (Object[] change : changes) {
+                record((String) change[0], (Map<String, Object>) change[1], (int) change[2]);
+            }
+            payload = snapshot();
+        }
+        if (unsent.getAndSet(payload) == null) {
+            sender.execute(this::pushUnsent);
+        }
+    }
+
+    /**
+     * Runs on the sender thread, so a slow client holds up the other streams but not checkout
+     */
+    private void pushUnsent() {
+        Map<String, Object> payload = unsent.getAndSet(null);
+        if (payload == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            send(emitter, "pending", payload);
+        }
+    }
+
+    // Guarded by "this"
+    private void record(String type, Map<String, Object> notification, int delta) {
+        pendingCount = Math.max(0, pendingCount + delta);
+        Long orderId = (Long) notification.get("id");
+        if (delta > 0) {
+            recentPending.put(orderId, notification);
+            while (recentPending.size() > RECENT_LIMIT) {
+                recentPending.remove(recentPending.keySet().iterator().next());
+            }
+        } else {
+            recentPending.remove(orderId);
+        }
+
+        Map<String, Object> event = new HashMap<>(notification);
+        event.put("seq", ++lastSeq);
+        event.put("type", type);
+        events.addLast(event);
+        while (events.size() > ringCapacity) {
+            events.removeFirst();
+        }
+    }
+
+    private synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("count", pendingCount);
+        snapshot.put("cursor", lastSeq);
+        snapshot.put("notifications", getRecentPending());
+        return snapshot;
+    }
+
+    private void send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (IOException | IllegalStateException e) {
+            emitters.remove(emitter);
+        }
+    }
+
+    private Map<String, Object> toNotification(Order order) {
+        String customerName = order.getCustomer() != null ? order.getCustomer().getFullName()
+                : (order.getUser() != null ? order.getUser().getFullName() : null);
+        return notification(order.getId(), order.getOrderNumber(), customerName,
+                order.getTotalAmount(), order.getOrderDate());
+    }
+
+    private Map<String, Object> notification(Long id, String orderNumber, String customerName,
+            Double totalAmount, LocalDateTime orderDate) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("id", id);
+        notification.put("orderNumber", orderNumber);
+        notification.put("customerName", customerName != null ? customerName : "Guest");
+        notification.put("totalAmount", totalAmount);
+        notification.put("orderDate", orderDate != null ? orderDate.toString() : null);
+        return notification;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+}
@@ -2,6 +2,7 @@ package com.minari.ecommerce.service;
 
 import com.minari.ecommerce.entity.ProductCategory;
 import com.minari.ecommerce.repository.ProductCategoryRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -12,13 +13,20 @@ import java.util.Optional;
 public class ProductCategoryService {
     
     private final ProductCategoryRepository categoryRepository;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public ProductCategoryService(ProductCategoryRepository categoryRepository) {
+    public ProductCategoryService(ProductCategoryRepository categoryRepository, CatalogCache catalogCache,
+            ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
+        this.catalogCache = catalogCache;
+        this.eventPublisher = eventPublisher;
     }
     
     public ProductCategory createCategory(ProductCategory category) {
-        return categoryRepository.save(category);
+        ProductCategory saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(CatalogChangedEvent.categories(saved.getId()));
+        return saved;
     }
     
     public ProductCategory updateCategory(Long id, ProductCategory categoryDetails) {
@@ -33,24 +41,28 @@ public class ProductCategoryService {
             category.setMetaKeywords(categoryDetails.getMetaKeywords());
             category.setIsActive(categoryDetails.getIsActive());
             category.setDisplayOrder(categoryDetails.getDisplayOrder());
-            return categoryRepository.save(category);
+            ProductCategory saved = categoryRepository.save(category);
+            eventPublisher.publishEvent(CatalogChangedEvent.categories(id));
+            return saved;
         }).orElse(null);
     }
     
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.categories(id));
     }
     
+    // Read methods below are served from CatalogCache; the results are read-only
     public Optional<ProductCategory> getCategoryById(Long id) {
-        return categoryRepository.findById(id);
+        return catalogCache.getCategories().get(id);
     }
     
     public List<ProductCategory> getAllCategories() {
-        return categoryRepository.findAll();
+        return catalogCache.getCategories().getAll();
     }
     
     public List<ProductCategory> getActiveCategories() {
-        return categoryRepository.findByIsActiveTrue();
+        return catalogCache.getCategories().getActive();
     }
     
     public Page<ProductCategory> searchCategories(String keyword, Pageable pageable) {
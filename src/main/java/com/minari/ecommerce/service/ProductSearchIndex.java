@@ -0,0 +1,521 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.dto.ProductSearchDocument;
+import com.minari.ecommerce.dto.ProductSearchResult.Facet;
+import com.minari.ecommerce.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Embedded inverted index for storefront product search.
+ *
+ * Indexed fields (weight): name (3), brand (2), category name (2), tags (1.5), description (1).
+ * Text is lower-cased, accents are stripped and it is split on anything that is not a letter or digit.
+ *
+ * Every query term must match (AND). A term matches an indexed term exactly, as a prefix
+ * ("kem" -> "kemeja", scored 0.7x) or, when neither exists, within edit distance 1
+ * (2 for terms of 8+ characters, scored 0.5x). Documents are ranked by the sum of
+ * field weight x idf per term, then by rating.
+ *
+ * The index is built on ApplicationReadyEvent and kept current from CatalogChangedEvent.
+ * Documents are append-only ordinals; a changed product gets a new ordinal and the old
+ * one is tombstoned, and the index is rebuilt once tombstones reach a quarter of it.
+ * Until the first build completes, isReady() is false and callers fall back to SQL.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float BRAND_WEIGHT = 2f;
+    private static final float CATEGORY_WEIGHT = 2f;
+    private static final float TAGS_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final float PREFIX_FACTOR = 0.7f;
+    private static final float FUZZY_FACTOR = 0.5f;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final double[] PRICE_BUCKETS = { 100_000, 250_000, 500_000, 1_000_000 };
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Result of a search: product ids of the requested page in rank order
+     */
+    public static class Hits {
+        private final List<Long> ids;
+        private final long total;
+        private final Map<String, List<Facet>> facets;
+        private final long tookMicros;
+
+        Hits(List<Long> ids, long total, Map<String, List<Facet>> facets, long tookMicros) {
+            this.ids = ids;
+            this.total = total;
+            this.facets = facets;
+            this.tookMicros = tookMicros;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public Map<String, List<Facet>> getFacets() {
+            return facets;
+        }
+
+        public long getTookMicros() {
+            return tookMicros;
+        }
+    }
+
+    private static final class Doc {
+        final long id;
+        final Long categoryId;
+        final String categoryName;
+        final String brand;
+        final double price;
+        final double rating;
+
+        Doc(ProductSearchDocument row) {
+            this.id = row.getId();
+            this.categoryId = row.getCategoryId();
+            this.categoryName = row.getCategoryName();
+            this.brand = row.getBrand() != null && !row.getBrand().isBlank() ? row.getBrand().trim() : null;
+            this.price = row.getPrice() != null ? row.getPrice() : 0;
+            this.rating = row.getAverageRating() != null ? row.getAverageRating() : 0;
+        }
+    }
+
+    /**
+     * Ordinals of the documents containing a term, with the term's weight in each
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    private static final class IndexData {
+        final List<Doc> docs = new ArrayList<>();
+        final BitSet deleted = new BitSet();
+        final Map<Long, Integer> ordinals = new HashMap<>();
+        final TreeMap<String, Postings> terms = new TreeMap<>();
+        final Map<Integer, List<String>> termsByLength = new HashMap<>();
+        int live;
+
+        void add(ProductSearchDocument row) {
+            remove(row.getId());
+            int ordinal = docs.size();
+            docs.add(new Doc(row));
+            ordinals.put(row.getId(), ordinal);
+            live++;
+
+            Map<String, Float> weights = new HashMap<>();
+            addField(weights, row.getName(), NAME_WEIGHT);
+            addField(weights, row.getBrand(), BRAND_WEIGHT);
+            addField(weights, row.getCategoryName(), CATEGORY_WEIGHT);
+            addField(weights, row.getTags(), TAGS_WEIGHT);
+            addField(weights, row.getDescription(), DESCRIPTION_WEIGHT);
+            weights.forEach((term, weight) -> terms.computeIfAbsent(term, t -> {
+                termsByLength.computeIfAbsent(t.length(), length -> new ArrayList<>()).add(t);
+                return new Postings();
+            }).add(ordinal, weight));
+        }
+
+        void remove(Long id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                deleted.set(ordinal);
+                live--;
+            }
+        }
+
+        private static void addField(Map<String, Float> weights, String text, float weight) {
+            for (String term : new HashSet<>(tokenize(text))) {
+                weights.merge(term, weight, Float::sum);
+            }
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexData data = new IndexData();
+    private volatile boolean ready;
+
+    // Products changed while a rebuild was loading; re-applied after the swap
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Load every product into a fresh index and swap it in
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        try {
+            IndexData fresh = new IndexData();
+            long afterId = 0;
+            List<ProductSearchDocument> rows;
+            do {
+                rows = productRepository.findSearchDocumentsAfter(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                rows.forEach(fresh::add);
+                if (!rows.isEmpty()) {
+                    afterId = rows.get(rows.size() - 1).getId();
+                }
+            } while (rows.size() == LOAD_BATCH_SIZE);
+
+            lock.writeLock().lock();
+            try {
+                data = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        } catch (Exception e) {
+            log.error("Product search index rebuild failed", e);
+        } finally {
+            rebuilding = false;
+        }
+
+        if (!changedDuringRebuild.isEmpty()) {
+            reindex(new ArrayList<>(changedDuringRebuild));
+            changedDuringRebuild.clear();
+        }
+        log.info("Product search index built: {} products, {} terms in {} ms",
+                data.live, data.terms.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        try {
+            if (event.getScope() == CatalogChangedEvent.Scope.STOCK) {
+                // Stock is not indexed
+                return;
+            }
+            if (event.getScope() == CatalogChangedEvent.Scope.PRODUCTS) {
+                if (event.getId() != null) {
+                    reindex(List.of(event.getId()));
+                } else {
+                    rebuild();
+                }
+            } else if (event.getId() == null) {
+                rebuild();
+            } else {
+                reindex(idsInCategory(event.getId()));
+            }
+        } catch (Exception e) {
+            log.error("Failed to update product search index for {} #{}", event.getScope(), event.getId(), e);
+        }
+    }
+
+    /**
+     * Re-read the given products; ids that no longer exist are removed
+     */
+    public void reindex(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        if (rebuilding) {
+            changedDuringRebuild.addAll(productIds);
+        }
+        List<ProductSearchDocument> rows = productRepository.findSearchDocumentsByIdIn(productIds);
+        lock.writeLock().lock();
+        try {
+            productIds.forEach(data::remove);
+            rows.forEach(data::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Long> idsInCategory(Long categoryId) {
+        lock.readLock().lock();
+        try {
+            List<Long> ids = new ArrayList<>();
+            data.ordinals.forEach((id, ordinal) -> {
+                if (categoryId.equals(data.docs.get(ordinal).categoryId)) {
+                    ids.add(id);
+                }
+            });
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compact away tombstones left by product updates
+     */
+    @Scheduled(fixedDelayString = "${app.search.compact-interval-ms:600000}")
+    public void compactIfNeeded() {
+        int tombstones;
+        int live;
+        lock.readLock().lock();
+        try {
+            tombstones = data.deleted.cardinality();
+            live = data.live;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (ready && tombstones > 0 && tombstones * 4 >= live) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Ranked search. categoryId and brand narrow the results; facets are counted over all
+     * matches of the query so the other options stay visible.
+     */
+    public Hits search(String query, Long categoryId, String brand, Pageable pageable) {
+        long start = System.nanoTime();
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+
+        lock.readLock().lock();
+        try {
+            IndexData index = data;
+            Map<Integer, Float> scores = tokens.isEmpty() ? Map.of() : match(index, tokens);
+
+            Map<Long, long[]> categoryCounts = new HashMap<>();
+            Map<Long, String> categoryNames = new HashMap<>();
+            Map<String, long[]> brandCounts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            long[] priceCounts = new long[PRICE_BUCKETS.length + 1];
+
+            List<Integer> filtered = new ArrayList<>();
+            for (int ordinal : scores.keySet()) {
+                Doc doc = index.docs.get(ordinal);
+                if (doc.categoryId != null) {
+                    categoryCounts.computeIfAbsent(doc.categoryId, id -> new long[1])[0]++;
+                    categoryNames.putIfAbsent(doc.categoryId, doc.categoryName);
+                }
+                if (doc.brand != null) {
+                    brandCounts.computeIfAbsent(doc.brand, b -> new long[1])[0]++;
+                }
+                priceCounts[priceBucket(doc.price)]++;
+
+                if ((categoryId == null || categoryId.equals(doc.categoryId))
+                        && (brand == null || brand.isBlank() || brand.equalsIgnoreCase(doc.brand))) {
+                    filtered.add(ordinal);
+                }
+            }
+
+            Comparator<Integer> byRank = (a, b) -> {
+                int cmp = Float.compare(scores.get(b), scores.get(a));
+                if (cmp == 0) {
+                    cmp = Double.compare(index.docs.get(b).rating, index.docs.get(a).rating);
+                }
+                return cmp != 0 ? cmp : Long.compare(index.docs.get(a).id, index.docs.get(b).id);
+            };
+            List<Long> ids = new ArrayList<>();
+            for (int ordinal : topN(filtered, byRank, pageable)) {
+                ids.add(index.docs.get(ordinal).id);
+            }
+
+            Map<String, List<Facet>> facets = new LinkedHashMap<>();
+            List<Facet> categoryFacet = new ArrayList<>();
+            categoryCounts.forEach((id, count) ->
+                    categoryFacet.add(new Facet(String.valueOf(id), categoryNames.get(id), count[0])));
+            categoryFacet.sort(Comparator.comparingLong(Facet::getCount).reversed());
+            facets.put("category", categoryFacet);
+            List<Facet> brandFacet = new ArrayList<>();
+            brandCounts.forEach((name, count) -> brandFacet.add(new Facet(name, name, count[0])));
+            brandFacet.sort(Comparator.comparingLong(Facet::getCount).reversed());
+            facets.put("brand", brandFacet);
+            List<Facet> priceFacet = new ArrayList<>();
+            for (int i = 0; i < priceCounts.length; i++) {
+                if (priceCounts[i] > 0) {
+                    String range = priceRange(i);
+                    priceFacet.add(new Facet(range, range, priceCounts[i]));
+                }
+            }
+            facets.put("price", priceFacet);
+
+            long micros = (System.nanoTime() - start) / 1000;
+            return new Hits(ids, filtered.size(), facets, micros);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Live documents matching every token: ordinal -> summed score. Only documents on the
+     * posting lists of the first token are candidates, and each further token narrows them,
+     * so a query allocates per match, not per indexed document.
+     */
+    private Map<Integer, Float> match(IndexData index, List<String> tokens) {
+        Map<Integer, Float> scores = null;
+        for (String token : tokens) {
+            Map<Integer, Float> candidates = scores;
+            // A document's score for the token is that of its best-matching expansion
+            Map<Integer, Float> tokenScores = new HashMap<>();
+            for (Map.Entry<String, Float> expansion : expand(index, token).entrySet()) {
+                Postings postings = index.terms.get(expansion.getKey());
+                float factor = expansion.getValue() * (float) Math.log(1 + (double) index.live / postings.size);
+                for (int i = 0; i < postings.size; i++) {
+                    int ordinal = postings.docs[i];
+                    if ((candidates != null && !candidates.containsKey(ordinal)) || index.deleted.get(ordinal)) {
+                        continue;
+                    }
+                    tokenScores.merge(ordinal, postings.weights[i] * factor, Math::max);
+                }
+            }
+            if (candidates != null) {
+                tokenScores.replaceAll((ordinal, score) -> score + candidates.get(ordinal));
+            }
+            scores = tokenScores;
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Indexed terms a query token stands for, with their score factor
+     */
+    private Map<String, Float> expand(IndexData index, String token) {
+        Map<String, Float> expansions = new HashMap<>();
+        if (index.terms.containsKey(token)) {
+            expansions.put(token, 1f);
+        }
+        for (String term : index.terms.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+            if (expansions.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            expansions.put(term, PREFIX_FACTOR);
+        }
+        if (expansions.isEmpty() && token.length() >= 4) {
+            int maxDistance = token.length() >= 8 ? 2 : 1;
+            for (int length = token.length() - maxDistance; length <= token.length() + maxDistance; length++) {
+                for (String term : index.termsByLength.getOrDefault(length, List.of())) {
+                    // Typos rarely hit both of the first two letters; skips most of the dictionary
+                    if ((term.charAt(0) == token.charAt(0) || term.charAt(1) == token.charAt(1))
+                            && withinDistance(token, term, maxDistance)) {
+                        expansions.put(term, FUZZY_FACTOR);
+                    }
+                }
+            }
+        }
+        return expansions;
+    }
+
+    /**
+     * Levenshtein distance <= max, giving up as soon as a whole row exceeds max
+     */
+    static boolean withinDistance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= max;
+    }
+
+    private static List<Integer> topN(List<Integer> ordinals, Comparator<Integer> byRank, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            ordinals.sort(byRank);
+            return ordinals;
+        }
+        int from = (int) Math.min(pageable.getOffset(), ordinals.size());
+        int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), ordinals.size());
+        if (from >= to) {
+            return List.of();
+        }
+        // Bounded heap of the best `to` documents; worst on top
+        PriorityQueue<Integer> best = new PriorityQueue<>(to, byRank.reversed());
+        for (Integer ordinal : ordinals) {
+            best.offer(ordinal);
+            if (best.size() > to) {
+                best.poll();
+            }
+        }
+        List<Integer> ranked = new ArrayList<>(best);
+        ranked.sort(byRank);
+        return ranked.subList(from, to);
+    }
+
+    private static int priceBucket(double price) {
+        int bucket = 0;
+        while (bucket < PRICE_BUCKETS.length && price >= PRICE_BUCKETS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static String priceRange(int bucket) {
+        long from = bucket == 0 ? 0 : (long) PRICE_BUCKETS[bucket - 1];
+        return bucket == PRICE_BUCKETS.length ? from + "+" : from + "-" + (long) PRICE_BUCKETS[bucket];
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
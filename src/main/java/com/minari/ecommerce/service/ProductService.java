@@ -1,5 +1,6 @@
 package com.minari.ecommerce.service;
 
+import com.minari.ecommerce.dto.ProductSearchResult;
 import com.minari.ecommerce.entity.Product;
 import com.minari.ecommerce.entity.ProductCategory;
 import com.minari.ecommerce.repository.ProductRepository;
@@ -18,6 +19,10 @@ public class ProductService {
     private final com.minari.ecommerce.repository.OrderItemRepository orderItemRepository;
     private final com.minari.ecommerce.repository.CartItemRepository cartItemRepository;
     private final com.minari.ecommerce.repository.ProductReviewRepository productReviewRepository;
+    private final com.minari.ecommerce.repository.ShoppingCartRepository shoppingCartRepository;
+    private final CatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final org.springframework.context.ApplicationEventPublisher eventPublisher;
     @jakarta.persistence.PersistenceContext
     private jakarta.persistence.EntityManager entityManager;
 
@@ -25,28 +30,72 @@ public class ProductService {
             ProductCategoryRepository categoryRepository,
             com.minari.ecommerce.repository.OrderItemRepository orderItemRepository,
             com.minari.ecommerce.repository.CartItemRepository cartItemRepository,
-            com.minari.ecommerce.repository.ProductReviewRepository productReviewRepository) {
+            com.minari.ecommerce.repository.ProductReviewRepository productReviewRepository,
+            com.minari.ecommerce.repository.ShoppingCartRepository shoppingCartRepository,
+            CatalogCache catalogCache,
+            ProductSearchIndex searchIndex,
+            org.springframework.context.ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.orderItemRepository = orderItemRepository;
         this.cartItemRepository = cartItemRepository;
         this.productReviewRepository = productReviewRepository;
+        this.shoppingCartRepository = shoppingCartRepository;
+        this.catalogCache = catalogCache;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Cached, read-only list (see CatalogCache)
+     */
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return catalogCache.getAllProducts();
     }
 
     public Optional<Product> getProductById(Long id) {
         return productRepository.findById(id);
     }
 
+    /**
+     * All matches, best first (admin product list)
+     */
     public List<Product> searchProducts(String query) {
-        return productRepository.searchByNameOrDescription(query);
-    }
+        return search(query, null, null, org.springframework.data.domain.Pageable.unpaged()).getProducts().getContent();
+    }
+
+    /**
+     * Ranked, paginated search with facet counts, served by ProductSearchIndex.
+     * Falls back to an unranked SQL LIKE scan while the index is still being built.
+     */
+    public ProductSearchResult search(String query, Long categoryId, String brand,
+            org.springframework.data.domain.Pageable pageable) {
+        if (!searchIndex.isReady()) {
+            List<Product> matches = productRepository.searchByNameOrDescription(query == null ? "" : query.trim());
+            return new ProductSearchResult(
+                    new org.springframework.data.domain.PageImpl<>(matches, org.springframework.data.domain.Pageable.unpaged(), matches.size()),
+                    java.util.Map.of(), 0);
+        }
 
+        ProductSearchIndex.Hits hits = searchIndex.search(query, categoryId, brand, pageable);
+        java.util.Map<Long, Product> byId = new java.util.HashMap<>();
+        if (!hits.getIds().isEmpty()) {
+            productRepository.findWithCategoryByIdIn(hits.getIds()).forEach(p -> byId.put(p.getId(), p));
+        }
+        List<Product> page = hits.getIds().stream()
+                .map(byId::get)
+                .filter(java.util.Objects::nonNull)
+                .toList();
+        return new ProductSearchResult(
+                new org.springframework.data.domain.PageImpl<>(page, pageable, hits.getTotal()),
+                hits.getFacets(), hits.getTookMicros());
+    }
+
+    /**
+     * Cached, read-only list (see CatalogCache)
+     */
     public List<Product> getProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+        return catalogCache.getProductsByCategory(categoryId);
     }
 
     public List<Product> getProductsByPriceRange(Double minPrice, Double maxPrice) {
@@ -54,7 +103,9 @@ public class ProductService {
     }
 
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(CatalogChangedEvent.products(saved.getId()));
+        return saved;
     }
 
     public void deleteProduct(Long id) {
@@ -82,7 +133,14 @@ public class ProductService {
 
             // 3. Delete dependent entities (Cascade is usually enough, but explicit is
             // safer)
-            cartItemRepository.deleteAll(cartItemRepository.findByProductId(product.getId()));
+            List<com.minari.ecommerce.entity.CartItem> cartItems = cartItemRepository.findByProductId(product.getId());
+            cartItemRepository.deleteAll(cartItems);
+            // Keep the stored cart totals of the affected carts in line
+            java.util.Set<Long> cartIds = new java.util.HashSet<>();
+            cartItems.forEach(item -> cartIds.add(item.getShoppingCart().getId()));
+            if (!cartIds.isEmpty()) {
+                shoppingCartRepository.recalculateTotals(cartIds);
+            }
             productReviewRepository.deleteAll(productReviewRepository.findByProductId(product.getId()));
 
 
@@ -94,23 +152,34 @@ public class ProductService {
 
             // 6. Clear persistence context to prevent dirty check resurrection
             entityManager.clear();
+
+            eventPublisher.publishEvent(CatalogChangedEvent.products(id));
         }
     }
 
+    /**
+     * Cached, read-only list (see CatalogCache)
+     */
     public List<ProductCategory> getAllCategories() {
-        return categoryRepository.findAll();
+        return catalogCache.getCategories().getAll();
     }
 
+    /**
+     * Cached, read-only category (see CatalogCache)
+     */
     public Optional<ProductCategory> getCategoryById(Long id) {
-        return categoryRepository.findById(id);
+        return catalogCache.getCategories().get(id);
     }
 
     public ProductCategory saveCategory(ProductCategory category) {
-        return categoryRepository.save(category);
+        ProductCategory saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(CatalogChangedEvent.categories(saved.getId()));
+        return saved;
     }
 
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.categories(id));
     }
 
     // Statistics methods
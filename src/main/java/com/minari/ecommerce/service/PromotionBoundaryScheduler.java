@@ -0,0 +1,126 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.repository.PromotionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Fires exactly at the next promotion start or end date instead of polling.
+ *
+ * Only the earliest upcoming boundary is armed on the task scheduler. When it fires,
+ * ended promotions are deactivated with one bulk UPDATE and a PromotionsChangedEvent
+ * is published, which rebuilds the promotion rules and re-arms the timer for the
+ * boundary after it. Any promotion write re-arms the timer too.
+ */
+@Service
+public class PromotionBoundaryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionBoundaryScheduler.class);
+
+    private final PromotionRepository promotionRepository;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private ScheduledFuture<?> armed;
+    private LocalDateTime armedFor;
+
+    public PromotionBoundaryScheduler(PromotionRepository promotionRepository, TaskScheduler taskScheduler,
+            PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher) {
+        this.promotionRepository = promotionRepository;
+        this.taskScheduler = taskScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        // Promotions that ended while the app was down
+        fireBoundary();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionsChanged(PromotionsChangedEvent event) {
+        rearm();
+    }
+
+    /**
+     * Safety net for promotions edited directly in the database
+     */
+    @Scheduled(fixedDelayString = "${app.promotions.boundary-resync-ms:900000}",
+            initialDelayString = "${app.promotions.boundary-resync-ms:900000}")
+    public void resync() {
+        rearm();
+    }
+
+    /**
+     * The armed timer fired. Forget it first: the re-arm after this run may find the same
+     * boundary again (when the timer fired a little early) and must not take the still
+     * running task for a pending one.
+     */
+    private void onTimer() {
+        synchronized (this) {
+            armed = null;
+            armedFor = null;
+        }
+        fireBoundary();
+    }
+
+    /**
+     * Deactivate ended promotions and tell the caches; runs on the scheduler thread
+     */
+    void fireBoundary() {
+        try {
+            Integer expired = transactionTemplate.execute(status -> {
+                int count = promotionRepository.deactivateEnded(LocalDateTime.now());
+                // Published for starts too, so the rules pick up newly started promotions
+                eventPublisher.publishEvent(new PromotionsChangedEvent(null));
+                return count;
+            });
+            if (expired != null && expired > 0) {
+                log.info("Deactivated {} ended promotions", expired);
+            }
+        } catch (Exception e) {
+            log.error("Promotion boundary run failed", e);
+            rearm();
+        }
+    }
+
+    /**
+     * Arm the timer for the earliest upcoming start or end date
+     */
+    public synchronized void rearm() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextStart = promotionRepository.findNextStartAfter(now);
+        LocalDateTime nextEnd = promotionRepository.findNextEndAfter(now);
+        LocalDateTime next = nextStart == null ? nextEnd
+                : nextEnd == null ? nextStart
+                : nextStart.isBefore(nextEnd) ? nextStart : nextEnd;
+
+        if (next != null && next.equals(armedFor) && armed != null && !armed.isDone()) {
+            return;
+        }
+        if (armed != null) {
+            armed.cancel(false);
+            armed = null;
+        }
+        armedFor = next;
+        if (next != null) {
+            armed = taskScheduler.schedule(this::onTimer, next.atZone(ZoneId.systemDefault()).toInstant());
+            log.debug("Next promotion boundary at {}", next);
+        }
+    }
+}
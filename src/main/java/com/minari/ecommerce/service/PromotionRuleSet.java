@@ -0,0 +1,237 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.dto.DiscountCalculation;
+import com.minari.ecommerce.entity.CartItem;
+import com.minari.ecommerce.entity.Promotion;
+import com.minari.ecommerce.entity.ShoppingCart;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Active promotions compiled for pricing.
+ *
+ * applicableCategories is parsed once per promotion and inverted into a
+ * category id -> rule index map, so a cart is priced with one pass over its lines
+ * plus one pass over the rules. Instances are immutable; PromotionService swaps in a
+ * new one whenever promotions change.
+ *
+ * Usage limits are not part of the rules: used_count changes with every checkout, so callers
+ * pass the promotions that are used up (PromotionUsageService.unavailablePromotionIds).
+ *
+ * A rule only applies between its startDate and endDate. Before the rule set existed an
+ * active promotion applied from the moment it was saved, whatever its startDate; admins
+ * who want that should leave startDate empty or set it to now.
+ */
+public final class PromotionRuleSet {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionRuleSet.class);
+
+    private static final int PERCENTAGE = 0;
+    private static final int FIXED_AMOUNT = 1;
+    private static final int NO_DISCOUNT = 2;
+
+    /**
+     * One promotion with everything pricing needs as primitives
+     */
+    private static final class Rule {
+        final Promotion promotion;
+        final int discountType;
+        final double discountValue;
+        final double minPurchase;
+        final long startsAt;
+        final long endsAt;
+        final boolean allCategories;
+        final boolean customerLimited;
+
+        Rule(Promotion promotion, boolean allCategories) {
+            this.promotion = promotion;
+            this.discountType = promotion.getDiscountType() == Promotion.DiscountType.PERCENTAGE ? PERCENTAGE
+                    : promotion.getDiscountType() == Promotion.DiscountType.FIXED_AMOUNT ? FIXED_AMOUNT
+                    : NO_DISCOUNT;
+            this.discountValue = promotion.getDiscountValue() != null ? promotion.getDiscountValue() : 0.0;
+            this.minPurchase = promotion.getMinPurchaseAmount() != null ? promotion.getMinPurchaseAmount() : 0.0;
+            this.startsAt = toMillis(promotion.getStartDate(), Long.MIN_VALUE);
+            this.endsAt = toMillis(promotion.getEndDate(), Long.MAX_VALUE);
+            this.allCategories = allCategories;
+            this.customerLimited = promotion.getCustomerUsageLimit() != null;
+        }
+
+        boolean inEffectAt(long now) {
+            return startsAt <= now && now <= endsAt;
+        }
+    }
+
+    private final Rule[] rules;
+    private final Map<Long, int[]> rulesByCategory;
+    private final boolean hasCustomerLimits;
+
+    private PromotionRuleSet(Rule[] rules, Map<Long, int[]> rulesByCategory) {
+        this.rules = rules;
+        this.rulesByCategory = rulesByCategory;
+        this.hasCustomerLimits = Arrays.stream(rules).anyMatch(rule -> rule.customerLimited);
+    }
+
+    public static PromotionRuleSet compile(List<Promotion> activePromotions) {
+        Rule[] rules = new Rule[activePromotions.size()];
+        Map<Long, List<Integer>> index = new HashMap<>();
+        for (int i = 0; i < rules.length; i++) {
+            Promotion promo = activePromotions.get(i);
+            Set<Long> categoryIds = parseCategoryIds(promo.getApplicableCategories());
+            rules[i] = new Rule(promo, categoryIds.isEmpty());
+            for (Long categoryId : categoryIds) {
+                index.computeIfAbsent(categoryId, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<Long, int[]> rulesByCategory = new HashMap<>(index.size() * 2);
+        index.forEach((categoryId, ruleIndexes) ->
+                rulesByCategory.put(categoryId, ruleIndexes.stream().mapToInt(Integer::intValue).toArray()));
+        return new PromotionRuleSet(rules, rulesByCategory);
+    }
+
+    /**
+     * Best discount for the cart among the rules in effect at the given time, skipping the
+     * given promotion ids (used up, or used up by this customer)
+     */
+    public DiscountCalculation evaluate(ShoppingCart cart, long now, Set<Long> excludedPromotionIds) {
+        if (cart == null || cart.getItems().isEmpty() || rules.length == 0) {
+            return new DiscountCalculation(0.0, null, 0.0);
+        }
+
+        double productsSubtotal = cart.getTotalAmount();
+
+        // Category-restricted rules: sum eligible line subtotals in one pass over the cart
+        double[] eligible = new double[rules.length];
+        if (!rulesByCategory.isEmpty()) {
+            for (CartItem item : cart.getItems()) {
+                if (item.getProduct() != null && item.getProduct().getCategory() != null) {
+                    addLine(eligible, item.getProduct().getCategory().getId(), item.getSubtotal());
+                }
+            }
+        }
+
+        double[] best = new double[2];
+        int r = bestRule(productsSubtotal, eligible, now, excludedPromotionIds, best);
+        return r < 0
+                ? new DiscountCalculation(0.0, null, 0.0)
+                : new DiscountCalculation(best[0], rules[r].promotion, best[1]);
+    }
+
+    /**
+     * Best discount for one order given as lines [from, to) of parallel arrays, e.g. a
+     * historical order being replayed. A category id below 0 means the line has no category.
+     */
+    public double bestDiscount(double productsSubtotal, long[] lineCategoryIds, double[] lineSubtotals,
+            int from, int to, long now) {
+        if (rules.length == 0 || from >= to) {
+            return 0.0;
+        }
+        double[] eligible = new double[rules.length];
+        if (!rulesByCategory.isEmpty()) {
+            for (int i = from; i < to; i++) {
+                if (lineCategoryIds[i] >= 0) {
+                    addLine(eligible, lineCategoryIds[i], lineSubtotals[i]);
+                }
+            }
+        }
+        double[] best = new double[2];
+        return bestRule(productsSubtotal, eligible, now, Set.of(), best) < 0 ? 0.0 : best[0];
+    }
+
+    private void addLine(double[] eligible, Long categoryId, double lineSubtotal) {
+        int[] ruleIndexes = rulesByCategory.get(categoryId);
+        if (ruleIndexes == null) {
+            return;
+        }
+        for (int r : ruleIndexes) {
+            eligible[r] += lineSubtotal;
+        }
+    }
+
+    /**
+     * Index of the rule giving the largest discount, or -1; best receives {discount, eligible subtotal}
+     */
+    private int bestRule(double productsSubtotal, double[] eligible, long now, Set<Long> excludedPromotionIds,
+            double[] best) {
+        int bestIndex = -1;
+        for (int r = 0; r < rules.length; r++) {
+            Rule rule = rules[r];
+            if (!rule.inEffectAt(now) || productsSubtotal < rule.minPurchase
+                    || (!excludedPromotionIds.isEmpty() && excludedPromotionIds.contains(rule.promotion.getId()))) {
+                continue;
+            }
+            // Empty categories = applies to all products
+            double eligibleSubtotal = rule.allCategories ? productsSubtotal : eligible[r];
+            if (eligibleSubtotal <= 0) {
+                continue;
+            }
+
+            double discount = switch (rule.discountType) {
+                case PERCENTAGE -> eligibleSubtotal * (rule.discountValue / 100.0);
+                // Fixed amount applies but capped at eligible subtotal
+                case FIXED_AMOUNT -> Math.min(eligibleSubtotal, rule.discountValue);
+                default -> 0.0;
+            };
+            if (discount > best[0]) {
+                best[0] = discount;
+                best[1] = eligibleSubtotal;
+                bestIndex = r;
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Active promotions whose start/end window contains the given time
+     */
+    public List<Promotion> promotionsAt(long now) {
+        List<Promotion> promotions = new ArrayList<>(rules.length);
+        for (Rule rule : rules) {
+            if (rule.inEffectAt(now)) {
+                promotions.add(rule.promotion);
+            }
+        }
+        return promotions;
+    }
+
+    /**
+     * Whether any rule has a customerUsageLimit, i.e. pricing for a customer needs their redemptions
+     */
+    public boolean hasCustomerLimits() {
+        return hasCustomerLimits;
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    /**
+     * "[1, 2, 3]" -> {1, 2, 3}; invalid ids are logged and skipped
+     */
+    static Set<Long> parseCategoryIds(String applicableCategories) {
+        if (applicableCategories == null || applicableCategories.isBlank() || applicableCategories.equals("[]")) {
+            return Set.of();
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        String clean = applicableCategories.replace("[", "").replace("]", "").replace(" ", "");
+        for (String s : clean.split(",")) {
+            if (s.isEmpty()) {
+                continue;
+            }
+            try {
+                ids.add(Long.parseLong(s));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid category ID in promotion: {}", s);
+            }
+        }
+        return ids;
+    }
+
+    private static long toMillis(LocalDateTime dateTime, long defaultValue) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : defaultValue;
+    }
+}
@@ -1,128 +1,132 @@
 package com.minari.ecommerce.service;
 
 import com.minari.ecommerce.dto.DiscountCalculation;
-import com.minari.ecommerce.entity.CartItem;
+import com.minari.ecommerce.entity.Order;
 import com.minari.ecommerce.entity.Promotion;
 import com.minari.ecommerce.entity.ShoppingCart;
 import com.minari.ecommerce.repository.PromotionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
 @Service
 public class PromotionService {
     private static final Logger log = LoggerFactory.getLogger(PromotionService.class);
     
     private final PromotionRepository promotionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PromotionUsageService promotionUsageService;
 
-    public PromotionService(PromotionRepository promotionRepository) {
+    // Compiled active promotions, replaced as a whole (copy-on-write)
+    private volatile PromotionRuleSet ruleSet;
+
+    public PromotionService(PromotionRepository promotionRepository, ApplicationEventPublisher eventPublisher,
+            PromotionUsageService promotionUsageService) {
         this.promotionRepository = promotionRepository;
+        this.eventPublisher = eventPublisher;
+        this.promotionUsageService = promotionUsageService;
     }
 
     public Promotion getPromotionByCode(String promoCode) {
         return promotionRepository.findByPromoCode(promoCode);
     }
 
+    /**
+     * Admin create/update; rebuilds the rule set once the transaction commits. Checkout
+     * usage must not come through here: PromotionUsageService writes used_count with SQL
+     * so redemptions never trigger a rebuild.
+     */
     public Promotion savePromotion(Promotion promotion) {
-        return promotionRepository.save(promotion);
+        Promotion saved = promotionRepository.save(promotion);
+        eventPublisher.publishEvent(new PromotionsChangedEvent(saved.getId()));
+        return saved;
     }
 
-    @org.springframework.scheduling.annotation.Scheduled(fixedRate = 60000)
-    public void updateExpiredPromotions() {
-        java.util.List<Promotion> activePromotions = promotionRepository.findByIsActive(true);
-        java.time.LocalDateTime now = java.time.LocalDateTime.now();
-
-        for (Promotion promo : activePromotions) {
-            if (promo.getEndDate() != null && promo.getEndDate().isBefore(now)) {
-                promo.setIsActive(false);
-                promotionRepository.save(promo);
-            }
-        }
+    public void deletePromotion(Long id) {
+        promotionRepository.deleteById(id);
+        eventPublisher.publishEvent(new PromotionsChangedEvent(id));
     }
 
+    /**
+     * Active promotions that have started and not yet ended, from the compiled rule set.
+     * Start/end boundaries are handled by PromotionBoundaryScheduler.
+     */
     public java.util.List<Promotion> getActivePromotions() {
-        return promotionRepository.findByIsActive(true);
+        return getRuleSet().promotionsAt(System.currentTimeMillis());
     }
     
     /**
-     * Calculate the best applicable discount for a shopping cart
-     * @param cart The shopping cart to calculate discount for
-     * @return DiscountCalculation containing discount amount, applied promotion, and eligible subtotal
+     * Best discount for a customer's cart, skipping promotions that are used up or
+     * that the customer has used customerUsageLimit times
      */
-    public DiscountCalculation calculateBestDiscount(ShoppingCart cart) {
-        if (cart == null || cart.getItems().isEmpty()) {
-            return new DiscountCalculation(0.0, null, 0.0);
-        }
-        
-        double productsSubtotal = cart.getTotalAmount();
-        double bestDiscountAmount = 0.0;
-        Promotion appliedPromotion = null;
-        double bestEligibleSubtotal = 0.0;
-        
-        List<Promotion> activePromotions = getActivePromotions();
-        
-        for (Promotion promo : activePromotions) {
-            // Check basic constraints
-            if (promo.getMinPurchaseAmount() != null && productsSubtotal < promo.getMinPurchaseAmount()) {
-                continue;
-            }
-            if (promo.getUsageLimit() != null && promo.getUsedCount() >= promo.getUsageLimit()) {
-                continue;
-            }
-            
-            // Check Category Applicability
-            // Parse applicable categories
-            List<Long> applicableCategoryIds = new ArrayList<>();
-            String catParams = promo.getApplicableCategories();
-            if (catParams != null && !catParams.isEmpty() && !catParams.equals("[]")) {
-                String clean = catParams.replace("[", "").replace("]", "").replace(" ", "");
-                for (String s : clean.split(",")) {
-                    try {
-                        applicableCategoryIds.add(Long.parseLong(s));
-                    } catch(NumberFormatException e) {
-                        log.warn("Invalid category ID in promotion: {}", s);
-                    }
-                }
-            }
-            
-            // Calculate eligible subtotal
-            double eligibleSubtotal = 0.0;
-            if (applicableCategoryIds.isEmpty()) {
-                // Empty categories = applies to all products
-                eligibleSubtotal = productsSubtotal;
-            } else {
-                for (CartItem item : cart.getItems()) {
-                    if (item.getProduct().getCategory() != null && 
-                        applicableCategoryIds.contains(item.getProduct().getCategory().getId())) {
-                        eligibleSubtotal += item.getSubtotal();
-                    }
-                }
-            }
-            
-            if (eligibleSubtotal > 0) {
-                double discount = 0.0;
-                if (promo.getDiscountType() == Promotion.DiscountType.PERCENTAGE) {
-                    discount = eligibleSubtotal * (promo.getDiscountValue() / 100.0);
-                } else if (promo.getDiscountType() == Promotion.DiscountType.FIXED_AMOUNT) {
-                    // Fixed amount applies but capped at eligible subtotal
-                    discount = Math.min(eligibleSubtotal, promo.getDiscountValue());
-                }
-                
-                if (discount > bestDiscountAmount) {
-                    bestDiscountAmount = discount;
-                    appliedPromotion = promo;
-                    bestEligibleSubtotal = eligibleSubtotal;
-                }
+    public DiscountCalculation calculateBestDiscount(ShoppingCart cart, Long customerId) {
+        PromotionRuleSet rules = getRuleSet();
+        Set<Long> unavailable = promotionUsageService.unavailablePromotionIds(customerId, rules.hasCustomerLimits());
+        return rules.evaluate(cart, System.currentTimeMillis(), unavailable);
+    }
+
+    /**
+     * Pick the best discount for a checkout and take one use of its promotion.
+     * If the last use is taken concurrently, the next best promotion is tried.
+     * Must run inside the checkout transaction; the use is returned if it rolls back.
+     */
+    public DiscountCalculation applyBestDiscount(ShoppingCart cart, Long customerId) {
+        PromotionRuleSet rules = getRuleSet();
+        long now = System.currentTimeMillis();
+        Set<Long> unavailable = new HashSet<>(
+                promotionUsageService.unavailablePromotionIds(customerId, rules.hasCustomerLimits()));
+        while (true) {
+            DiscountCalculation result = rules.evaluate(cart, now, unavailable);
+            Promotion promo = result.getAppliedPromotion();
+            if (promo == null || promotionUsageService.tryAcquire(promo, customerId)) {
+                return result;
             }
+            log.info("Promotion {} is used up, trying the next best", promo.getName());
+            unavailable.add(promo.getId());
+        }
+    }
+
+    /**
+     * Record which order used the promotion, once the order has its id
+     */
+    public void recordRedemption(Order order) {
+        promotionUsageService.recordRedemption(order);
+    }
+
+    public PromotionRuleSet getRuleSet() {
+        PromotionRuleSet current = ruleSet;
+        if (current == null) {
+            current = rebuildRules();
         }
-        
-        log.info("Best discount calculated: {} for promotion: {}", 
-                 bestDiscountAmount, 
-                 appliedPromotion != null ? appliedPromotion.getName() : "None");
-        
-        return new DiscountCalculation(bestDiscountAmount, appliedPromotion, bestEligibleSubtotal);
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildRules();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionsChanged(PromotionsChangedEvent event) {
+        rebuildRules();
+    }
+
+    /**
+     * Compile the active promotions and swap them in; concurrent pricing keeps
+     * using the previous rule set until the new one is published
+     */
+    public synchronized PromotionRuleSet rebuildRules() {
+        long start = System.nanoTime();
+        PromotionRuleSet rebuilt = PromotionRuleSet.compile(promotionRepository.findByIsActive(true));
+        ruleSet = rebuilt;
+        log.debug("Compiled {} promotion rules in {} us", rebuilt.size(), (System.nanoTime() - start) / 1000);
+        return rebuilt;
     }
-}
\ No newline at end of file
+}
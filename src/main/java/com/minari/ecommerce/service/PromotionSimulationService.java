@@ -0,0 +1,266 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.dto.PromotionSimulationRequest;
+import com.minari.ecommerce.entity.OrderStatus;
+import com.minari.ecommerce.entity.Promotion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Replays a draft promotion over past orders to estimate what it would have cost.
+ *
+ * Orders are read in keyset chunks of app.promotions.simulation-chunk-size as primitive
+ * arrays. Each chunk is priced in parallel with the same PromotionRuleSet code as
+ * checkout while the next chunk is loaded, so at most two chunks are in memory.
+ * Results are then folded in order-id order so usageLimit and customerUsageLimit are
+ * consumed chronologically, as they would have been at checkout.
+ *
+ * The draft only wins an order when it beats the discount the order actually got
+ * (checkout applies the single best promotion), so the cost reported is the increase
+ * over what was really given.
+ */
+@Service
+public class PromotionSimulationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionSimulationService.class);
+
+    private static final Set<OrderStatus> NON_SALE_STATUSES =
+            EnumSet.of(OrderStatus.CANCELLED, OrderStatus.REFUNDED, OrderStatus.RETURNED);
+
+    private static final String SALE_FILTER = NON_SALE_STATUSES.stream()
+            .map(s -> "'" + s.name() + "'")
+            .collect(Collectors.joining(", ", "status NOT IN (", ")"));
+
+    private static final String CHUNK_IDS_SQL = "SELECT id FROM orders " +
+            "WHERE order_date >= ? AND id > ? AND " + SALE_FILTER + " ORDER BY id LIMIT ?";
+
+    private static final String CHUNK_LINES_SQL = "SELECT o.id, o.user_id, o.subtotal_amount, o.discount_amount, " +
+            "p.category_id, oi.total_price FROM orders o " +
+            "JOIN order_items oi ON oi.order_id = o.id " +
+            "LEFT JOIN products p ON p.id = oi.product_id " +
+            "WHERE o.id BETWEEN ? AND ? AND o.order_date >= ? AND o." + SALE_FILTER + " " +
+            "ORDER BY o.id, oi.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+
+    public PromotionSimulationService(JdbcTemplate jdbcTemplate,
+            @Value("${app.promotions.simulation-chunk-size:2000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * One chunk of orders: order i owns lines [lineStart[i], lineStart[i + 1])
+     */
+    private static final class Chunk {
+        int orders;
+        long lastOrderId;
+        long[] customerIds;
+        double[] subtotals;
+        double[] actualDiscounts;
+        int[] lineStart;
+        int lines;
+        long[] lineCategoryIds;
+        double[] lineTotals;
+
+        Chunk(int capacity) {
+            customerIds = new long[capacity];
+            subtotals = new double[capacity];
+            actualDiscounts = new double[capacity];
+            lineStart = new int[capacity + 1];
+            lineCategoryIds = new long[capacity * 4];
+            lineTotals = new double[capacity * 4];
+        }
+
+        void addLine(long categoryId, double total) {
+            if (lines == lineTotals.length) {
+                lineCategoryIds = Arrays.copyOf(lineCategoryIds, lines * 2);
+                lineTotals = Arrays.copyOf(lineTotals, lines * 2);
+            }
+            lineCategoryIds[lines] = categoryId;
+            lineTotals[lines] = total;
+            lines++;
+        }
+    }
+
+    /**
+     * Running totals, folded chunk by chunk in order
+     */
+    private static final class Totals {
+        final Integer usageLimit;
+        final Integer customerUsageLimit;
+        final Map<Long, Integer> usesByCustomer = new HashMap<>();
+
+        long ordersScanned;
+        long linesScanned;
+        long eligibleOrders;
+        long affectedOrders;
+        long keptExistingDiscount;
+        long blockedByUsageLimit;
+        long blockedByCustomerLimit;
+        double revenue;
+        double grossDiscount;
+        double incrementalDiscount;
+
+        Totals(Integer usageLimit, Integer customerUsageLimit) {
+            this.usageLimit = usageLimit;
+            this.customerUsageLimit = customerUsageLimit;
+        }
+
+        void add(Chunk chunk, double[] draftDiscounts) {
+            ordersScanned += chunk.orders;
+            linesScanned += chunk.lines;
+            for (int i = 0; i < chunk.orders; i++) {
+                revenue += chunk.subtotals[i];
+                double discount = draftDiscounts[i];
+                if (discount <= 0) {
+                    continue;
+                }
+                eligibleOrders++;
+                if (discount <= chunk.actualDiscounts[i]) {
+                    keptExistingDiscount++;
+                    continue;
+                }
+                if (usageLimit != null && affectedOrders >= usageLimit) {
+                    blockedByUsageLimit++;
+                    continue;
+                }
+                long customerId = chunk.customerIds[i];
+                if (customerUsageLimit != null && customerId >= 0) {
+                    int uses = usesByCustomer.getOrDefault(customerId, 0);
+                    if (uses >= customerUsageLimit) {
+                        blockedByCustomerLimit++;
+                        continue;
+                    }
+                    usesByCustomer.put(customerId, uses + 1);
+                }
+                affectedOrders++;
+                grossDiscount += discount;
+                incrementalDiscount += discount - chunk.actualDiscounts[i];
+            }
+        }
+    }
+
+    public Map<String, Object> simulate(PromotionSimulationRequest request) {
+        long start = System.currentTimeMillis();
+        PromotionRuleSet rules = PromotionRuleSet.compile(List.of(toDraft(request)));
+        LocalDateTime since = LocalDateTime.now().minusDays(request.getDays() != null ? request.getDays() : 90);
+        Totals totals = new Totals(request.getUsageLimit(), request.getCustomerUsageLimit());
+
+        // Chunk N is priced and folded while chunk N + 1 is loaded
+        CompletableFuture<Void> folded = CompletableFuture.completedFuture(null);
+        long afterId = 0;
+        long chunks = 0;
+        while (true) {
+            Chunk chunk = loadChunk(since, afterId);
+            if (chunk == null) {
+                break;
+            }
+            afterId = chunk.lastOrderId;
+            chunks++;
+
+            CompletableFuture<double[]> priced = CompletableFuture.supplyAsync(() -> price(rules, chunk));
+            CompletableFuture<Void> previous = folded;
+            folded = previous.thenCombine(priced, (ignored, discounts) -> {
+                totals.add(chunk, discounts);
+                return null;
+            });
+            previous.join();
+        }
+        folded.join();
+
+        long tookMillis = System.currentTimeMillis() - start;
+        log.info("Simulated promotion '{}' over {} orders ({} lines) in {} ms",
+                request.getName(), totals.ordersScanned, totals.linesScanned, tookMillis);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("since", since.toString());
+        result.put("ordersScanned", totals.ordersScanned);
+        result.put("linesScanned", totals.linesScanned);
+        result.put("eligibleOrders", totals.eligibleOrders);
+        result.put("affectedOrders", totals.affectedOrders);
+        result.put("keptExistingDiscount", totals.keptExistingDiscount);
+        result.put("blockedByUsageLimit", totals.blockedByUsageLimit);
+        result.put("blockedByCustomerLimit", totals.blockedByCustomerLimit);
+        result.put("revenue", totals.revenue);
+        result.put("grossDiscount", totals.grossDiscount);
+        result.put("incrementalDiscount", totals.incrementalDiscount);
+        result.put("averageDiscountPerAffectedOrder",
+                totals.affectedOrders > 0 ? totals.grossDiscount / totals.affectedOrders : 0.0);
+        // No cost prices are stored, so margin impact is the extra discount as a share of product revenue
+        result.put("marginImpactPercent", totals.revenue > 0 ? totals.incrementalDiscount * 100.0 / totals.revenue : 0.0);
+        result.put("chunks", chunks);
+        result.put("tookMillis", tookMillis);
+        return result;
+    }
+
+    private static double[] price(PromotionRuleSet rules, Chunk chunk) {
+        double[] discounts = new double[chunk.orders];
+        IntStream.range(0, chunk.orders).parallel().forEach(i ->
+                discounts[i] = rules.bestDiscount(chunk.subtotals[i], chunk.lineCategoryIds, chunk.lineTotals,
+                        chunk.lineStart[i], chunk.lineStart[i + 1], 0L));
+        return discounts;
+    }
+
+    /**
+     * Next chunk of orders after afterId, or null when there are none left
+     */
+    private Chunk loadChunk(LocalDateTime since, long afterId) {
+        Timestamp sinceTs = Timestamp.valueOf(since);
+        List<Long> ids = jdbcTemplate.queryForList(CHUNK_IDS_SQL, Long.class, sinceTs, afterId, chunkSize);
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        Chunk chunk = new Chunk(ids.size());
+        chunk.lastOrderId = ids.get(ids.size() - 1);
+        // The id range can also hold orders committed after the id query; only the listed ones fit the arrays
+        Set<Long> chunkIds = new HashSet<>(ids);
+        long[] currentOrder = { -1 };
+        jdbcTemplate.query(CHUNK_LINES_SQL, rs -> {
+            long orderId = rs.getLong(1);
+            if (!chunkIds.contains(orderId)) {
+                return;
+            }
+            if (orderId != currentOrder[0]) {
+                int i = chunk.orders++;
+                currentOrder[0] = orderId;
+                long customerId = rs.getLong(2);
+                chunk.customerIds[i] = rs.wasNull() ? -1 : customerId;
+                chunk.subtotals[i] = rs.getDouble(3);
+                chunk.actualDiscounts[i] = rs.getDouble(4);
+                chunk.lineStart[i] = chunk.lines;
+            }
+            long categoryId = rs.getLong(5);
+            chunk.addLine(rs.wasNull() ? -1 : categoryId, rs.getDouble(6));
+        }, ids.get(0), chunk.lastOrderId, sinceTs);
+        chunk.lineStart[chunk.orders] = chunk.lines;
+        return chunk;
+    }
+
+    private static Promotion toDraft(PromotionSimulationRequest request) {
+        Promotion draft = new Promotion();
+        draft.setId(-1L);
+        draft.setName(request.getName() != null ? request.getName() : "Draft");
+        draft.setDiscountType(Promotion.DiscountType.valueOf(request.getDiscountType().toUpperCase()));
+        draft.setDiscountValue(request.getDiscountValue());
+        draft.setMinPurchaseAmount(request.getMinPurchaseAmount() != null ? request.getMinPurchaseAmount() : 0.0);
+        // Limits are applied while folding results in order, not by the rule itself
+        draft.setIsActive(true);
+        if (request.getCategoryIds() != null && !request.getCategoryIds().isEmpty()) {
+            draft.setApplicableCategories(request.getCategoryIds().toString());
+        }
+        return draft;
+    }
+}
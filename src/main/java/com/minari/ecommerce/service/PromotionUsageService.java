@@ -0,0 +1,273 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.entity.Order;
+import com.minari.ecommerce.entity.Promotion;
+import com.minari.ecommerce.entity.PromotionRedemption;
+import com.minari.ecommerce.repository.PromotionRedemptionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Promotion usage accounting for checkout.
+ *
+ * usageLimit is enforced across instances through promotions.used_count, which counts the
+ * uses handed to running instances. An instance takes uses in blocks of
+ * app.promotions.usage-block-size with a conditional UPDATE that never lets used_count pass
+ * usage_limit, then hands them out to its checkouts with a CAS, so a hot voucher touches the
+ * promotions row once per block. Uses still unspent at shutdown are given back; after a crash
+ * they are lost, which can only make a promotion run out early, never oversell it.
+ *
+ * customerUsageLimit is checked against promotion_redemptions (one row per order that
+ * used a promotion) plus the customer's checkouts still in flight, so two parallel
+ * checkouts of the same customer cannot both take the last use.
+ *
+ * A use taken by a checkout that rolls back is returned when the transaction completes.
+ */
+@Service
+public class PromotionUsageService {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionUsageService.class);
+
+    private static final String TAKE_USES_SQL = "UPDATE promotions SET used_count = used_count + ? " +
+            "WHERE id = ? AND (usage_limit IS NULL OR used_count + ? <= usage_limit)";
+    private static final String REMAINING_USES_SQL = "SELECT usage_limit - used_count FROM promotions WHERE id = ?";
+    private static final String RETURN_USES_SQL = "UPDATE promotions SET used_count = used_count - ? WHERE id = ?";
+    private static final String USED_UP_SQL =
+            "SELECT id FROM promotions WHERE usage_limit IS NOT NULL AND used_count >= usage_limit";
+
+    private final PromotionRedemptionRepository redemptionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate leaseTransaction;
+    private final int blockSize;
+
+    // Uses taken from promotions.used_count by this instance and not yet handed to a checkout
+    private final Map<Long, AtomicInteger> blocks = new ConcurrentHashMap<>();
+    // "promotionId:customerId" -> checkouts of that customer holding a use but not yet completed
+    private final Map<String, Integer> inFlightByCustomer = new ConcurrentHashMap<>();
+    // Promotions with no use left for this instance; pricing skips them without a database read
+    private final Set<Long> exhausted = ConcurrentHashMap.newKeySet();
+
+    public PromotionUsageService(PromotionRedemptionRepository redemptionRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.promotions.usage-block-size:10}") int blockSize) {
+        this.redemptionRepository = redemptionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A block is taken in its own transaction: it belongs to the instance, not to the checkout
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /**
+     * Take one use of the promotion for a checkout. Returns false when the promotion or the
+     * customer's share of it is used up. Must be called inside the checkout transaction.
+     */
+    public boolean tryAcquire(Promotion promotion, Long customerId) {
+        Long promotionId = promotion.getId();
+        String customerKey = null;
+        if (promotion.getCustomerUsageLimit() != null && customerId != null) {
+            customerKey = promotionId + ":" + customerId;
+            // Register first, then count: a parallel checkout of the same customer always sees this one
+            int inFlight = inFlightByCustomer.merge(customerKey, 1, Integer::sum);
+            long committed = redemptionRepository.countByPromotionIdAndCustomerId(promotionId, customerId);
+            if (committed + inFlight > promotion.getCustomerUsageLimit()) {
+                releaseCustomer(customerKey);
+                return false;
+            }
+        }
+
+        AtomicInteger block = blocks.computeIfAbsent(promotionId, id -> new AtomicInteger());
+        if (!takeFromBlock(block) && !refillAndTake(promotionId, block)) {
+            exhausted.add(promotionId);
+            if (customerKey != null) {
+                releaseCustomer(customerKey);
+            }
+            return false;
+        }
+        registerCompletion(promotionId, block, customerKey);
+        return true;
+    }
+
+    /**
+     * Record the redemption row for a saved order that used a promotion
+     */
+    public void recordRedemption(Order order) {
+        if (order.getPromotionId() == null) {
+            return;
+        }
+        Long customerId = order.getUser() != null ? order.getUser().getId() : null;
+        redemptionRepository.save(new PromotionRedemption(order.getPromotionId(), customerId, order.getId()));
+    }
+
+    /**
+     * Promotions the customer can no longer use: globally used up, or (when checkCustomerLimits)
+     * already used customerUsageLimit times by this customer
+     */
+    public Set<Long> unavailablePromotionIds(Long customerId, boolean checkCustomerLimits) {
+        if (!checkCustomerLimits || customerId == null) {
+            return exhausted;
+        }
+        Set<Long> unavailable = new HashSet<>(exhausted);
+        unavailable.addAll(redemptionRepository.findPromotionIdsAtCustomerLimit(customerId));
+        return unavailable;
+    }
+
+    /**
+     * Re-read which promotions are used up: another instance may have given uses back, or
+     * taken the last ones. A promotion this instance still holds uses of stays available.
+     */
+    @Scheduled(fixedDelayString = "${app.promotions.usage-recheck-ms:60000}")
+    public void recheckExhausted() {
+        Set<Long> usedUp = new HashSet<>(jdbcTemplate.queryForList(USED_UP_SQL, Long.class));
+        usedUp.removeIf(promotionId -> {
+            AtomicInteger block = blocks.get(promotionId);
+            return block != null && block.get() > 0;
+        });
+        exhausted.retainAll(usedUp);
+        exhausted.addAll(usedUp);
+    }
+
+    /**
+     * Backfill redemptions on first start, then make sure used_count covers every recorded redemption
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (redemptionRepository.count() == 0) {
+                int backfilled = redemptionRepository.backfillFromOrders();
+                if (backfilled > 0) {
+                    log.info("Backfilled {} promotion redemptions from orders", backfilled);
+                }
+            }
+            int fixed = redemptionRepository.reconcileUsedCounts();
+            if (fixed > 0) {
+                log.warn("Reconciled used_count of {} promotions from redemptions", fixed);
+            }
+        });
+        recheckExhausted();
+    }
+
+    /**
+     * An edited promotion may have a new usage limit; the next checkout re-checks it
+     */
+    @EventListener
+    public void onPromotionsChanged(PromotionsChangedEvent event) {
+        if (event.getPromotionId() != null) {
+            exhausted.remove(event.getPromotionId());
+        }
+    }
+
+    /**
+     * Give the uses this instance took but did not spend back to promotions.used_count
+     */
+    @PreDestroy
+    public void shutdown() {
+        List<Object[]> batch = new ArrayList<>();
+        blocks.forEach((promotionId, block) -> {
+            int unspent = block.getAndSet(0);
+            if (unspent > 0) {
+                batch.add(new Object[] { unspent, promotionId });
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(RETURN_USES_SQL, batch);
+        } catch (RuntimeException e) {
+            log.error("Could not return unspent promotion uses", e);
+        }
+    }
+
+    private static boolean takeFromBlock(AtomicInteger block) {
+        int left;
+        do {
+            left = block.get();
+            if (left <= 0) {
+                return false;
+            }
+        } while (!block.compareAndSet(left, left - 1));
+        return true;
+    }
+
+    /**
+     * Take a new block from the database and one use out of it. Only one checkout per promotion
+     * refills at a time; the others find the new block when they get the lock.
+     */
+    private boolean refillAndTake(Long promotionId, AtomicInteger block) {
+        synchronized (block) {
+            if (takeFromBlock(block)) {
+                return true;
+            }
+            int taken = takeUses(promotionId);
+            if (taken == 0) {
+                return false;
+            }
+            // One of the new uses goes to this checkout
+            block.addAndGet(taken - 1);
+            return true;
+        }
+    }
+
+    /**
+     * A full block, or whatever is left below usage_limit; 0 when the promotion is used up
+     */
+    private int takeUses(Long promotionId) {
+        Integer taken = leaseTransaction.execute(status -> {
+            if (jdbcTemplate.update(TAKE_USES_SQL, blockSize, promotionId, blockSize) == 1) {
+                return blockSize;
+            }
+            List<Integer> remaining = jdbcTemplate.queryForList(REMAINING_USES_SQL, Integer.class, promotionId);
+            int size = remaining.isEmpty() || remaining.get(0) == null ? 0 : Math.min(blockSize, remaining.get(0));
+            if (size > 0 && jdbcTemplate.update(TAKE_USES_SQL, size, promotionId, size) == 1) {
+                return size;
+            }
+            return 0;
+        });
+        return taken != null ? taken : 0;
+    }
+
+    private void registerCompletion(Long promotionId, AtomicInteger block, String customerKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (customerKey != null) {
+                releaseCustomer(customerKey);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (customerKey != null) {
+                    releaseCustomer(customerKey);
+                }
+                if (status != STATUS_COMMITTED) {
+                    block.incrementAndGet();
+                    exhausted.remove(promotionId);
+                    log.info("Returned use of promotion {} from a rolled back checkout", promotionId);
+                }
+            }
+        });
+    }
+
+    private void releaseCustomer(String customerKey) {
+        inFlightByCustomer.computeIfPresent(customerKey, (key, count) -> count > 1 ? count - 1 : null);
+    }
+}
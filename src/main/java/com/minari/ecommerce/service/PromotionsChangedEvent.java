@@ -0,0 +1,18 @@
+package com.minari.ecommerce.service;
+
+/**
+ * Published whenever a promotion is created, updated, deleted or expires, so the
+ * compiled promotion rules are rebuilt after the write commits.
+ */
+public class PromotionsChangedEvent {
+
+    private final Long promotionId;
+
+    public PromotionsChangedEvent(Long promotionId) {
+        this.promotionId = promotionId;
+    }
+
+    public Long getPromotionId() {
+        return promotionId;
+    }
+}
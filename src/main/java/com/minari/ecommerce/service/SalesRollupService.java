@@ -0,0 +1,332 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.entity.Order;
+import com.minari.ecommerce.entity.OrderItem;
+import com.minari.ecommerce.entity.OrderStatus;
+import com.minari.ecommerce.repository.CustomerSalesRollupRepository;
+import com.minari.ecommerce.repository.ProductSalesRollupRepository;
+import com.minari.ecommerce.repository.SalesRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Sales rollups for the reports: hourly totals, plus daily totals per customer and per product.
+ *
+ * Orders are added to (or removed from) the rollups after their transaction commits, so
+ * date-range reports read a few rows per day instead of every order. Only orders whose
+ * status counts as a sale are included. rebuild() recomputes everything from the orders
+ * table and its archive copy, and is used for backfill or to repair drift.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final Set<OrderStatus> NON_SALE_STATUSES =
+            EnumSet.of(OrderStatus.CANCELLED, OrderStatus.REFUNDED, OrderStatus.RETURNED);
+
+    private static final String UPDATE_HOUR_SQL = "UPDATE sales_rollups SET order_count = order_count + ?, " +
+            "revenue = revenue + ?, discount_total = discount_total + ? WHERE bucket_date = ? AND bucket_hour = ?";
+    private static final String INSERT_HOUR_SQL = "INSERT INTO sales_rollups " +
+            "(bucket_date, bucket_hour, order_count, revenue, discount_total) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_CUSTOMER_SQL = "UPDATE customer_sales_rollups SET order_count = order_count + ?, " +
+            "revenue = revenue + ? WHERE customer_id = ? AND bucket_date = ?";
+    private static final String INSERT_CUSTOMER_SQL = "INSERT INTO customer_sales_rollups " +
+            "(customer_id, bucket_date, order_count, revenue) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_PRODUCT_SQL = "UPDATE product_sales_rollups SET quantity = quantity + ?, " +
+            "revenue = revenue + ? WHERE product_id = ? AND bucket_date = ?";
+    private static final String INSERT_PRODUCT_SQL = "INSERT INTO product_sales_rollups " +
+            "(product_id, bucket_date, quantity, revenue) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final SalesRollupRepository salesRollupRepository;
+    private final CustomerSalesRollupRepository customerSalesRollupRepository;
+    private final ProductSalesRollupRepository productSalesRollupRepository;
+    private final OrderArchiveService orderArchiveService;
+
+    public SalesRollupService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            SalesRollupRepository salesRollupRepository,
+            CustomerSalesRollupRepository customerSalesRollupRepository,
+            ProductSalesRollupRepository productSalesRollupRepository,
+            OrderArchiveService orderArchiveService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.salesRollupRepository = salesRollupRepository;
+        this.customerSalesRollupRepository = customerSalesRollupRepository;
+        this.productSalesRollupRepository = productSalesRollupRepository;
+        this.orderArchiveService = orderArchiveService;
+    }
+
+    public boolean countsAsSale(OrderStatus status) {
+        return status != null && !NON_SALE_STATUSES.contains(status);
+    }
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) an order from the rollups once the current transaction commits
+     */
+    public void recordOrder(Order order, int sign) {
+        recordOrders(List.of(order), sign);
+    }
+
+    /**
+     * Same for many orders (bulk status transitions), applied by a single after-commit callback
+     */
+    public void recordOrders(Collection<Order> orders, int sign) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<SalesDelta> deltas = orders.stream().map(order -> SalesDelta.of(order, sign)).collect(Collectors.toList());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deltas.forEach(SalesRollupService.this::applySafely);
+                }
+            });
+        } else {
+            deltas.forEach(this::applySafely);
+        }
+    }
+
+    /**
+     * Update the rollups when a status change moves an order in or out of the sales figures
+     */
+    public void recordStatusChange(Order order, OrderStatus oldStatus, OrderStatus newStatus) {
+        boolean before = countsAsSale(oldStatus);
+        boolean after = countsAsSale(newStatus);
+        if (before != after) {
+            recordOrder(order, after ? 1 : -1);
+        }
+    }
+
+    /**
+     * Totals for a date range (both ends inclusive), answered from the daily sums
+     */
+    public Map<String, Object> getStats(LocalDate start, LocalDate end) {
+        long totalOrders = 0;
+        double totalRevenue = 0.0;
+        List<Map<String, Object>> daily = new ArrayList<>();
+
+        for (Object[] row : salesRollupRepository.sumByDate(start, end)) {
+            long orders = ((Number) row[1]).longValue();
+            double revenue = ((Number) row[2]).doubleValue();
+            totalOrders += orders;
+            totalRevenue += revenue;
+
+            Map<String, Object> day = new HashMap<>();
+            day.put("date", row[0].toString());
+            day.put("orders", orders);
+            day.put("revenue", revenue);
+            daily.add(day);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("startDate", start.toString());
+        stats.put("endDate", end.toString());
+        stats.put("totalOrders", totalOrders);
+        stats.put("totalRevenue", totalRevenue);
+        stats.put("averageOrderValue", totalOrders > 0 ? totalRevenue / totalOrders : 0.0);
+        stats.put("totalCustomers", customerSalesRollupRepository.countCustomersBetween(start, end));
+        stats.put("daily", daily);
+        return stats;
+    }
+
+    public List<Map<String, Object>> getTopCustomers(int limit) {
+        return customerSalesRollupRepository.findTopCustomers(PageRequest.of(0, limit)).stream()
+                .map(row -> {
+                    Map<String, Object> customer = new HashMap<>();
+                    customer.put("customerId", row[0]);
+                    customer.put("customerName", row[1] != null ? row[1] : "Customer");
+                    customer.put("orderCount", ((Number) row[2]).longValue());
+                    customer.put("totalSpent", ((Number) row[3]).doubleValue());
+                    return customer;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public List<Map<String, Object>> getTopSellingProducts(int limit) {
+        return productSalesRollupRepository.findTopSellingProducts(PageRequest.of(0, limit)).stream()
+                .map(row -> {
+                    Map<String, Object> product = new HashMap<>();
+                    product.put("name", row[0]);
+                    product.put("imageUrl", row[1]);
+                    product.put("salesCount", row[2]);
+                    return product;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Recompute all rollups from the orders table (and the order archive) in one transaction.
+     * Orders committed or archived while the rebuild runs may be counted twice; run it when the shop is quiet.
+     */
+    public Map<String, Object> rebuild() {
+        log.info("Rebuilding sales rollups");
+        return requiresNew.execute(status -> {
+            jdbcTemplate.update("DELETE FROM sales_rollups");
+            jdbcTemplate.update("DELETE FROM customer_sales_rollups");
+            jdbcTemplate.update("DELETE FROM product_sales_rollups");
+
+            String saleFilter = NON_SALE_STATUSES.stream()
+                    .map(s -> "'" + s.name() + "'")
+                    .collect(Collectors.joining(", ", "status NOT IN (", ")"));
+
+            Map<Bucket, double[]> hours = new HashMap<>();
+            Map<Bucket, double[]> customers = new HashMap<>();
+            Map<Bucket, double[]> products = new HashMap<>();
+            long[] orderCount = { 0 };
+
+            // Archived orders still count: read the archive copies as well
+            List<String> suffixes = orderArchiveService.isReady() ? List.of("", OrderArchiveService.SUFFIX) : List.of("");
+            for (String suffix : suffixes) {
+                jdbcTemplate.query("SELECT order_date, total_amount, discount_amount, COALESCE(customer_id, user_id) AS buyer_id " +
+                        "FROM orders" + suffix + " WHERE order_date IS NOT NULL AND " + saleFilter, rs -> {
+                    LocalDateTime orderDate = rs.getTimestamp("order_date").toLocalDateTime();
+                    double revenue = rs.getDouble("total_amount");
+                    LocalDate date = orderDate.toLocalDate();
+                    add(hours, new Bucket(0, date, orderDate.getHour()), 1, revenue, rs.getDouble("discount_amount"));
+                    long buyerId = rs.getLong("buyer_id");
+                    if (!rs.wasNull()) {
+                        add(customers, new Bucket(buyerId, date, 0), 1, revenue, 0);
+                    }
+                    orderCount[0]++;
+                });
+
+                jdbcTemplate.query("SELECT o.order_date, oi.product_id, oi.quantity, oi.total_price " +
+                        "FROM order_items" + suffix + " oi JOIN orders" + suffix + " o ON o.id = oi.order_id " +
+                        "WHERE oi.product_id IS NOT NULL AND o.order_date IS NOT NULL AND o." + saleFilter, rs -> {
+                    LocalDate date = rs.getTimestamp("order_date").toLocalDateTime().toLocalDate();
+                    add(products, new Bucket(rs.getLong("product_id"), date, 0),
+                            rs.getInt("quantity"), rs.getDouble("total_price"), 0);
+                });
+            }
+
+            List<Object[]> hourRows = new ArrayList<>();
+            hours.forEach((b, v) -> hourRows.add(new Object[] { b.date(), b.hour(), (long) v[0], v[1], v[2] }));
+            jdbcTemplate.batchUpdate(INSERT_HOUR_SQL, hourRows);
+
+            List<Object[]> customerRows = new ArrayList<>();
+            customers.forEach((b, v) -> customerRows.add(new Object[] { b.id(), b.date(), (long) v[0], v[1] }));
+            jdbcTemplate.batchUpdate(INSERT_CUSTOMER_SQL, customerRows);
+
+            List<Object[]> productRows = new ArrayList<>();
+            products.forEach((b, v) -> productRows.add(new Object[] { b.id(), b.date(), (long) v[0], v[1] }));
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, productRows);
+
+            log.info("Sales rollups rebuilt from {} orders", orderCount[0]);
+            Map<String, Object> result = new HashMap<>();
+            result.put("orders", orderCount[0]);
+            result.put("hourBuckets", hourRows.size());
+            result.put("customerBuckets", customerRows.size());
+            result.put("productBuckets", productRows.size());
+            return result;
+        });
+    }
+
+    public boolean isEmpty() {
+        return salesRollupRepository.count() == 0;
+    }
+
+    private static void add(Map<Bucket, double[]> buckets, Bucket bucket, double count, double revenue, double discount) {
+        double[] totals = buckets.computeIfAbsent(bucket, k -> new double[3]);
+        totals[0] += count;
+        totals[1] += revenue;
+        totals[2] += discount;
+    }
+
+    private void applySafely(SalesDelta delta) {
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                requiresNew.executeWithoutResult(status -> apply(delta));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // Another order created the same bucket row first; the retry finds it and updates it
+                log.debug("Sales rollup bucket created concurrently, retrying");
+            } catch (Exception e) {
+                log.error("Failed to update sales rollups for order at {}, run a rollup rebuild", delta.orderDate, e);
+                return;
+            }
+        }
+        log.error("Failed to update sales rollups for order at {}, run a rollup rebuild", delta.orderDate);
+    }
+
+    private void apply(SalesDelta delta) {
+        LocalDate date = delta.orderDate.toLocalDate();
+        int hour = delta.orderDate.getHour();
+        upsert(UPDATE_HOUR_SQL, new Object[] { delta.sign, delta.revenue, delta.discount, date, hour },
+                INSERT_HOUR_SQL, new Object[] { date, hour, delta.sign, delta.revenue, delta.discount });
+
+        if (delta.customerId != null) {
+            upsert(UPDATE_CUSTOMER_SQL, new Object[] { delta.sign, delta.revenue, delta.customerId, date },
+                    INSERT_CUSTOMER_SQL, new Object[] { delta.customerId, date, delta.sign, delta.revenue });
+        }
+
+        delta.products.forEach((productId, line) -> upsert(
+                UPDATE_PRODUCT_SQL, new Object[] { line[0], line[1], productId, date },
+                INSERT_PRODUCT_SQL, new Object[] { productId, date, line[0], line[1] }));
+    }
+
+    private void upsert(String updateSql, Object[] updateArgs, String insertSql, Object[] insertArgs) {
+        if (jdbcTemplate.update(updateSql, updateArgs) == 0) {
+            jdbcTemplate.update(insertSql, insertArgs);
+        }
+    }
+
+    private record Bucket(long id, LocalDate date, int hour) {
+    }
+
+    /**
+     * What one order adds to (or removes from) the rollups, captured while the order is still attached
+     */
+    private static class SalesDelta {
+        private LocalDateTime orderDate;
+        private int sign;
+        private double revenue;
+        private double discount;
+        private Long customerId;
+        // productId -> [quantity, revenue]
+        private final Map<Long, Number[]> products = new TreeMap<>();
+
+        static SalesDelta of(Order order, int sign) {
+            SalesDelta delta = new SalesDelta();
+            delta.orderDate = order.getOrderDate() != null ? order.getOrderDate() : LocalDateTime.now();
+            delta.sign = sign;
+            delta.revenue = sign * value(order.getTotalAmount());
+            delta.discount = sign * value(order.getDiscountAmount());
+            if (order.getCustomer() != null) {
+                delta.customerId = order.getCustomer().getId();
+            } else if (order.getUser() != null) {
+                delta.customerId = order.getUser().getId();
+            }
+            for (OrderItem item : order.getItems()) {
+                if (item.getProduct() == null) {
+                    continue;
+                }
+                Number[] line = delta.products.computeIfAbsent(item.getProduct().getId(), k -> new Number[] { 0L, 0.0 });
+                line[0] = line[0].longValue() + (long) sign * item.getQuantity();
+                line[1] = line[1].doubleValue() + sign * value(item.getTotalPrice());
+            }
+            return delta;
+        }
+
+        private static double value(Double amount) {
+            return amount != null ? amount : 0.0;
+        }
+    }
+}
@@ -1,43 +1,94 @@
 package com.minari.ecommerce.service;
 
+import com.minari.ecommerce.dto.UserSnapshot;
 import com.minari.ecommerce.entity.*;
 import com.minari.ecommerce.repository.ShoppingCartRepository;
 import com.minari.ecommerce.repository.CartItemRepository;
 import com.minari.ecommerce.repository.ProductRepository;
-import com.minari.ecommerce.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.Optional;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
 
+/**
+ * Customer shopping carts.
+ *
+ * shopping_carts.item_count (number of lines) and total_amount are authoritative: every
+ * mutation here applies its delta to them, so counts and totals never need the items.
+ * Mutations lock the cart row first (SELECT ... FOR UPDATE via refresh), so concurrent
+ * requests for the same cart cannot lose each other's deltas.
+ *
+ * mergeGuestCart adds a whole guest cart at once: one product query, one query for the
+ * lines already in the cart, one JDBC batch of updates and one batched insert of the new
+ * lines (cart_items ids come from a pooled sequence), whatever the size of the guest cart.
+ */
 @Service
 @Transactional
 public class ShoppingCartService {
     
+    private static final Logger log = LoggerFactory.getLogger(ShoppingCartService.class);
+
     private final ShoppingCartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String MERGE_UPDATE_SQL =
+            "UPDATE cart_items SET quantity = ?, updated_at = ? WHERE id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
     
     public ShoppingCartService(ShoppingCartRepository cartRepository,
                              CartItemRepository cartItemRepository,
                              ProductRepository productRepository,
-                             UserRepository userRepository) {
+                             UserSnapshotCache userSnapshotCache,
+                             JdbcTemplate jdbcTemplate) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.productRepository = productRepository;
-        this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
+        this.jdbcTemplate = jdbcTemplate;
     }
     
     public ShoppingCart getCartForUser(String email) {
-        User user = userRepository.findByEmail(email)
+        UserSnapshot user = userSnapshotCache.get(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         return cartRepository.findByCustomerId(user.getId())
-                .orElseGet(() -> createNewCart((Customer) user));
+                .orElseGet(() -> createNewCart(userSnapshotCache.reference(user)));
+    }
+
+    /**
+     * The user's cart for checkout: row locked for the rest of the transaction, then its lines
+     * and their products loaded in one query
+     */
+    public ShoppingCart getCartForCheckout(String email) {
+        ShoppingCart cart = lockCart(email);
+        return cartRepository.findWithItemsById(cart.getId()).orElse(cart);
+    }
+
+    /**
+     * Number of lines in the user's cart, read from shopping_carts only
+     */
+    @Transactional(readOnly = true)
+    public int getCartItemCount(String email) {
+        return cartRepository.findItemCountByCustomerEmail(email).orElse(0);
     }
     
     public void addToCart(String email, Long productId, int quantity) {
-        ShoppingCart cart = getCartForUser(email);
+        ShoppingCart cart = lockCart(email);
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
@@ -51,66 +102,184 @@ public class ShoppingCartService {
         }
         
         // Cek apakah item sudah ada di cart
-        Optional<CartItem> existingItem = cart.getItems().stream()
-                .filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst();
+        Optional<CartItem> existingItem = cartItemRepository.findByShoppingCartIdAndProductId(cart.getId(), productId);
         
         if (existingItem.isPresent()) {
             // Update quantity
             CartItem item = existingItem.get();
             item.setQuantity(item.getQuantity() + quantity);
-            cartItemRepository.save(item);
+            cart.adjustTotals(0, item.getUnitPrice() * quantity);
         } else {
             // Add new item
             CartItem newItem = new CartItem(cart, product, quantity);
-            cart.getItems().add(newItem);
             cartItemRepository.save(newItem);
+            if (Hibernate.isInitialized(cart.getItems())) {
+                cart.getItems().add(newItem);
+            }
+            cart.adjustTotals(1, newItem.getSubtotal());
         }
-        
-        cartRepository.save(cart);
+    }
+    
+    /**
+     * Add a guest cart (product id -> quantity) to the user's cart in bulk.
+     * Unlike addToCart, a line that cannot be fulfilled does not fail the merge: unknown and
+     * out-of-stock products are skipped and quantities are capped at the available stock.
+     * Returns the number of guest lines merged.
+     */
+    public int mergeGuestCart(String email, Map<Long, Integer> guestLines) {
+        if (guestLines == null || guestLines.isEmpty()) {
+            return 0;
+        }
+        ShoppingCart cart = lockCart(email);
+        List<Long> productIds = new ArrayList<>(guestLines.keySet());
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findByIdIn(productIds)) {
+            products.put(product.getId(), product);
+        }
+        // productId -> {productId, itemId, quantity, unitPrice} row of each product already in the cart
+        Map<Long, Object[]> existing = new HashMap<>();
+        for (Object[] row : cartItemRepository.findLinesByCartIdAndProductIds(cart.getId(), productIds)) {
+            existing.put((Long) row[0], row);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> updates = new ArrayList<>();
+        List<CartItem> inserts = new ArrayList<>();
+        double amountDelta = 0.0;
+        int skipped = 0;
+
+        for (Map.Entry<Long, Integer> line : guestLines.entrySet()) {
+            Product product = products.get(line.getKey());
+            if (product == null || !product.isInStock() || line.getValue() <= 0) {
+                skipped++;
+                continue;
+            }
+            Object[] current = existing.get(product.getId());
+            int currentQuantity = current != null ? (Integer) current[2] : 0;
+            int quantity = Math.min(currentQuantity + line.getValue(), product.getStockQuantity());
+            int added = quantity - currentQuantity;
+            if (added <= 0) {
+                skipped++;
+                continue;
+            }
+
+            if (current != null) {
+                updates.add(new Object[] { quantity, now, current[1] });
+                amountDelta += (Double) current[3] * added;
+            } else {
+                CartItem item = new CartItem(cart, product, quantity);
+                inserts.add(item);
+                amountDelta += item.getSubtotal();
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(MERGE_UPDATE_SQL, updates);
+        }
+        boolean itemsLoaded = Hibernate.isInitialized(cart.getItems());
+        if (itemsLoaded && !updates.isEmpty()) {
+            // Loaded items no longer match the rows written above
+            entityManager.refresh(cart);
+        }
+        if (!inserts.isEmpty()) {
+            // Flushed as one JDBC batch at commit (hibernate.jdbc.batch_size)
+            cartItemRepository.saveAll(inserts);
+            if (itemsLoaded) {
+                cart.getItems().addAll(inserts);
+            }
+        }
+        cart.adjustTotals(inserts.size(), amountDelta);
+
+        if (skipped > 0) {
+            log.info("Merged guest cart for {}: {} lines, {} skipped (unavailable)", email,
+                    updates.size() + inserts.size(), skipped);
+        }
+        return updates.size() + inserts.size();
     }
     
     public void removeFromCart(String email, Long productId) {
-        ShoppingCart cart = getCartForUser(email);
-        
-        boolean removed = cart.getItems().removeIf(item -> 
-            item.getProduct().getId().equals(productId));
+        ShoppingCart cart = lockCart(email);
         
-        if (removed) {
-            cartRepository.save(cart);
-        }
+        cartItemRepository.findByShoppingCartIdAndProductId(cart.getId(), productId).ifPresent(item -> {
+            if (Hibernate.isInitialized(cart.getItems())) {
+                // orphanRemoval deletes the row
+                cart.getItems().remove(item);
+            } else {
+                cartItemRepository.delete(item);
+            }
+            cart.adjustTotals(-1, -item.getSubtotal());
+        });
     }
     
+    /**
+     * Remove the checked-out lines from a cart returned by getCartForCheckout. The cart is
+     * already locked and loaded, so nothing is re-read (lockCart's refresh would select every
+     * loaded line again); orphanRemoval deletes the rows in one batch.
+     */
+    public void removeCheckedOutItems(ShoppingCart cart, Collection<CartItem> items) {
+        int lines = items.size();
+        double amount = items.stream().mapToDouble(CartItem::getSubtotal).sum();
+        cart.getItems().removeAll(items);
+        cart.adjustTotals(-lines, -amount);
+    }
+
     public void updateCartItemQuantity(String email, Long productId, int quantity) {
         if (quantity <= 0) {
             removeFromCart(email, productId);
             return;
         }
         
-        ShoppingCart cart = getCartForUser(email);
+        ShoppingCart cart = lockCart(email);
         
-        cart.getItems().stream()
-            .filter(item -> item.getProduct().getId().equals(productId))
-            .findFirst()
-            .ifPresent(item -> {
-                item.setQuantity(quantity);
-                cartItemRepository.save(item);
-            });
-        
-        cartRepository.save(cart);
+        cartItemRepository.findByShoppingCartIdAndProductId(cart.getId(), productId).ifPresent(item -> {
+            cart.adjustTotals(0, item.getUnitPrice() * (quantity - item.getQuantity()));
+            item.setQuantity(quantity);
+        });
     }
     
     public void clearCart(String email) {
-        ShoppingCart cart = getCartForUser(email);
+        ShoppingCart cart = lockCart(email);
         
         // Delete all cart items explicitly
-        if (!cart.getItems().isEmpty()) {
+        if (Hibernate.isInitialized(cart.getItems())) {
             cartItemRepository.deleteAll(cart.getItems());
             cart.getItems().clear();
-            cartRepository.save(cart);
+        } else {
+            cartItemRepository.deleteByShoppingCartId(cart.getId());
         }
+        cart.resetTotals();
         
-        System.out.println("Cart cleared for user: " + email);
+        log.info("Cart cleared for user: {}", email);
+    }
+
+    /**
+     * Recompute stored totals from cart_items, for carts changed outside this service
+     */
+    public void recalculateTotals(java.util.Collection<Long> cartIds) {
+        if (!cartIds.isEmpty()) {
+            cartRepository.recalculateTotals(cartIds);
+        }
+    }
+
+    /**
+     * Totals written before they were maintained here may be stale; fix them once at startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileTotals() {
+        int fixed = cartRepository.recalculateStaleTotals();
+        if (fixed > 0) {
+            log.info("Recalculated stored totals of {} shopping carts", fixed);
+        }
+    }
+
+    /**
+     * The user's cart with its row locked and state re-read for this transaction
+     */
+    private ShoppingCart lockCart(String email) {
+        ShoppingCart cart = getCartForUser(email);
+        entityManager.refresh(cart, LockModeType.PESSIMISTIC_WRITE);
+        return cart;
     }
     
     private ShoppingCart createNewCart(User user) {
@@ -118,4 +287,4 @@ public class ShoppingCartService {
         newCart.setCustomer((Customer) user);
         return cartRepository.save(newCart);
     }
-}
\ No newline at end of file
+}
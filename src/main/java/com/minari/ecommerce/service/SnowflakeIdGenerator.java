@@ -0,0 +1,104 @@
+package com.minari.ecommerce.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style ids: 41 bits of milliseconds since 2024-01-01, 10 bits of node id and
+ * a 12-bit sequence, so up to 4096 ids per millisecond per node with no database access.
+ *
+ * The (time, sequence) pair is advanced with one CAS. When a millisecond runs out of
+ * sequence numbers, or the clock steps backwards, the generator moves on to the next
+ * millisecond instead of waiting, so ids stay unique and increasing.
+ *
+ * app.ids.node-id must be different on every instance (0-1023). A derived id (host name and
+ * process id hashed into 10 bits) can collide between instances, so it is only used on a
+ * single-instance setup: no active profile, or only dev/test. Under any other profile
+ * startup fails while the id is not set.
+ */
+@Service
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(SnowflakeIdGenerator.class);
+
+    static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    static final Set<String> SINGLE_NODE_PROFILES = Set.of("dev", "test");
+
+    private final long nodeId;
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${app.ids.node-id:-1}") long nodeId, Environment environment) {
+        this(nodeId, environment.getActiveProfiles());
+    }
+
+    SnowflakeIdGenerator(long nodeId, String... activeProfiles) {
+        if (nodeId < 0) {
+            if (!SINGLE_NODE_PROFILES.containsAll(Set.of(activeProfiles))) {
+                throw new IllegalStateException("app.ids.node-id must be set (0-" + MAX_NODE
+                        + ", unique per instance) when running with profiles " + String.join(",", activeProfiles));
+            }
+            nodeId = derivedNodeId();
+            log.warn("app.ids.node-id is not set; using {} derived from host and pid. Set a unique id per instance.",
+                    nodeId);
+        } else if (nodeId > MAX_NODE) {
+            throw new IllegalArgumentException("app.ids.node-id must be between 0 and " + MAX_NODE);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public long nextId() {
+        long now = System.currentTimeMillis() - EPOCH;
+        while (true) {
+            long last = state.get();
+            long lastTime = last >>> SEQUENCE_BITS;
+            long time;
+            long sequence;
+            if (now > lastTime) {
+                time = now;
+                sequence = 0;
+            } else {
+                // Same millisecond, or the clock went back: continue from the last id
+                time = lastTime;
+                sequence = (last & SEQUENCE_MASK) + 1;
+                if (sequence > SEQUENCE_MASK) {
+                    time++;
+                    sequence = 0;
+                }
+            }
+            if (state.compareAndSet(last, (time << SEQUENCE_BITS) | sequence)) {
+                return (time << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    private static long derivedNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        long pid = ProcessHandle.current().pid();
+        return ((host.hashCode() * 31L + pid) & Long.MAX_VALUE) % (MAX_NODE + 1);
+    }
+}
@@ -0,0 +1,17 @@
+package com.minari.ecommerce.service;
+
+/**
+ * Published whenever a user row is written, so UserSnapshotCache can drop its copy.
+ */
+public class UserChangedEvent {
+
+    private final Long userId;
+
+    public UserChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,151 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.config.AuthenticatedUser;
+import com.minari.ecommerce.dto.UserSnapshot;
+import com.minari.ecommerce.entity.User;
+import com.minari.ecommerce.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the logged-in user (principal name = email) without a database round trip.
+ *
+ * Snapshots are immutable copies of the user row, kept in an LRU map bounded by
+ * app.user-cache.max-entries and seeded at login by CustomUserDetailsService. Code that
+ * needs the User entity only as an association target (order, cart, address, review)
+ * uses reference(), which returns an uninitialized proxy of the right subclass.
+ *
+ * There is no TTL. A user's entry is dropped when a UserChangedEvent is published by a
+ * write (after the writing transaction commits). Misses are not cached, so a newly
+ * registered user is found on the first lookup.
+ */
+@Service
+public class UserSnapshotCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSnapshotCache.class);
+
+    private final UserRepository userRepository;
+    private final int maxEntries;
+    private final Map<String, UserSnapshot> entries;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Bumped on every invalidation; a load only stores its result if this did not move meanwhile
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserSnapshotCache(UserRepository userRepository,
+            @Value("${app.user-cache.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UserSnapshot> eldest) {
+                return size() > UserSnapshotCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Snapshot of the user with this email, loading it on a miss
+     */
+    public Optional<UserSnapshot> get(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        synchronized (entries) {
+            UserSnapshot snapshot = entries.get(email);
+            if (snapshot != null) {
+                return Optional.of(snapshot);
+            }
+        }
+
+        long loadGeneration = generation.get();
+        Optional<UserSnapshot> loaded = userRepository.findByEmail(email).map(UserSnapshotCache::toSnapshot);
+        loaded.ifPresent(snapshot -> store(snapshot, loadGeneration));
+        return loaded;
+    }
+
+    /**
+     * Snapshot of the authenticated user; empty for anonymous requests
+     */
+    public Optional<UserSnapshot> resolve(Principal principal) {
+        if (principal == null || "anonymousUser".equals(principal.getName())) {
+            return Optional.empty();
+        }
+        return get(principal.getName());
+    }
+
+    /**
+     * Id of the authenticated user, taken from the principal when it carries one
+     */
+    public Optional<Long> currentUserId(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return Optional.of(user.getUserId());
+        }
+        return resolve(principal).map(UserSnapshot::getId);
+    }
+
+    /**
+     * Uninitialized proxy of the user's concrete entity class, for setting associations.
+     * Reading anything but the id from it loads the row.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends User> T reference(UserSnapshot snapshot) {
+        return (T) entityManager.getReference(snapshot.getEntityType(), snapshot.getId());
+    }
+
+    /**
+     * Store a user that was just loaded anyway (e.g. at login)
+     */
+    public UserSnapshot put(User user) {
+        UserSnapshot snapshot = toSnapshot(user);
+        store(snapshot, generation.get());
+        return snapshot;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        int removed;
+        synchronized (entries) {
+            generation.incrementAndGet();
+            int before = entries.size();
+            if (event.getUserId() == null) {
+                entries.clear();
+            } else {
+                entries.values().removeIf(snapshot -> snapshot.getId().equals(event.getUserId()));
+            }
+            removed = before - entries.size();
+        }
+        log.debug("User cache: user #{} changed, dropped {} entries", event.getUserId(), removed);
+    }
+
+    private void store(UserSnapshot snapshot, long loadGeneration) {
+        synchronized (entries) {
+            if (generation.get() == loadGeneration) {
+                entries.put(snapshot.getEmail(), snapshot);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static UserSnapshot toSnapshot(User user) {
+        return new UserSnapshot(user.getId(), user.getEmail(), user.getUsername(), user.getFullName(),
+                user.getPhone(), user.getRole(), (Class<? extends User>) Hibernate.getClass(user),
+                Boolean.TRUE.equals(user.getIsActive()));
+    }
+}
@@ -1,7 +1,10 @@
 // Admin Notification System
-// Polls for new order notifications and updates the UI
+// Listens to the pending-order stream (SSE) and updates the UI;
+// falls back to polling while the stream is down
 
 let notificationCount = 0;
+let notificationCursor = -1;
+let notificationStream = null;
 
 // Update notification badge
 function updateNotificationBadge(count) {
@@ -69,6 +72,17 @@ function updateNotificationDropdown(notifications) {
     }
 }
 
+// Apply a {count, cursor, notifications} snapshot, ignoring ones older than what we show
+function applyNotifications(data) {
+    if (typeof data.cursor === 'number' && data.cursor < notificationCursor) {
+        return;
+    }
+    notificationCursor = typeof data.cursor === 'number' ? data.cursor : notificationCursor;
+    notificationCount = data.count || 0;
+    updateNotificationBadge(notificationCount);
+    updateNotificationDropdown(data.notifications || []);
+}
+
 // Fetch notifications from server
 async function fetchNotifications() {
     try {
@@ -80,16 +94,46 @@ async function fetchNotifications() {
         });
 
         if (response.ok) {
-            const data = await response.json();
-            notificationCount = data.count || 0;
-            updateNotificationBadge(notificationCount);
-            updateNotificationDropdown(data.notifications || []);
+            applyNotifications(await response.json());
         }
     } catch (error) {
         console.error('Error fetching notifications:', error);
     }
 }
 
+// Cheap poll: only reload the list when something changed after our cursor
+async function pollNotifications() {
+    if (notificationStream && notificationStream.readyState === EventSource.OPEN) {
+        return;
+    }
+    try {
+        const response = await fetch(`/api/admin/notifications/since?cursor=${Math.max(notificationCursor, 0)}`, {
+            headers: { 'Accept': 'application/json' }
+        });
+        if (response.ok) {
+            const data = await response.json();
+            if (data.reset || (data.events && data.events.length > 0)) {
+                fetchNotifications();
+            } else {
+                updateNotificationBadge(data.count || 0);
+            }
+        }
+    } catch (error) {
+        console.error('Error polling notifications:', error);
+    }
+}
+
+// Subscribe to pushed updates; EventSource reconnects by itself
+function connectNotificationStream() {
+    if (!window.EventSource) {
+        return;
+    }
+    notificationStream = new EventSource('/api/admin/notifications/stream');
+    notificationStream.addEventListener('pending', event => {
+        applyNotifications(JSON.parse(event.data));
+    });
+}
+
 // Initialize notification system
 function initNotifications() {
     // Add notification badge to the bell icon if it doesn't exist
@@ -103,11 +147,12 @@ function initNotifications() {
         notificationIcon.appendChild(badge);
     }
 
-    // Fetch initial notifications
+    // Fetch initial notifications, then listen for pushed updates
     fetchNotifications();
+    connectNotificationStream();
 
-    // Poll for new notifications every 30 seconds
-    setInterval(fetchNotifications, 30000);
+    // Fallback poll every 30 seconds, skipped while the stream is open
+    setInterval(pollNotifications, 30000);
 }
 
 // Initialize on page load
@@ -210,8 +210,19 @@ document.addEventListener('DOMContentLoaded', () => {
             // Save selected IDs to sessionStorage so backend can filter
             sessionStorage.setItem('selectedCartItems', JSON.stringify(selectedIds));
 
-            // Redirect to checkout summary page with selected items
-            window.location.href = '/payment?items=' + selectedIds.join(',');
+            // Start checkout with the selected items: the POST holds their stock, then redirects to the summary page
+            const form = document.createElement('form');
+            form.method = 'post';
+            form.action = '/payment';
+            [['items', selectedIds.join(',')], ['_csrf', csrfToken]].forEach(([name, value]) => {
+                const input = document.createElement('input');
+                input.type = 'hidden';
+                input.name = name;
+                input.value = value;
+                form.appendChild(input);
+            });
+            document.body.appendChild(form);
+            form.submit();
         });
     }
 
@@ -0,0 +1,103 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.config.QueryCountInspector;
+import com.minari.ecommerce.entity.Address;
+import com.minari.ecommerce.entity.Order;
+import com.minari.ecommerce.entity.PaymentMethod;
+import com.minari.ecommerce.entity.Product;
+import com.minari.ecommerce.entity.ProductCategory;
+import com.minari.ecommerce.repository.ProductCategoryRepository;
+import com.minari.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statements Hibernate prepares for a checkout (see QueryCountInspector). Order items and the
+ * removed cart lines go out as one JDBC batch each (prepared once) and products are loaded
+ * with the cart, so the count does not depend on the number of lines. JdbcTemplate
+ * statements (stock, promotions) are not counted.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkout-statements;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.mail.simulate=true"
+})
+class CheckoutStatementCountTests {
+
+    private static final String CUSTOMER_EMAIL = "customer@minari.com";
+    private static final int LINES = 50;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private ShoppingCartService cartService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductCategoryRepository categoryRepository;
+
+    @Test
+    void checkoutStatementCountDoesNotGrowWithLines() {
+        List<Long> productIds = createProducts();
+
+        // Warm up: the first checkout also initializes the id sequences
+        checkout(productIds.subList(0, 1));
+        long oneLine = checkout(productIds.subList(0, 1));
+        long fiftyLines = checkout(productIds);
+
+        // Measured: 26 statements for 1 line, 24 for 50 lines (125 for 50 lines when each
+        // line loaded its product and clearing the cart re-read every line)
+        assertTrue(fiftyLines <= oneLine + 2,
+                "1-line checkout: " + oneLine + " statements, 50-line checkout: " + fiftyLines);
+        assertTrue(fiftyLines <= 30, "50-line checkout executed " + fiftyLines + " statements");
+    }
+
+    private long checkout(List<Long> productIds) {
+        for (Long productId : productIds) {
+            cartService.addToCart(CUSTOMER_EMAIL, productId, 1);
+        }
+        QueryCountInspector.reset();
+        Order order = orderService.createOrderFromCart(CUSTOMER_EMAIL, address(), PaymentMethod.COD);
+        long statements = QueryCountInspector.count();
+
+        assertEquals(productIds.size(), order.getItems().size());
+        assertEquals(0, cartService.getCartItemCount(CUSTOMER_EMAIL));
+        return statements;
+    }
+
+    private List<Long> createProducts() {
+        ProductCategory category = new ProductCategory();
+        category.setName("Statement count");
+        category.setSlug("statement-count");
+        category = categoryRepository.save(category);
+
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 1; i <= LINES; i++) {
+            Product product = new Product();
+            product.setName("Statement count product " + i);
+            product.setSku("STMT-" + i);
+            product.setPrice(100_000.0 + i * 1_000);
+            product.setStockQuantity(1_000);
+            product.setCategory(category);
+            productIds.add(productRepository.save(product).getId());
+        }
+        return productIds;
+    }
+
+    private static Address address() {
+        Address address = new Address();
+        address.setRecipientName("Statement Count");
+        address.setPhoneNumber("+628000000000");
+        address.setStreetAddress("Jl. Test 1");
+        address.setCity("Bandung");
+        address.setProvince("Jawa Barat");
+        address.setZipcode("40000");
+        return address;
+    }
+}
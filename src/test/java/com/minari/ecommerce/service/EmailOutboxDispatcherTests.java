@@ -0,0 +1,104 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.entity.EmailOutbox;
+import com.minari.ecommerce.entity.EmailOutboxStatus;
+import com.minari.ecommerce.repository.EmailOutboxRepository;
+import com.minari.ecommerce.support.FakeSmtpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDispatcherTests {
+
+    private FakeSmtpServer smtp;
+    private EmailOutboxRepository outboxRepository;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new FakeSmtpServer();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPort());
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.connectiontimeout", "5000");
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.timeout", "5000");
+        mailSender.getJavaMailProperties().setProperty("mail.smtp.writetimeout", "5000");
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        outboxRepository = mock(EmailOutboxRepository.class);
+        dispatcher = new EmailOutboxDispatcher(outboxRepository, mailSender, transactionManager, 2);
+        ReflectionTestUtils.setField(dispatcher, "simulate", false);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "chunkSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "backoffSeconds", 30L);
+        ReflectionTestUtils.setField(dispatcher, "sendTimeoutSeconds", 30L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dispatcher.shutdown();
+        smtp.close();
+    }
+
+    @Test
+    void sendsBatchAndSchedulesRetryForRejectedRecipient() {
+        smtp.rejectRecipient("bounce@example.com");
+        EmailOutbox ok = email(1L, "ok@example.com", 0);
+        EmailOutbox bounce = email(2L, "bounce@example.com", 0);
+        givenClaimed(ok, bounce);
+
+        assertEquals(2, dispatcher.dispatchBatch());
+
+        assertEquals(1, smtp.getMessages().size());
+        assertEquals(List.of("ok@example.com"), smtp.getMessages().get(0).getRecipients());
+        verify(outboxRepository).markSent(eq(List.of(1L)), any());
+
+        assertEquals(EmailOutboxStatus.PENDING, bounce.getStatus());
+        assertEquals(1, bounce.getAttempts());
+        assertTrue(bounce.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertNotNull(bounce.getLastError());
+    }
+
+    @Test
+    void movesEmailToDeadLetterAfterMaxAttempts() {
+        smtp.rejectRecipient("bounce@example.com");
+        EmailOutbox bounce = email(3L, "bounce@example.com", 2);
+        givenClaimed(bounce);
+
+        dispatcher.dispatchBatch();
+
+        assertEquals(EmailOutboxStatus.DEAD, bounce.getStatus());
+        assertEquals(3, bounce.getAttempts());
+        verify(outboxRepository, never()).markSent(any(), any());
+    }
+
+    private void givenClaimed(EmailOutbox... emails) {
+        List<EmailOutbox> batch = List.of(emails);
+        when(outboxRepository.findDueIds(any(), any())).thenReturn(batch.stream().map(EmailOutbox::getId).toList());
+        when(outboxRepository.claim(anyCollection(), anyString(), any())).thenReturn(batch.size());
+        when(outboxRepository.findByClaimToken(anyString())).thenReturn(batch);
+    }
+
+    private EmailOutbox email(Long id, String recipient, int attempts) {
+        EmailOutbox email = new EmailOutbox(recipient, "noreply@minari.com", "Subject " + id, "Body " + id);
+        email.setId(id);
+        email.setAttempts(attempts);
+        email.setStatus(EmailOutboxStatus.SENDING);
+        return email;
+    }
+}
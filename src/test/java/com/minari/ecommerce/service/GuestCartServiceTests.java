@@ -0,0 +1,98 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.entity.Product;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GuestCartServiceTests {
+
+    private static final String SECRET = "test-secret";
+    private static final int MAX_LINES = 3;
+
+    private CatalogCache catalogCache;
+    private GuestCartService service;
+
+    @BeforeEach
+    void setUp() {
+        catalogCache = mock(CatalogCache.class);
+        service = new GuestCartService(catalogCache, SECRET, MAX_LINES, 30);
+    }
+
+    @Test
+    void roundTripKeepsLinesInOrder() {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        lines.put(300_000_000_000L, 2);
+        lines.put(1L, 999);
+        lines.put(128L, 1);
+
+        Map<Long, Integer> decoded = service.decode(service.encode(lines));
+
+        assertEquals(lines, decoded);
+        assertEquals(List.copyOf(lines.keySet()), List.copyOf(decoded.keySet()));
+    }
+
+    @Test
+    void tamperedTokenReadsAsEmptyCart() {
+        String token = service.encode(Map.of(5L, 1));
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+
+        // Quantity changed without re-signing
+        bytes[3] = 9;
+        assertEquals(Map.of(), service.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes)));
+
+        // Signed with another node's secret
+        GuestCartService otherKey = new GuestCartService(catalogCache, "other-secret", MAX_LINES, 30);
+        assertEquals(Map.of(), service.decode(otherKey.encode(Map.of(5L, 1))));
+
+        assertEquals(Map.of(), service.decode("not base64 !"));
+        assertEquals(Map.of(), service.decode(token.substring(0, 4)));
+    }
+
+    @Test
+    void rejectsTokensOutsideSizeBounds() {
+        Map<Long, Integer> tooMany = new LinkedHashMap<>();
+        for (long id = 1; id <= MAX_LINES + 1; id++) {
+            tooMany.put(id, 1);
+        }
+        assertEquals(Map.of(), service.decode(service.encode(tooMany)));
+        assertEquals(Map.of(), service.decode("A".repeat(2049)));
+
+        // Quantities above the cap are clamped
+        assertEquals(Map.of(1L, 999), service.decode(service.encode(Map.of(1L, 5000))));
+    }
+
+    @Test
+    void addRefusesLineBeyondMaxLines() {
+        when(catalogCache.getProductsById(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, Product> products = new LinkedHashMap<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                Product product = new Product();
+                product.setId(id);
+                products.put(id, product);
+            }
+            return products;
+        });
+        Map<Long, Integer> full = Map.of(1L, 1, 2L, 1, 3L, 1);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(GuestCartService.COOKIE_NAME, service.encode(full)));
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> service.add(request, new MockHttpServletResponse(), 4L, 1));
+        assertEquals("Cart is full (max 3 products)", error.getMessage());
+
+        // An existing line can still grow
+        assertEquals(3, service.add(request, new MockHttpServletResponse(), 1L, 2).get(1L));
+    }
+}
@@ -0,0 +1,103 @@
+package com.minari.ecommerce.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTests {
+
+    private static final String KEY = "checkout-token-1";
+    private static final Long USER_ID = 7L;
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private IdempotencyService service;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE idempotency_keys (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "request_key VARCHAR(100) NOT NULL, user_id BIGINT, status VARCHAR(12) NOT NULL, " +
+                "result VARCHAR(255), created_at DATETIME(6) NOT NULL, expires_at DATETIME(6) NOT NULL, " +
+                "CONSTRAINT uk_idempotency_keys_request_key UNIQUE (request_key))");
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        service = newService();
+    }
+
+    @Test
+    void duplicateReplaysFirstResult() {
+        assertEquals("ORD-1", service.execute("order", KEY, USER_ID, () -> "ORD-" + runs.incrementAndGet()));
+        assertEquals("ORD-1", service.execute("order", KEY, USER_ID, () -> "ORD-" + runs.incrementAndGet()));
+
+        // Another instance has no cached copy and replays from the table
+        assertEquals("ORD-1", newService().execute("order", KEY, USER_ID, () -> "ORD-" + runs.incrementAndGet()));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void failedRunReleasesKey() {
+        assertThrows(IllegalStateException.class, () -> service.execute("order", KEY, USER_ID, () -> {
+            runs.incrementAndGet();
+            throw new IllegalStateException("Payment declined");
+        }));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM idempotency_keys", Integer.class));
+
+        assertEquals("ORD-2", service.execute("order", KEY, USER_ID, () -> "ORD-" + runs.incrementAndGet()));
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForFirstResult() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                service.execute("order", KEY, USER_ID, () -> {
+                    started.countDown();
+                    await(finish);
+                    return "ORD-" + runs.incrementAndGet();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> duplicate = CompletableFuture.supplyAsync(() ->
+                service.execute("order", KEY, USER_ID, () -> "ORD-" + runs.incrementAndGet()));
+        Thread.sleep(300);
+        assertFalse(duplicate.isDone());
+
+        finish.countDown();
+        assertEquals("ORD-1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("ORD-1", duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void rejectsKeyOfAnotherUserAndMalformedKeys() {
+        service.execute("order", KEY, USER_ID, () -> "ORD-1");
+
+        assertThrows(IllegalStateException.class, () -> newService().execute("order", KEY, 8L, () -> "ORD-2"));
+        assertThrows(IllegalArgumentException.class, () -> service.execute("order", "short", USER_ID, () -> "ORD-3"));
+    }
+
+    private IdempotencyService newService() {
+        return new IdempotencyService(jdbcTemplate, transactionManager, 60, 60_000, 5_000, 100);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.entity.StockReservation;
+import com.minari.ecommerce.repository.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class InventoryReservationServiceTests {
+
+    private static final String HOLDER = "customer@minari.com";
+
+    private JdbcTemplate jdbcTemplate;
+    private StockReservationRepository reservationRepository;
+    private InventoryReservationService service;
+    private final List<StockReservation> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // The conditional UPDATEs run against a real database; the hold rows go through a mock
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, stock_quantity INT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE stock_reservations (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.update("INSERT INTO products VALUES (1, 5), (2, 1)");
+
+        reservationRepository = mock(StockReservationRepository.class);
+        when(reservationRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            invocation.<Iterable<StockReservation>>getArgument(0).forEach(saved::add);
+            return saved;
+        });
+        service = new InventoryReservationService(reservationRepository, jdbcTemplate,
+                mock(ApplicationEventPublisher.class), 15);
+    }
+
+    @Test
+    void reserveDecrementsStockAndStoresHolds() {
+        service.reserve(HOLDER, Map.of(1L, 2, 2L, 1));
+
+        assertEquals(3, stock(1L));
+        assertEquals(0, stock(2L));
+        assertEquals(2, saved.size());
+        assertTrue(saved.stream().allMatch(hold -> HOLDER.equals(hold.getHolderKey())
+                && hold.getExpiresAt().isAfter(LocalDateTime.now())));
+    }
+
+    @Test
+    void reserveFailsWithoutTouchingStockWhenNotEnoughIsLeft() {
+        RuntimeException error = assertThrows(RuntimeException.class, () -> service.reserve(HOLDER, Map.of(2L, 2)));
+
+        assertEquals("Not enough stock for product #2", error.getMessage());
+        assertEquals(1, stock(2L));
+        assertTrue(saved.isEmpty());
+    }
+
+    @Test
+    void releaseGivesHeldStockBackOnlyOnce() {
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 3 WHERE id = 1");
+        givenHolds(hold(10L, 1L, 2));
+
+        service.release(HOLDER);
+        assertEquals(5, stock(1L));
+
+        // The sweeper already deleted the row: nothing is given back twice
+        service.release(HOLDER);
+        assertEquals(5, stock(1L));
+    }
+
+    @Test
+    void commitDeductsMissingQuantityAndReturnsUnneededHolds() {
+        // 3 of product 1 held; the order takes 2 of product 1 and 1 of product 2 (not held)
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 2 WHERE id = 1");
+        givenHolds(hold(10L, 1L, 3));
+
+        service.commit(HOLDER, Map.of(1L, 2, 2L, 1));
+
+        assertEquals(3, stock(1L));
+        assertEquals(0, stock(2L));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_reservations", Integer.class));
+    }
+
+    @Test
+    void commitFailsWhenUnheldLineIsOutOfStock() {
+        givenHolds();
+
+        assertThrows(RuntimeException.class, () -> service.commit(HOLDER, Map.of(2L, 2)));
+        assertEquals(1, stock(2L));
+    }
+
+    private void givenHolds(StockReservation... holds) {
+        for (StockReservation hold : holds) {
+            jdbcTemplate.update("INSERT INTO stock_reservations VALUES (?)", hold.getId());
+        }
+        when(reservationRepository.findByHolderKey(HOLDER)).thenReturn(List.of(holds));
+    }
+
+    private StockReservation hold(Long id, Long productId, int quantity) {
+        StockReservation hold = new StockReservation(HOLDER, productId, quantity, LocalDateTime.now().plusMinutes(15));
+        hold.setId(id);
+        return hold;
+    }
+
+    private int stock(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+}
@@ -0,0 +1,111 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.dto.ProductSearchDocument;
+import com.minari.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductSearchIndexTests {
+
+    private ProductRepository productRepository;
+    private ProductSearchIndex index;
+    private final List<ProductSearchDocument> catalog = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        catalog.add(document(1L, "Kemeja Linen Biru", "Kemeja lengan panjang", 4.0));
+        catalog.add(document(2L, "Kemeja Flanel Merah", "Flanel tebal", 4.5));
+        catalog.add(document(3L, "Celana Chino Biru", "Cocok dipadukan dengan kemeja", 5.0));
+        catalog.add(document(4L, "Kemejaan Anak", "Setelan anak", 3.0));
+        catalog.add(document(5L, "Jaket Denim", "Denim biru", 4.0));
+        catalog.add(document(6L, "Kemejaan Remaja", "Setelan remaja", 3.5));
+
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findSearchDocumentsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            return catalog.stream().filter(doc -> doc.getId() > afterId).toList();
+        });
+        when(productRepository.findSearchDocumentsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return catalog.stream().filter(doc -> ids.contains(doc.getId())).toList();
+        });
+        index = new ProductSearchIndex(productRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        // Product 3 has "biru" in its name and "kemeja" in its description
+        assertEquals(List.of(1L, 3L), search("kemeja biru"));
+        assertEquals(List.of(), search("kemeja denim"));
+    }
+
+    @Test
+    void ranksNameOverDescriptionAndExactOverPrefix() {
+        // Name and description, name, name by prefix ("kemejaan", tie broken by rating), description
+        assertEquals(List.of(1L, 2L, 6L, 4L, 3L), search("kemeja"));
+    }
+
+    @Test
+    void prefixAndFuzzyTermsMatch() {
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 6L), new HashSet<>(search("kem")));
+        // "flanell" is not indexed and prefixes nothing: within edit distance 1 of "flanel"
+        assertEquals(List.of(2L), search("flanell"));
+        assertEquals(List.of(), search("flxnxl"));
+    }
+
+    @Test
+    void changedProductIsTombstonedAndCompacted() {
+        catalog.set(1, document(2L, "Jaket Flanel Merah", "Flanel tebal", 4.5));
+        index.reindex(List.of(2L));
+
+        assertEquals(List.of(1L, 6L, 4L, 3L), search("kemeja"));
+        assertEquals(List.of(2L, 5L), search("jaket"));
+
+        // 1 tombstone for 6 live documents: below a quarter, kept
+        index.compactIfNeeded();
+        assertEquals(1, deleted().cardinality());
+
+        // An unchanged product also gets a new ordinal; 2 tombstones trigger the rebuild
+        index.reindex(List.of(5L));
+        index.compactIfNeeded();
+
+        assertEquals(0, deleted().cardinality());
+        assertEquals(List.of(2L, 5L), search("jaket"));
+        verify(productRepository, times(2)).findSearchDocumentsAfter(anyLong(), any());
+    }
+
+    private List<Long> search(String query) {
+        return index.search(query, null, null, PageRequest.of(0, 20)).getIds();
+    }
+
+    private BitSet deleted() {
+        Object data = ReflectionTestUtils.getField(index, "data");
+        return (BitSet) ReflectionTestUtils.getField(data, "deleted");
+    }
+
+    private static ProductSearchDocument document(Long id, String name, String description, double rating) {
+        ProductSearchDocument doc = mock(ProductSearchDocument.class);
+        when(doc.getId()).thenReturn(id);
+        when(doc.getName()).thenReturn(name);
+        when(doc.getDescription()).thenReturn(description);
+        when(doc.getCategoryId()).thenReturn(1L);
+        when(doc.getCategoryName()).thenReturn("Pakaian");
+        when(doc.getPrice()).thenReturn(150_000.0);
+        when(doc.getAverageRating()).thenReturn(rating);
+        return doc;
+    }
+}
@@ -0,0 +1,136 @@
+package com.minari.ecommerce.service;
+
+import com.minari.ecommerce.entity.Promotion;
+import com.minari.ecommerce.repository.PromotionRedemptionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PromotionUsageServiceTests {
+
+    private static final Long CUSTOMER_ID = 7L;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate checkout;
+    private PromotionRedemptionRepository redemptionRepository;
+    private PromotionUsageService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE promotions (id BIGINT PRIMARY KEY, usage_limit INT, used_count INT NOT NULL)");
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        checkout = new TransactionTemplate(transactionManager);
+        redemptionRepository = mock(PromotionRedemptionRepository.class);
+        service = new PromotionUsageService(redemptionRepository, jdbcTemplate, transactionManager, 2);
+    }
+
+    @Test
+    void stopsAtUsageLimitAcrossBlocks() {
+        Promotion promotion = promotion(1L, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(acquire(promotion), "use " + (i + 1));
+        }
+        assertFalse(acquire(promotion));
+
+        // A full block of 2, then the single use left below the limit
+        assertEquals(3, usedCount(1L));
+        assertTrue(service.unavailablePromotionIds(CUSTOMER_ID, false).contains(1L));
+    }
+
+    @Test
+    void otherInstanceCannotTakeUsesHeldInABlock() {
+        Promotion promotion = promotion(1L, 2);
+        assertTrue(acquire(promotion));
+
+        PromotionUsageService otherNode = new PromotionUsageService(redemptionRepository, jdbcTemplate,
+                new DataSourceTransactionManager(jdbcTemplate.getDataSource()), 2);
+        assertFalse(otherNode.tryAcquire(promotion, CUSTOMER_ID));
+
+        // The second use of the block is still available here
+        assertTrue(acquire(promotion));
+        assertEquals(2, usedCount(1L));
+    }
+
+    @Test
+    void rolledBackCheckoutReturnsItsUse() {
+        Promotion promotion = promotion(1L, 1);
+
+        Boolean acquired = checkout.execute(status -> {
+            boolean result = service.tryAcquire(promotion, CUSTOMER_ID);
+            status.setRollbackOnly();
+            return result;
+        });
+        assertTrue(acquired);
+
+        // The lease was taken in its own transaction and is kept; the use goes back into the block
+        assertEquals(1, usedCount(1L));
+        assertTrue(acquire(promotion));
+        assertFalse(acquire(promotion));
+    }
+
+    @Test
+    void rejectsCustomerAtCustomerUsageLimit() {
+        Promotion promotion = promotion(1L, null);
+        promotion.setCustomerUsageLimit(1);
+        when(redemptionRepository.countByPromotionIdAndCustomerId(1L, CUSTOMER_ID)).thenReturn(1L);
+
+        assertFalse(acquire(promotion));
+        assertEquals(0, usedCount(1L));
+    }
+
+    @Test
+    void recheckMarksPromotionsUsedUpElsewhere() {
+        Promotion held = promotion(1L, 2);
+        promotion(2L, 5);
+        assertTrue(acquire(held));
+        // Another instance took the remaining uses of promotion 2
+        jdbcTemplate.update("UPDATE promotions SET used_count = 5 WHERE id = 2");
+
+        service.recheckExhausted();
+
+        // Promotion 1 is used up in the table too, but this instance still holds one of its uses
+        assertEquals(Set.of(2L), service.unavailablePromotionIds(CUSTOMER_ID, false));
+    }
+
+    @Test
+    void shutdownReturnsUnspentUses() {
+        Promotion promotion = promotion(1L, null);
+        assertTrue(acquire(promotion));
+        assertEquals(2, usedCount(1L));
+
+        service.shutdown();
+
+        assertEquals(1, usedCount(1L));
+    }
+
+    private boolean acquire(Promotion promotion) {
+        return Boolean.TRUE.equals(checkout.execute(status -> service.tryAcquire(promotion, CUSTOMER_ID)));
+    }
+
+    private Promotion promotion(Long id, Integer usageLimit) {
+        jdbcTemplate.update("INSERT INTO promotions VALUES (?, ?, 0)", id, usageLimit);
+        Promotion promotion = new Promotion();
+        promotion.setId(id);
+        promotion.setUsageLimit(usageLimit);
+        promotion.setUsedCount(0);
+        return promotion;
+    }
+
+    private int usedCount(Long id) {
+        return jdbcTemplate.queryForObject("SELECT used_count FROM promotions WHERE id = ?", Integer.class, id);
+    }
+}
@@ -0,0 +1,106 @@
+package com.minari.ecommerce.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTests {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 50_000;
+
+    @Test
+    void idsAreUniqueAndIncreasingUnderContention() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Callable<long[]>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tasks.add(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                });
+            }
+            Set<Long> all = new HashSet<>();
+            for (Future<long[]> result : pool.invokeAll(tasks)) {
+                long[] ids = result.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertTrue(i == 0 || ids[i] > ids[i - 1], "ids of one thread must increase");
+                    assertEquals(5, node(ids[i]));
+                    all.add(ids[i]);
+                }
+            }
+            assertEquals(THREADS * IDS_PER_THREAD, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void clockSteppingBackContinuesFromLastId() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5);
+        // Last id was handed out 10s "in the future", i.e. the clock has since gone back
+        long ahead = System.currentTimeMillis() - SnowflakeIdGenerator.EPOCH + 10_000;
+        setLast(generator, ahead, 7);
+
+        long id = generator.nextId();
+
+        assertEquals(ahead, time(id));
+        assertEquals(8, sequence(id));
+        assertTrue(generator.nextId() > id);
+    }
+
+    @Test
+    void fullMillisecondMovesToNextOne() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5);
+        long ahead = System.currentTimeMillis() - SnowflakeIdGenerator.EPOCH + 10_000;
+        setLast(generator, ahead, SnowflakeIdGenerator.SEQUENCE_MASK);
+
+        long id = generator.nextId();
+
+        assertEquals(ahead + 1, time(id));
+        assertEquals(0, sequence(id));
+    }
+
+    @Test
+    void derivedNodeIdOnlyOnSingleNodeProfiles() {
+        assertThrows(IllegalStateException.class, () -> new SnowflakeIdGenerator(-1, "prod"));
+        assertThrows(IllegalStateException.class, () -> new SnowflakeIdGenerator(-1, "dev", "prod"));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024, "prod"));
+
+        assertEquals(3, new SnowflakeIdGenerator(3, "prod").getNodeId());
+        assertTrue(new SnowflakeIdGenerator(-1).getNodeId() <= SnowflakeIdGenerator.MAX_NODE);
+        assertTrue(new SnowflakeIdGenerator(-1, "dev").getNodeId() >= 0);
+    }
+
+    private static void setLast(SnowflakeIdGenerator generator, long time, long sequence) {
+        AtomicLong state = (AtomicLong) ReflectionTestUtils.getField(generator, "state");
+        state.set((time << SnowflakeIdGenerator.SEQUENCE_BITS) | sequence);
+    }
+
+    private static long time(long id) {
+        return id >>> (SnowflakeIdGenerator.NODE_BITS + SnowflakeIdGenerator.SEQUENCE_BITS);
+    }
+
+    private static long node(long id) {
+        return (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE;
+    }
+
+    private static long sequence(long id) {
+        return id & SnowflakeIdGenerator.SEQUENCE_MASK;
+    }
+}